@@ -0,0 +1,78 @@
+package com.example.demo.config;
+
+import com.example.demo.service.Impl.ImageByteCache;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Serves /images/** file bodies from ImageByteCache. The key carries the
+ * file's modification time and length, so an overwritten file is re-read
+ * and the stale entry ages out of the LRU. Nothing under the blob store is
+ * served, in case it is configured inside the uploads directory: blobs and
+ * their temp files go out through /api/files only.
+ */
+public class CachedImageResolver extends AbstractResourceResolver {
+
+    private final ImageByteCache imageByteCache;
+    private final Path blobStoreRoot;
+
+    public CachedImageResolver(ImageByteCache imageByteCache, Path blobStoreRoot) {
+        this.imageByteCache = imageByteCache;
+        this.blobStoreRoot = blobStoreRoot;
+    }
+
+    @Override
+    @Nullable
+    protected Resource resolveResourceInternal(@Nullable HttpServletRequest request, @NonNull String requestPath,
+            @NonNull List<? extends Resource> locations, @NonNull ResourceResolverChain chain) {
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || !resource.isFile()) {
+            return resource;
+        }
+        try {
+            Path path = resource.getFile().toPath().toAbsolutePath().normalize();
+            if (path.startsWith(blobStoreRoot)) {
+                return null;
+            }
+            return new CachedFileResource(path);
+        } catch (IOException e) {
+            return resource;
+        }
+    }
+
+    @Override
+    @Nullable
+    protected String resolveUrlPathInternal(@NonNull String resourceUrlPath,
+            @NonNull List<? extends Resource> locations, @NonNull ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    private class CachedFileResource extends FileSystemResource {
+
+        CachedFileResource(Path path) {
+            super(path);
+        }
+
+        @Override
+        @NonNull
+        public InputStream getInputStream() throws IOException {
+            long length = contentLength();
+            String key = "file:" + getPath() + ":" + lastModified() + ":" + length;
+            ImageByteCache.Handle handle = imageByteCache.get(key);
+            if (handle == null && imageByteCache.admits(length)) {
+                handle = imageByteCache.load(key, getFile().toPath());
+            }
+            return handle != null ? handle.inputStream() : super.getInputStream();
+        }
+    }
+}
@@ -45,7 +45,8 @@ public class CorsConfig {
                 // Expose headers that frontend can read
                 configuration.setExposedHeaders(Arrays.asList(
                                 "Authorization",
-                                "Content-Disposition"));
+                                "Content-Disposition",
+                                "X-Next-Cursor"));
 
                 // Allow credentials (cookies, authorization headers, etc.)
                 configuration.setAllowCredentials(true);
@@ -0,0 +1,64 @@
+package com.example.demo.config;
+
+import com.example.demo.service.BlobStore;
+import com.example.demo.service.FoodItemService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Moves images left in the old food_items.image_data LONGBLOB column into
+ * the blob store, one row at a time, and clears the column. Rows already
+ * moved are skipped, so an interrupted run just continues on next start.
+ */
+@Component
+public class FoodImageMigrator implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FoodItemService foodItemService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Override
+    public void run(String... args) {
+        List<Long> ids;
+        try {
+            ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM food_items WHERE image_data IS NOT NULL AND image_hash IS NULL", Long.class);
+        } catch (Exception e) {
+            // Fresh schema without the legacy column, nothing to move
+            return;
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        System.out.println("🖼️ FoodImageMigrator: Moving " + ids.size() + " food images to the blob store...");
+        int moved = 0;
+        for (Long id : ids) {
+            try {
+                jdbcTemplate.query("SELECT image_data FROM food_items WHERE id = ?", rs -> {
+                    try (InputStream in = rs.getBinaryStream(1)) {
+                        foodItemService.attachImage(id, blobStore.store(in));
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }, id);
+                jdbcTemplate.update("UPDATE food_items SET image_data = NULL WHERE id = ?", id);
+                moved++;
+            } catch (Exception e) {
+                System.err.println("⚠️ FoodImageMigrator: Failed to move image of food item " + id + ": "
+                        + e.getMessage());
+            }
+        }
+        System.out.println("✅ FoodImageMigrator: Moved " + moved + " images, the image_data column can be dropped.");
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.demo.config;
 
-import com.razorpay.RazorpayClient;
-import com.razorpay.RazorpayException;
+import com.example.demo.service.Impl.HttpRazorpayApi;
+import com.example.demo.service.RazorpayApi;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class RazorpayConfig {
 
@@ -15,8 +17,20 @@ public class RazorpayConfig {
     @Value("${razorpay.key.secret}")
     private String razorpayKeySecret;
 
+    // The real Razorpay API unless the razorpay-stub profile points it at the
+    // local stub gateway
+    @Value("${razorpay.api.base-url:https://api.razorpay.com}")
+    private String razorpayBaseUrl;
+
+    @Value("${razorpay.gateway.timeout-ms:5000}")
+    private long gatewayTimeoutMs;
+
+    // Not the SDK client: its shared OkHttpClient has fixed 60 s socket timeouts, so a call the
+    // gateway had already given up on would keep its bulkhead thread for up to a minute
     @Bean
-    public RazorpayClient razorpayClient() throws RazorpayException {
-        return new RazorpayClient(razorpayKeyId, razorpayKeySecret);
+    public RazorpayApi razorpayApi() {
+        System.out.println("💳 Razorpay API base URL: " + razorpayBaseUrl);
+        return new HttpRazorpayApi(razorpayBaseUrl, razorpayKeyId, razorpayKeySecret,
+                Duration.ofMillis(gatewayTimeoutMs));
     }
 }
@@ -0,0 +1,347 @@
+package com.example.demo.config;
+
+import com.example.demo.security.RazorpaySignatureVerifier;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for the Razorpay orders, payments.fetch and refund endpoints,
+ * used to load test the payment paths offline. Started only with the
+ * razorpay-stub profile, which also points RazorpayConfig at it.
+ *
+ * Every API call gets a log-normal latency (configured by its median and
+ * p99), and a configurable share of calls fail with a 500 or never answer
+ * until the hang time has passed. POST /v1/stub/orders/{id}/pay plays the role
+ * of the checkout: it captures a payment for the order and returns the ids and
+ * signature the frontend would send to /api/payments/verify.
+ *
+ * Randomness is drawn per request from the seed, the request itself (method,
+ * path and body) and how many times that same request was seen, never from a
+ * shared generator. Handler threads can then run in any order and a replayed
+ * load test still gets the same latencies, faults and ids. Repeat counts are
+ * kept for the most recently seen requests only (razorpay.stub.tracked-requests);
+ * a request seen again after it was dropped starts counting from one.
+ */
+@Component
+@Profile("razorpay-stub")
+public class RazorpayStubServer {
+
+    @Value("${razorpay.stub.port:18090}")
+    private int port;
+
+    @Value("${razorpay.stub.threads:32}")
+    private int threads;
+
+    @Value("${razorpay.stub.latency.median-ms:150}")
+    private double medianLatencyMs;
+
+    @Value("${razorpay.stub.latency.p99-ms:600}")
+    private double p99LatencyMs;
+
+    @Value("${razorpay.stub.error-rate:0.0}")
+    private double errorRate;
+
+    @Value("${razorpay.stub.timeout-rate:0.0}")
+    private double timeoutRate;
+
+    @Value("${razorpay.stub.hang-ms:30000}")
+    private long hangMs;
+
+    @Value("${razorpay.stub.seed:42}")
+    private long seed;
+
+    @Value("${razorpay.stub.tracked-requests:100000}")
+    private int trackedRequests;
+
+    @Autowired
+    private RazorpaySignatureVerifier signatureVerifier;
+
+    private final Map<String, JSONObject> orders = new ConcurrentHashMap<>();
+    private final Map<String, JSONObject> payments = new ConcurrentHashMap<>();
+    // Least recently seen request first, guarded by itself
+    private final LinkedHashMap<String, long[]> requestCounts = new LinkedHashMap<>(1024, 0.75f, true);
+
+    private HttpServer server;
+    private ExecutorService handlerPool;
+    private ScheduledExecutorService responder;
+
+    @PostConstruct
+    public void start() throws IOException {
+        handlerPool = Executors.newFixedThreadPool(threads, daemon("razorpay-stub"));
+        // Delayed responses are sent from here so that simulated latency does
+        // not hold a handler thread
+        responder = Executors.newScheduledThreadPool(2, daemon("razorpay-stub-responder"));
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 256);
+        server.setExecutor(handlerPool);
+        server.createContext("/v1/", this::handle);
+        server.start();
+        System.out.println("🧪 Razorpay stub gateway listening on http://127.0.0.1:" + port
+                + " (median " + medianLatencyMs + " ms, p99 " + p99LatencyMs + " ms, errors " + errorRate
+                + ", timeouts " + timeoutRate + ")");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        handlerPool.shutdownNow();
+        responder.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().substring("/v1/".length()).split("/");
+            JSONObject body = readBody(exchange);
+            SplittableRandom random = randomFor(method + " " + exchange.getRequestURI().getPath() + " " + body);
+
+            if (path.length == 4 && "stub".equals(path[0]) && "orders".equals(path[1]) && "pay".equals(path[3])
+                    && "POST".equals(method)) {
+                // Test helper, answered immediately and never faulted
+                respond(exchange, 0, capture(path[2], body, random));
+                return;
+            }
+
+            if (exchange.getRequestHeaders().getFirst("Authorization") == null) {
+                respond(exchange, 0, error(401, "BAD_REQUEST_ERROR", "Authentication failed"));
+                return;
+            }
+
+            double roll = random.nextDouble();
+            if (roll < timeoutRate) {
+                // Simulated timeout: hold the connection, then drop it without an answer
+                responder.schedule(exchange::close, hangMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            Reply reply;
+            if (roll < timeoutRate + errorRate) {
+                reply = error(500, "SERVER_ERROR", "Stub injected failure");
+            } else if (path.length == 1 && "orders".equals(path[0]) && "POST".equals(method)) {
+                reply = createOrder(body, random);
+            } else if (path.length == 2 && "payments".equals(path[0]) && "GET".equals(method)) {
+                reply = fetchPayment(path[1]);
+            } else if (path.length == 3 && "payments".equals(path[0]) && "refund".equals(path[2])
+                    && "POST".equals(method)) {
+                reply = refund(path[1], body, random);
+            } else {
+                reply = error(404, "BAD_REQUEST_ERROR", "The requested URL was not found on the server.");
+            }
+            respond(exchange, sampleLatencyMs(random), reply);
+        } catch (Exception e) {
+            respond(exchange, 0, error(400, "BAD_REQUEST_ERROR", e.getMessage()));
+        }
+    }
+
+    private Reply createOrder(JSONObject request, SplittableRandom random) {
+        long amount = request.optLong("amount", 0);
+        if (amount < 100) {
+            return error(400, "BAD_REQUEST_ERROR", "The amount must be atleast INR 1.00");
+        }
+
+        JSONObject order = new JSONObject();
+        order.put("id", "order_" + randomId(random));
+        order.put("entity", "order");
+        order.put("amount", amount);
+        order.put("amount_paid", 0);
+        order.put("amount_due", amount);
+        order.put("currency", request.optString("currency", "INR"));
+        order.put("receipt", request.opt("receipt"));
+        order.put("status", "created");
+        order.put("attempts", 0);
+        order.put("notes", request.optJSONObject("notes") != null ? request.getJSONObject("notes") : new JSONObject());
+        order.put("created_at", System.currentTimeMillis() / 1000);
+        orders.put(order.getString("id"), order);
+        return new Reply(200, order);
+    }
+
+    private Reply fetchPayment(String paymentId) {
+        JSONObject payment = payments.get(paymentId);
+        if (payment == null) {
+            return error(400, "BAD_REQUEST_ERROR", "The id provided does not exist");
+        }
+        synchronized (payment) {
+            return new Reply(200, new JSONObject(payment.toString()));
+        }
+    }
+
+    private Reply refund(String paymentId, JSONObject request, SplittableRandom random) {
+        JSONObject payment = payments.get(paymentId);
+        if (payment == null) {
+            return error(400, "BAD_REQUEST_ERROR", "The id provided does not exist");
+        }
+
+        synchronized (payment) {
+            long remaining = payment.getLong("amount") - payment.getLong("amount_refunded");
+            long amount = request.optLong("amount", remaining);
+            if (!"captured".equals(payment.getString("status")) || amount <= 0 || amount > remaining) {
+                return error(400, "BAD_REQUEST_ERROR", "The refund amount provided is greater than amount captured");
+            }
+            payment.put("amount_refunded", payment.getLong("amount_refunded") + amount);
+            payment.put("refund_status", amount == remaining ? "full" : "partial");
+
+            JSONObject refund = new JSONObject();
+            refund.put("id", "rfnd_" + randomId(random));
+            refund.put("entity", "refund");
+            refund.put("amount", amount);
+            refund.put("currency", payment.getString("currency"));
+            refund.put("payment_id", paymentId);
+            refund.put("notes", request.optJSONObject("notes") != null ? request.getJSONObject("notes") : new JSONObject());
+            refund.put("status", "processed");
+            refund.put("speed_processed", "normal");
+            refund.put("created_at", System.currentTimeMillis() / 1000);
+            return new Reply(200, refund);
+        }
+    }
+
+    private Reply capture(String orderId, JSONObject request, SplittableRandom random) {
+        JSONObject order = orders.get(orderId);
+        if (order == null) {
+            return error(400, "BAD_REQUEST_ERROR", "The id provided does not exist");
+        }
+
+        String method = request.optString("method", "upi");
+        String status = request.optString("status", "captured");
+
+        JSONObject payment = new JSONObject();
+        payment.put("id", "pay_" + randomId(random));
+        payment.put("entity", "payment");
+        payment.put("amount", order.getLong("amount"));
+        payment.put("currency", order.getString("currency"));
+        payment.put("status", status);
+        payment.put("order_id", orderId);
+        payment.put("method", method);
+        payment.put("amount_refunded", 0);
+        payment.put("captured", "captured".equals(status));
+        payment.put("email", "loadtest@example.com");
+        payment.put("contact", "+919999999999");
+        payment.put("created_at", System.currentTimeMillis() / 1000);
+        switch (method) {
+            case "card" -> payment.put("card", new JSONObject().put("last4", "1111").put("network", "Visa"));
+            case "netbanking" -> payment.put("bank", "HDFC");
+            case "wallet" -> payment.put("wallet", "paytm");
+            default -> payment.put("vpa", "loadtest@upi");
+        }
+        if (!"captured".equals(status)) {
+            payment.put("error_description", "Payment failed (stub)");
+        }
+        payments.put(payment.getString("id"), payment);
+
+        if ("captured".equals(status)) {
+            synchronized (order) {
+                order.put("amount_paid", order.getLong("amount"));
+                order.put("amount_due", 0);
+                order.put("status", "paid");
+            }
+        }
+
+        String paymentId = payment.getString("id");
+        JSONObject checkout = new JSONObject();
+        checkout.put("razorpay_order_id", orderId);
+        checkout.put("razorpay_payment_id", paymentId);
+        checkout.put("razorpay_signature", signatureVerifier.signPayment(orderId, paymentId));
+        return new Reply(200, checkout);
+    }
+
+    // Seeded by the request and its repeat count, so the draw does not depend on thread scheduling
+    private SplittableRandom randomFor(String request) {
+        long repeat;
+        synchronized (requestCounts) {
+            repeat = ++requestCounts.computeIfAbsent(request, key -> new long[1])[0];
+            if (requestCounts.size() > trackedRequests) {
+                Iterator<String> eldest = requestCounts.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        long state = seed;
+        state = state * 0x9E3779B97F4A7C15L + request.hashCode();
+        state = state * 0x9E3779B97F4A7C15L + repeat;
+        return new SplittableRandom(state);
+    }
+
+    private long sampleLatencyMs(SplittableRandom random) {
+        if (medianLatencyMs <= 0) {
+            return 0;
+        }
+        // Log-normal with the configured median, sigma chosen so that the
+        // configured p99 lands 2.326 standard deviations above it
+        double sigma = p99LatencyMs > medianLatencyMs ? Math.log(p99LatencyMs / medianLatencyMs) / 2.326 : 0;
+        return Math.round(medianLatencyMs * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    private void respond(HttpExchange exchange, long delayMs, Reply reply) {
+        Runnable send = () -> {
+            try (exchange) {
+                byte[] bytes = reply.body.toString().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(reply.status, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } catch (IOException e) {
+                // Client gave up (timed out) before the reply was sent
+            }
+        };
+        if (delayMs > 0) {
+            responder.schedule(send, delayMs, TimeUnit.MILLISECONDS);
+        } else {
+            send.run();
+        }
+    }
+
+    private static JSONObject readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String raw = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return raw.isBlank() ? new JSONObject() : new JSONObject(raw);
+        } catch (JSONException e) {
+            throw new IOException("Request body is not valid JSON");
+        }
+    }
+
+    private static Reply error(int status, String code, String description) {
+        return new Reply(status, new JSONObject().put("error",
+                new JSONObject().put("code", code).put("description", description)));
+    }
+
+    private static String randomId(SplittableRandom random) {
+        return String.format("%014x", random.nextLong() >>> 8);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Reply(int status, JSONObject body) {
+    }
+}
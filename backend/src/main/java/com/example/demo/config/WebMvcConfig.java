@@ -1,5 +1,8 @@
 package com.example.demo.config;
 
+import com.example.demo.service.Impl.ImageByteCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -10,11 +13,20 @@ import java.nio.file.Paths;
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private ImageByteCache imageByteCache;
+
+    @Value("${blob.store.dir:blob-store}")
+    private String blobStoreDir;
+
     @Override
     public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
         String uploadPath = Paths.get("uploads").toAbsolutePath().toString();
 
         registry.addResourceHandler("/images/**")
-                .addResourceLocations("file:/" + uploadPath + "/");
+                .addResourceLocations("file:/" + uploadPath + "/")
+                .resourceChain(true)
+                .addResolver(new CachedImageResolver(imageByteCache,
+                        Paths.get(blobStoreDir).toAbsolutePath().normalize()));
     }
 }
@@ -3,11 +3,14 @@ package com.example.demo.controller;
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.RegisterRequest;
+import com.example.demo.dto.StreamTicketResponse;
 import com.example.demo.dto.VendorRegisterRequest;
+import com.example.demo.security.CustomUserDetails;
 import com.example.demo.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -43,4 +46,28 @@ public class AuthController {
     public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
         return ResponseEntity.ok(authService.login(request));
     }
+
+    /**
+     * Logout: revokes all tokens issued to the current user
+     * POST /api/auth/logout
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        if (userDetails == null)
+            throw new RuntimeException("User not authenticated");
+        authService.logout(userDetails.getId());
+        return ResponseEntity.ok("Logged out successfully");
+    }
+
+    /**
+     * Ticket for opening Server-Sent Events streams, sent as ?ticket= since
+     * EventSource can't send the Authorization header
+     * POST /api/auth/stream-ticket
+     */
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<StreamTicketResponse> streamTicket(@AuthenticationPrincipal CustomUserDetails userDetails) {
+        if (userDetails == null)
+            throw new RuntimeException("User not authenticated");
+        return ResponseEntity.ok(authService.createStreamTicket(userDetails));
+    }
 }
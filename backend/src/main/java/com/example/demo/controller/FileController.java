@@ -1,82 +1,85 @@
 package com.example.demo.controller;
 
+import com.example.demo.entity.ImageSize;
+import com.example.demo.service.BlobStore;
+import com.example.demo.service.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/files")
 @CrossOrigin(origins = "*")
 public class FileController {
 
-    private final Path fileStorageLocation;
+    @Autowired
+    private BlobStore blobStore;
 
-    public FileController() {
-        this.fileStorageLocation = Paths.get("uploads").toAbsolutePath().normalize();
+    @Autowired
+    private ImageVariantService imageVariantService;
 
-        try {
-            Files.createDirectories(this.fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
-        }
-    }
+    @Autowired
+    private ImageResponseWriter imageResponseWriter;
 
-    @PostMapping("/upload")
-    public ResponseEntity<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file) {
-        // Check if file is empty
-        if (file.isEmpty()) {
-            return ResponseEntity.badRequest().body(Map.of("error", "File is empty"));
-        }
+    @Autowired
+    private StreamingUploadReader streamingUploadReader;
 
+    /**
+     * Stream the "file" part of a multipart upload into the blob store and
+     * queue its thumb, card and full variants. Files uploaded before this
+     * are still served from /images/**.
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<Map<String, Object>> uploadFile(HttpServletRequest request) {
         try {
-            // Normalize file name
-            String rawFileName = file.getOriginalFilename();
-            if (rawFileName == null) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Could not get file name"));
-            }
-            String originalFileName = StringUtils.cleanPath(rawFileName);
-            String fileExtension = "";
+            BlobStore.Blob blob = streamingUploadReader.receive(request);
+            imageVariantService.generateVariants(blob.hash());
 
-            try {
-                fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
-            } catch (Exception e) {
-                fileExtension = "";
+            // The URL names the content, so it never changes meaning and caches forever
+            String fileDownloadUri = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/api/files/").path(blob.hash()).toUriString();
+            Map<String, String> variants = new LinkedHashMap<>();
+            for (ImageSize size : ImageSize.values()) {
+                variants.put(size.name().toLowerCase(Locale.ROOT),
+                        fileDownloadUri + "?size=" + size.name().toLowerCase(Locale.ROOT));
             }
 
-            // Generate unique filename to avoid conflicts
-            String fileName = UUID.randomUUID().toString() + fileExtension;
-
-            // Copy file to the target location (Replacing existing file with the same name)
-            Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-
-            // Generate file download URI
-            // Assume server is running on localhost:8080 or derived from request context
-            // simplistic approach for now:
-            String fileDownloadUri = "http://localhost:8080/images/" + fileName;
-
-            Map<String, String> response = new HashMap<>();
-            response.put("fileName", fileName);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("fileName", blob.hash());
             response.put("fileDownloadUri", fileDownloadUri);
-            response.put("type", file.getContentType());
-            response.put("size", String.valueOf(file.getSize()));
+            response.put("variants", variants);
+            response.put("type", blob.contentType());
+            response.put("size", String.valueOf(blob.size()));
 
             return ResponseEntity.ok(response);
         } catch (IOException ex) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error",
-                            "Could not store file " + file.getOriginalFilename() + ". Please try again!"));
+                    .body(Map.of("error", "Could not store file. Please try again!"));
+        }
+    }
+
+    /**
+     * Serve an uploaded file, size=thumb|card|full|original (default full)
+     * GET /api/files/{hash}?size=card
+     */
+    @GetMapping("/{hash}")
+    public void getFile(@PathVariable String hash,
+            @RequestParam(value = "size", required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (blobStore.locate(hash) == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        imageResponseWriter.write(imageVariantService.resolve(hash, ImageSize.fromParam(size)), true, request,
+                response);
     }
 }
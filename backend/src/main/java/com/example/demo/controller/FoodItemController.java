@@ -2,19 +2,23 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.FoodItemRequest;
 import com.example.demo.dto.FoodItemResponse;
+import com.example.demo.dto.FoodSearchResponse;
 import com.example.demo.entity.FoodItem;
+import com.example.demo.entity.ImageSize;
+import com.example.demo.repository.FoodItemRepository;
+import com.example.demo.service.BlobStore;
 import com.example.demo.service.FoodItemService;
+import com.example.demo.service.ImageVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,6 +29,18 @@ public class FoodItemController {
     @Autowired
     private FoodItemService foodItemService;
 
+    @Autowired
+    private FoodItemRepository foodItemRepository;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ImageResponseWriter imageResponseWriter;
+
+    @Autowired
+    private StreamingUploadReader streamingUploadReader;
+
     @PostMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR')")
     public ResponseEntity<FoodItemResponse> createFoodItem(@Valid @RequestBody FoodItemRequest request) {
@@ -32,36 +48,47 @@ public class FoodItemController {
         return ResponseEntity.ok(FoodItemResponse.fromEntity(foodItem));
     }
 
+    /**
+     * Upload a food item's image as multipart/form-data with a "file" part
+     * POST /api/food-items/{id}/image
+     *
+     * The part is streamed into the blob store, see StreamingUploadReader.
+     */
     @PostMapping("/{id}/image")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR')")
-    public ResponseEntity<FoodItemResponse> uploadFoodItemImage(
-            @PathVariable Long id,
-            @RequestParam("file") MultipartFile file) throws IOException {
+    public ResponseEntity<FoodItemResponse> uploadFoodItemImage(@PathVariable Long id, HttpServletRequest request)
+            throws IOException {
         if (id == null) {
             return ResponseEntity.badRequest().build();
         }
-        FoodItem foodItem = foodItemService.getFoodItemById(id);
-        foodItem.setImageData(file.getBytes());
-        // Point the URL to our new database-serving endpoint
-        foodItem.setImageUrl("/api/food-items/" + id + "/image");
-        FoodItem updated = foodItemService.save(foodItem);
+        foodItemService.getFoodItemById(id); // 404 before reading the body
+        BlobStore.Blob image = streamingUploadReader.receive(request);
+        FoodItem updated = foodItemService.attachImage(id, image);
         return ResponseEntity.ok(FoodItemResponse.fromEntity(updated));
     }
 
+    /**
+     * Serve a food item's image from the blob store
+     * GET /api/food-items/{id}/image?v=<hash prefix>&size=thumb|card|full|original
+     *
+     * Only the hash is read from the database. size defaults to full; a
+     * variant still being generated is answered with the original.
+     */
     @GetMapping("/{id}/image")
-    public ResponseEntity<byte[]> getFoodItemImage(@PathVariable Long id) {
-        if (id == null) {
-            return ResponseEntity.badRequest().build();
-        }
-        FoodItem foodItem = foodItemService.getFoodItemById(id);
-        if (foodItem.getImageData() == null) {
-            return ResponseEntity.notFound().build();
+    public void getFoodItemImage(@PathVariable Long id,
+            @RequestParam(value = "v", required = false) String version,
+            @RequestParam(value = "size", required = false) String size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageSize imageSize = ImageSize.fromParam(size);
+        List<Object[]> ref = foodItemRepository.findImageRef(id);
+        String hash = ref.isEmpty() ? null : (String) ref.get(0)[0];
+        if (hash == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
 
-        // Simpler way to detect image type or just default to JPEG
-        return ResponseEntity.ok()
-                .contentType(Objects.requireNonNull(MediaType.IMAGE_JPEG))
-                .body(foodItem.getImageData());
+        boolean versioned = version != null && version.length() >= 8 && hash.startsWith(version);
+        imageResponseWriter.write(imageVariantService.resolve(hash, imageSize), versioned, request, response);
     }
 
     @GetMapping
@@ -73,6 +100,24 @@ public class FoodItemController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Search food items and restaurants, typo tolerant, best matches first
+     * GET /api/food-items/search?q=paneer&stationId=2&veg=true&minPrice=50&maxPrice=300&limit=20
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<FoodSearchResponse>> search(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Long stationId,
+            @RequestParam(value = "veg", required = false) Boolean vegetarian,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Integer limit) {
+        if (query == null || query.trim().length() < 2) {
+            throw new RuntimeException("Search query must be at least 2 characters");
+        }
+        return ResponseEntity.ok(foodItemService.search(query, stationId, vegetarian, minPrice, maxPrice, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<FoodItemResponse> getFoodItem(@PathVariable Long id) {
         FoodItem foodItem = foodItemService.getFoodItemById(id);
@@ -0,0 +1,119 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ImageVariantService;
+import com.example.demo.service.Impl.ImageByteCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes blob-store images to the response: the content hash as a strong
+ * ETag with 304 handling, Cache-Control, and the body from the off-heap
+ * ImageByteCache, or through Tomcat sendfile for images too large to cache.
+ */
+@Component
+public class ImageResponseWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private ImageByteCache imageByteCache;
+
+    private final Counter bytesServedCounter;
+    private final Counter bytesSavedCounter;
+
+    public ImageResponseWriter(MeterRegistry meterRegistry) {
+        this.bytesServedCounter = meterRegistry.counter("image.bytes.served");
+        this.bytesSavedCounter = meterRegistry.counter("image.variant.bytes.saved");
+    }
+
+    /**
+     * immutable: the URL pins this exact content (a hash or version in it),
+     * so it may be cached for a year. Stand-in images never are.
+     */
+    public void write(ImageVariantService.Image image, boolean immutable, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (image == null || image.path() == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        CacheControl cacheControl = immutable && image.exact()
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache().cachePublic();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(image.hash())) {
+            return; // 304, ETag already set
+        }
+
+        long size = image.bytes();
+        response.setContentType(image.contentType());
+        response.setContentLengthLong(size);
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        bytesServedCounter.increment(size);
+        bytesSavedCounter.increment(image.sourceBytes() - size);
+
+        ImageByteCache.Handle cached = imageByteCache.get(image.hash());
+        if (cached == null && imageByteCache.admits(size)) {
+            cached = imageByteCache.load(image.hash(), image.path());
+        }
+        if (cached != null) {
+            try (ImageByteCache.Handle handle = cached) {
+                writeCached(handle, response);
+            }
+            return;
+        }
+
+        // Too large to cache: let Tomcat send the file itself
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file with sendfile once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, image.path().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(image.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    /**
+     * Writes the pages through the response's own output stream, so wrapping
+     * filters still see the body. The channel copies each direct page through
+     * a small heap chunk on its way out; the cached bytes themselves stay
+     * off-heap.
+     */
+    private static void writeCached(ImageByteCache.Handle handle, HttpServletResponse response) throws IOException {
+        WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+        for (int i = 0; i < handle.pageCount(); i++) {
+            ByteBuffer page = handle.page(i);
+            while (page.hasRemaining()) {
+                channel.write(page);
+            }
+        }
+    }
+}
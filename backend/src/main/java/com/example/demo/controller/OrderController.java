@@ -1,14 +1,19 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.OrderPageResponse;
 import com.example.demo.dto.OrderRequest;
 import com.example.demo.dto.OrderResponse;
+import com.example.demo.dto.VendorOrderStatsResponse;
 import com.example.demo.entity.Order;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.OrderStreamService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,21 +22,53 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class OrderController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private OrderService orderService;
 
     @Autowired
     private com.example.demo.repository.UserRepository userRepository;
 
+    @Autowired
+    private OrderStreamService orderStreamService;
+
     @GetMapping("/vendor/my-orders")
     @PreAuthorize("hasAuthority('ROLE_VENDOR')")
-    public ResponseEntity<List<OrderResponse>> getVendorOrders() {
+    public ResponseEntity<List<OrderResponse>> getVendorOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        String username = org.springframework.security.core.context.SecurityContextHolder.getContext()
+                .getAuthentication().getName();
+        com.example.demo.entity.User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return page(orderService.getOrdersByOwnerId(user.getId(), cursor, limit));
+    }
+
+    // Dashboard totals over all of the vendor's orders, however many pages they span
+    @GetMapping("/vendor/stats")
+    @PreAuthorize("hasAuthority('ROLE_VENDOR')")
+    public ResponseEntity<VendorOrderStatsResponse> getVendorStats() {
         String username = org.springframework.security.core.context.SecurityContextHolder.getContext()
                 .getAuthentication().getName();
         com.example.demo.entity.User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return ResponseEntity.ok(orderService.getOrdersByOwnerId(user.getId()));
+        return ResponseEntity.ok(orderService.getVendorStats(user.getId()));
+    }
+
+    // Live order-created and order-status events; reconnects send Last-Event-ID to resume
+    @GetMapping(value = "/vendor/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('ROLE_VENDOR')")
+    public SseEmitter streamVendorOrders(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String username = org.springframework.security.core.context.SecurityContextHolder.getContext()
+                .getAuthentication().getName();
+        com.example.demo.entity.User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return orderStreamService.subscribe(user.getId(), lastEventId);
     }
 
     @PostMapping
@@ -45,14 +82,19 @@ public class OrderController {
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderResponse>> getUserOrders(@PathVariable Long userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    public ResponseEntity<List<OrderResponse>> getUserOrders(@PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return page(orderService.getOrdersByUserId(userId, cursor, limit));
     }
 
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_VENDOR')")
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        return ResponseEntity.ok(orderService.getAllOrders());
+    public ResponseEntity<List<OrderResponse>> getAllOrders(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return page(orderService.getAllOrders(status, cursor, limit));
     }
 
     @PutMapping("/{id}/status")
@@ -68,4 +110,13 @@ public class OrderController {
         return ResponseEntity.ok(orderService.updateOrderStatus(id, status));
     }
 
+    // The body stays a plain array; the cursor for the next page goes in a header
+    private ResponseEntity<List<OrderResponse>> page(OrderPageResponse page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getOrders());
+    }
+
 }
\ No newline at end of file
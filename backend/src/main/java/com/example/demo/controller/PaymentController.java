@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.*;
 import com.example.demo.service.PaymentService;
+import com.example.demo.service.PaymentWebhookService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -9,7 +10,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payments")
@@ -19,6 +19,9 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+
     /**
      * Create Razorpay payment order
      * Authenticated users only
@@ -76,20 +79,23 @@ public class PaymentController {
 
     /**
      * Razorpay webhook endpoint
-     * Public endpoint - signature verification done internally
+     * Public endpoint - signature verified here, the event itself is applied
+     * asynchronously from the webhook inbox
      */
     @PostMapping("/webhook")
     public ResponseEntity<String> handleWebhook(
-            @RequestBody Map<String, Object> payload,
-            @RequestHeader("X-Razorpay-Signature") String signature) {
+            @RequestBody String rawBody,
+            @RequestHeader("X-Razorpay-Signature") String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
         try {
-            paymentService.handleWebhook(payload, signature);
-            return ResponseEntity.ok("Webhook processed successfully");
+            boolean accepted = paymentWebhookService.enqueue(rawBody, signature, eventId);
+            return ResponseEntity.ok(accepted ? "Webhook accepted" : "Duplicate webhook ignored");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Webhook processing failed: " + e.getMessage());
         }
     }
 
+
     /**
      * Update payment details from Razorpay
      * Admin only
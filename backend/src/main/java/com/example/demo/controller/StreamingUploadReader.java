@@ -0,0 +1,141 @@
+package com.example.demo.controller;
+
+import com.example.demo.exception.UploadRejectedException;
+import com.example.demo.service.BlobStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.FileSizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeLimitExceededException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads the "file" part of a multipart upload straight into the blob
+ * store. The body is parsed as a stream, so no part is buffered on the
+ * heap or in a container temp file: the bytes are hashed and written to
+ * their final location in one pass. Oversize requests are refused from
+ * Content-Length before the body is read, and the part's magic bytes are
+ * checked before anything is written.
+ */
+@Component
+public class StreamingUploadReader {
+
+    private static final String FILE_FIELD = "file";
+    private static final int SNIFF_BYTES = 12;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Value("${upload.max-file-bytes:10485760}")
+    private long maxFileBytes;
+
+    @Value("${upload.allowed-types:image/jpeg,image/png,image/gif,image/webp}")
+    private Set<String> allowedTypes;
+
+    private final Semaphore permits;
+    private final Counter rejectedCounter;
+    private final Counter busyCounter;
+
+    public StreamingUploadReader(@Value("${upload.max-concurrent:4}") int maxConcurrent,
+            MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.rejectedCounter = meterRegistry.counter("upload.rejected");
+        this.busyCounter = meterRegistry.counter("upload.busy");
+        meterRegistry.gauge("upload.in_progress", permits, p -> maxConcurrent - p.availablePermits());
+    }
+
+    public BlobStore.Blob receive(HttpServletRequest request) throws IOException {
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith(FileUpload.MULTIPART_FORM_DATA)) {
+            throw new RuntimeException("Expected a multipart/form-data upload with a 'file' part");
+        }
+        // Part headers and boundaries add a little on top of the file itself
+        long maxRequestBytes = maxFileBytes + 64 * 1024;
+        if (request.getContentLengthLong() > maxRequestBytes) {
+            rejectedCounter.increment();
+            throw tooLarge();
+        }
+        if (!permits.tryAcquire()) {
+            busyCounter.increment();
+            throw new UploadRejectedException(HttpStatus.TOO_MANY_REQUESTS,
+                    "Too many uploads in progress, please retry shortly");
+        }
+
+        try {
+            FileUpload upload = new FileUpload();
+            upload.setSizeMax(maxRequestBytes); // Chunked bodies without a Content-Length
+            FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (!item.isFormField() && FILE_FIELD.equals(item.getFieldName())) {
+                    try (InputStream in = item.openStream()) {
+                        return store(in);
+                    }
+                }
+            }
+        } catch (FileUploadException e) {
+            throw rejected(e);
+        } catch (IOException e) {
+            // The request size limit trips inside the part stream
+            if (e.getCause() instanceof FileUploadException cause) {
+                throw rejected(cause);
+            }
+            throw e;
+        } finally {
+            permits.release();
+        }
+        throw new RuntimeException("File is empty");
+    }
+
+    private BlobStore.Blob store(InputStream in) throws IOException {
+        byte[] header = in.readNBytes(SNIFF_BYTES);
+        if (header.length == 0) {
+            throw new RuntimeException("File is empty");
+        }
+        String contentType = BlobStore.sniffContentType(header, header.length);
+        if (!allowedTypes.contains(contentType)) {
+            rejectedCounter.increment();
+            throw new UploadRejectedException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Unsupported file type, allowed: " + String.join(", ", allowedTypes));
+        }
+
+        InputStream rest = new SequenceInputStream(new ByteArrayInputStream(header), in);
+        try {
+            return blobStore.store(Channels.newChannel(rest), maxFileBytes);
+        } catch (BlobStore.TooLargeException e) {
+            rejectedCounter.increment();
+            throw tooLarge();
+        }
+    }
+
+    // Only the size limits make an upload too large, anything else is a malformed request
+    private UploadRejectedException rejected(FileUploadException e) {
+        rejectedCounter.increment();
+        if (e instanceof SizeLimitExceededException || e instanceof FileSizeLimitExceededException) {
+            return tooLarge();
+        }
+        return new UploadRejectedException(HttpStatus.BAD_REQUEST, "Malformed multipart upload: " + e.getMessage());
+    }
+
+    private UploadRejectedException tooLarge() {
+        return new UploadRejectedException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "File is larger than the " + (maxFileBytes / (1024 * 1024)) + " MB limit");
+    }
+}
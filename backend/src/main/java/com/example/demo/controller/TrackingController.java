@@ -2,9 +2,12 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.*;
 import com.example.demo.service.TrackingService;
+import com.example.demo.service.TrackingStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/tracking")
@@ -14,6 +17,9 @@ public class TrackingController {
     @Autowired
     private TrackingService trackingService;
 
+    @Autowired
+    private TrackingStreamService trackingStreamService;
+
     /**
      * Get complete order tracking information
      * Customer facing API
@@ -32,6 +38,16 @@ public class TrackingController {
         return ResponseEntity.ok(trackingService.getOrderTrainStatus(orderId));
     }
 
+    /**
+     * Live delivery status and train position for an order (Server-Sent Events)
+     * Customer facing API, replaces polling the two endpoints above
+     */
+    @GetMapping(value = "/order/{orderId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderTracking(@PathVariable Long orderId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return trackingStreamService.subscribe(orderId, lastEventId);
+    }
+
     /**
      * Get destination station details
      * Customer facing API
@@ -6,23 +6,18 @@ import com.example.demo.dto.TrainRouteResponse;
 import com.example.demo.dto.TrainSearchResponse;
 import com.example.demo.entity.Pnr;
 import com.example.demo.entity.Train;
-import com.example.demo.entity.TrainRoute;
 import com.example.demo.repository.PnrRepository;
-import com.example.demo.repository.TrainRepository;
-import com.example.demo.repository.TrainRouteRepository;
+import com.example.demo.service.Impl.TrainRouteCache;
 import com.example.demo.service.TrainService;
 import jakarta.validation.Valid;
-import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/trains")
@@ -36,10 +31,7 @@ public class TrainController {
     private PnrRepository pnrRepository;
 
     @Autowired
-    private TrainRepository trainRepository;
-
-    @Autowired
-    private TrainRouteRepository trainRouteRepository;
+    private TrainRouteCache trainRouteCache;
 
     @PostMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -63,59 +55,31 @@ public class TrainController {
     }
 
     /**
-     * Search trains by name (partial match)
-     * GET /api/trains/search/name?q=rajdhani
+     * Search trains by name (partial match), best matches first; all matches unless limit is set
+     * GET /api/trains/search/name?q=rajdhani&limit=10
      */
     @GetMapping("/search/name")
-    @Transactional(readOnly = true)
-    public ResponseEntity<List<TrainSearchResponse>> searchByName(@RequestParam("q") String query) {
+    public ResponseEntity<List<TrainSearchResponse>> searchByName(@RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         if (query == null || query.trim().length() < 2) {
             throw new RuntimeException("Search query must be at least 2 characters");
         }
 
-        List<Train> trains = trainRepository.findByTrainNameContainingIgnoreCaseAndActiveTrue(query.trim());
-        List<TrainSearchResponse> responses = trains.stream()
-                .map(this::mapToSearchResponse)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
+        return ResponseEntity.ok(trainService.searchByName(query, limit));
     }
 
     /**
-     * Search trains by number (partial match)
-     * GET /api/trains/search/number?q=12301
+     * Search trains by number (partial match), prefix matches first; all matches unless limit is set
+     * GET /api/trains/search/number?q=12301&limit=10
      */
     @GetMapping("/search/number")
-    @Transactional(readOnly = true)
-    public ResponseEntity<List<TrainSearchResponse>> searchByNumber(@RequestParam("q") String query) {
+    public ResponseEntity<List<TrainSearchResponse>> searchByNumber(@RequestParam("q") String query,
+            @RequestParam(value = "limit", required = false) Integer limit) {
         if (query == null || query.trim().isEmpty()) {
             throw new RuntimeException("Search query cannot be empty");
         }
 
-        List<Train> trains = trainRepository.findByTrainNumberContainingAndActiveTrue(query.trim());
-        List<TrainSearchResponse> responses = trains.stream()
-                .map(this::mapToSearchResponse)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(responses);
-    }
-
-    private TrainSearchResponse mapToSearchResponse(Train train) {
-        TrainSearchResponse response = new TrainSearchResponse();
-        response.setId(train.getId());
-        response.setTrainNumber(train.getTrainNumber());
-        response.setTrainName(train.getTrainName());
-        response.setSource(train.getSource());
-        response.setDestination(train.getDestination());
-
-        // Get route stations
-        List<TrainRoute> routes = trainRouteRepository.findByTrainIdOrderByStopNumberAsc(train.getId());
-        List<String> stationNames = routes.stream()
-                .map(r -> r.getStation().getStationName())
-                .collect(Collectors.toList());
-        response.setStations(stationNames);
-
-        return response;
+        return ResponseEntity.ok(trainService.searchByNumber(query, limit));
     }
 
     /**
@@ -133,7 +97,7 @@ public class TrainController {
             throw new RuntimeException("Invalid PNR format. PNR must be a 10-digit number.");
         }
 
-        Train train;
+        TrainRouteCache.TrainInfo train;
         String coachNumber = "B4";
         String seatNumber = "24";
         String passengerName = "Passenger";
@@ -145,61 +109,26 @@ public class TrainController {
         if (pnrOptional.isPresent()) {
             // Use PNR from database
             Pnr pnr = pnrOptional.get();
-            train = pnr.getTrain();
+            train = new TrainRouteCache.TrainInfo(pnr.getTrain().getId(), pnr.getTrain().getTrainNumber(),
+                    pnr.getTrain().getTrainName(), pnr.getTrain().getSource(), pnr.getTrain().getDestination());
             coachNumber = pnr.getCoachNumber();
             seatNumber = pnr.getSeatNumber();
             passengerName = pnr.getPassengerName();
             journeyDate = pnr.getJourneyDate();
         } else {
             // Fallback: Use deterministic mapping based on PNR
-            // This ensures different PNRs map to different trains
-            List<Train> allTrains = trainRepository.findByActiveTrue();
-
-            if (allTrains.isEmpty()) {
-                throw new RuntimeException("No trains available in the system.");
-            }
-
-            // Filter to only include trains that have routes WITH VALID STATIONS
-            List<Train> trainsWithValidRoutes = new java.util.ArrayList<>();
-            for (Train t : allTrains) {
-                try {
-                    List<TrainRoute> routes = trainRouteRepository.findByTrainIdOrderByStopNumberAsc(t.getId());
-                    if (!routes.isEmpty()) {
-                        // Verify all stations in routes exist by accessing them
-                        boolean allStationsValid = true;
-                        for (TrainRoute route : routes) {
-                            try {
-                                // Force initialize the station to catch any EntityNotFoundException
-                                Hibernate.initialize(route.getStation());
-                                if (route.getStation() == null || route.getStation().getStationCode() == null) {
-                                    allStationsValid = false;
-                                    break;
-                                }
-                            } catch (Exception stationEx) {
-                                allStationsValid = false;
-                                break;
-                            }
-                        }
-                        if (allStationsValid) {
-                            trainsWithValidRoutes.add(t);
-                        }
-                    }
-                } catch (Exception e) {
-                    // Skip trains with invalid route data
-                    System.out.println(
-                            "Skipping train " + t.getTrainNumber() + " due to invalid route data: " + e.getMessage());
-                }
-            }
-
-            if (trainsWithValidRoutes.isEmpty()) {
-                throw new RuntimeException("No trains with valid routes available. Please contact admin.");
-            }
+            // This ensures different PNRs map to different trains. Only active
+            // trains with routes WITH VALID STATIONS are candidates; the route
+            // cache keeps them as a prebuilt array, so this is one index lookup
 
             // Use last digit of PNR to select train (ensures different PNRs get different
             // trains)
             int lastDigit = Character.getNumericValue(pnrNumber.charAt(9));
-            int trainIndex = lastDigit % trainsWithValidRoutes.size();
-            train = trainsWithValidRoutes.get(trainIndex);
+            train = trainRouteCache.routableTrain(lastDigit);
+
+            if (train == null) {
+                throw new RuntimeException("No trains with valid routes available. Please contact admin.");
+            }
 
             // Generate mock seat details based on PNR
             int coach = (lastDigit % 4) + 1;
@@ -209,11 +138,7 @@ public class TrainController {
         }
 
         // Get route for this train
-        List<TrainRoute> routes = trainRouteRepository.findByTrainIdOrderByStopNumberAsc(train.getId());
-
-        List<TrainRouteResponse> routeResponses = routes.stream()
-                .map(this::mapToRouteResponse)
-                .collect(Collectors.toList());
+        List<TrainRouteResponse> routeResponses = trainRouteCache.getRouteResponses(train.id());
 
         PnrResponse response = new PnrResponse();
         response.setPnrNumber(pnrNumber);
@@ -221,11 +146,11 @@ public class TrainController {
         response.setSeatNumber(seatNumber);
         response.setPassengerName(passengerName);
         response.setJourneyDate(journeyDate);
-        response.setTrainId(train.getId());
-        response.setTrainNumber(train.getTrainNumber());
-        response.setTrainName(train.getTrainName());
-        response.setSource(train.getSource());
-        response.setDestination(train.getDestination());
+        response.setTrainId(train.id());
+        response.setTrainNumber(train.trainNumber());
+        response.setTrainName(train.trainName());
+        response.setSource(train.source());
+        response.setDestination(train.destination());
         response.setRoute(routeResponses);
 
         return ResponseEntity.ok(response);
@@ -238,35 +163,11 @@ public class TrainController {
     @GetMapping("/{id}/route")
     public ResponseEntity<List<TrainRouteResponse>> getTrainRoute(@PathVariable Long id) {
         // Verify train exists
-        trainService.getTrainById(id);
-
-        List<TrainRoute> routes = trainRouteRepository.findByTrainIdOrderByStopNumberAsc(id);
-
-        List<TrainRouteResponse> routeResponses = routes.stream()
-                .map(this::mapToRouteResponse)
-                .collect(Collectors.toList());
-
-        return ResponseEntity.ok(routeResponses);
-    }
-
-    private TrainRouteResponse mapToRouteResponse(TrainRoute route) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("HH:mm");
-
-        TrainRouteResponse response = new TrainRouteResponse();
-        response.setId(route.getId());
-        response.setStationId(route.getStation().getId());
-        response.setStationCode(route.getStation().getStationCode());
-        response.setStationName(route.getStation().getStationName());
-        response.setStopNumber(route.getStopNumber());
-        response.setScheduledArrival(
-                route.getScheduledArrival() != null ? route.getScheduledArrival().format(formatter) : null);
-        response.setScheduledDeparture(
-                route.getScheduledDeparture() != null ? route.getScheduledDeparture().format(formatter) : null);
-        response.setPlatformNumber(route.getPlatformNumber());
-        response.setDistanceFromSource(route.getDistanceFromSource());
-        response.setDayNumber(route.getDayNumber());
+        if (!trainRouteCache.hasTrain(id)) {
+            throw new RuntimeException("Train not found");
+        }
 
-        return response;
+        return ResponseEntity.ok(trainRouteCache.getRouteResponses(id));
     }
 
     @PutMapping("/{id}")
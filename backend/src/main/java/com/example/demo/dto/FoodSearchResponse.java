@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FoodSearchResponse {
+    private String type; // FOOD_ITEM or RESTAURANT
+    private Long id;
+    private String name;
+    private String description; // Food item description, restaurant cuisine
+    private String category;
+    private Double price;
+    private Boolean vegetarian;
+    private String imageUrl;
+    private Long restaurantId;
+    private String restaurantName;
+    private Long stationId;
+    private Double rating;
+    private Double score;
+}
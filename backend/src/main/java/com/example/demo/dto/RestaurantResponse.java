@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -27,6 +28,8 @@ public class RestaurantResponse {
     private Boolean active;
 
     private Double rating;
+    private Long ratingCount;
+    private List<Long> ratingDistribution; // Reviews with 1 to 5 stars
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -41,6 +44,9 @@ public class RestaurantResponse {
         response.setActive(restaurant.getActive());
 
         response.setRating(restaurant.getRating());
+        response.setRatingCount(restaurant.getRatingCount());
+        response.setRatingDistribution(List.of(restaurant.getRating1Count(), restaurant.getRating2Count(),
+                restaurant.getRating3Count(), restaurant.getRating4Count(), restaurant.getRating5Count()));
         response.setCreatedAt(restaurant.getCreatedAt());
         response.setUpdatedAt(restaurant.getUpdatedAt());
 
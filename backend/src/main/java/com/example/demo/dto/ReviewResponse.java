@@ -34,4 +34,10 @@ public class ReviewResponse {
         response.setCreatedAt(review.getCreatedAt());
         return response;
     }
+
+    // Row from ReviewRepository.findRowsByOrderIds
+    public static ReviewResponse fromRow(Object[] row) {
+        return new ReviewResponse((Long) row[0], (Long) row[1], (String) row[2], (Long) row[3], (String) row[4],
+                (Long) row[5], (Integer) row[6], (String) row[7], (LocalDateTime) row[8]);
+    }
 }
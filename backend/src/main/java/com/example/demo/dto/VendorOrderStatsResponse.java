@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorOrderStatsResponse {
+    private long totalOrders;
+    private long todayOrders;
+    private Map<String, Long> ordersByStatus; // Every status, zero when there are none
+    private double totalRevenue; // Delivered orders
+    private double todayRevenue; // Orders placed today, cancelled ones left out
+    private double monthRevenue; // Orders placed in the last 30 days, cancelled ones left out
+}
@@ -38,9 +38,12 @@ public class FoodItem {
     @JoinColumn(name = "restaurant_id", nullable = false)
     private Restaurant restaurant;
 
-    @Lob
-    @Column(name = "image_data", columnDefinition = "LONGBLOB")
-    private byte[] imageData;
+    // SHA-256 of the image in the blob store, the bytes never load with the entity
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    @Column(name = "image_content_type", length = 50)
+    private String imageContentType;
 
     @Column(nullable = false)
     private Boolean available = true;
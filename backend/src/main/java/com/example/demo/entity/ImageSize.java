@@ -0,0 +1,37 @@
+package com.example.demo.entity;
+
+import java.util.Locale;
+
+// Image sizes served to clients, variants are bounded by their longest edge in pixels
+public enum ImageSize {
+    THUMB(160),
+    CARD(480),
+    FULL(1280),
+    ORIGINAL(0); // The upload as stored
+
+    private final int maxEdge;
+
+    ImageSize(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    public boolean isVariant() {
+        return this != ORIGINAL;
+    }
+
+    // "thumb", "card", "full" or "original"; a missing value means FULL
+    public static ImageSize fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown image size: " + value);
+        }
+    }
+}
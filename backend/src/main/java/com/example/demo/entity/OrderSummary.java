@@ -0,0 +1,76 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized read model of an order as the order lists show it: user,
+ * train and restaurant names copied in, items as JSON and the review as
+ * plain columns, so a page is one indexed range scan with no joins.
+ * Written only by OrderSummaryService, in the transaction of the change.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_summary_owner_created", columnList = "ownerId, createdAt, orderId"),
+        @Index(name = "idx_summary_user_created", columnList = "userId, createdAt, orderId"),
+        @Index(name = "idx_summary_status_created", columnList = "status, createdAt, orderId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+
+    @Id
+    private Long orderId; // Same as orders.id
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long restaurantId;
+
+    private Long ownerId; // Restaurant owner, for vendor dashboards
+
+    private String username;
+    private String userFullName;
+    private String userPhoneNumber;
+    private String trainNumber;
+    private String trainName;
+    private String restaurantName;
+    private String pnrNumber;
+    private String seatNumber;
+    private String coachNumber;
+    private Double subtotal;
+    private Double taxAmount;
+    private Double totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Order.OrderStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String deliveryInstructions;
+
+    @Column(length = 6)
+    private String deliveryOtp;
+
+    @Column(columnDefinition = "TEXT")
+    private String itemsJson; // OrderResponse.OrderItemResponse list
+
+    private Long reviewId;
+    private Integer reviewRating;
+
+    @Column(columnDefinition = "TEXT")
+    private String reviewComment;
+
+    private LocalDateTime reviewCreatedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
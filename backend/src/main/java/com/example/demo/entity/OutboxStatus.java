@@ -0,0 +1,7 @@
+package com.example.demo.entity;
+
+public enum OutboxStatus {
+    PENDING, // Waiting to be dispatched (or retried)
+    PROCESSED, // Handled successfully
+    FAILED // Gave up after max attempts
+}
@@ -0,0 +1,59 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log of pantry stock reservations, used to rebuild the
+ * in-memory reservation state after a restart.
+ */
+@Entity
+@Table(name = "pantry_reservation_log", indexes = {
+        @Index(name = "idx_reservation_order", columnList = "orderId"),
+        @Index(name = "idx_reservation_type", columnList = "type")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PantryReservationLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationLogType type;
+
+    private Long orderId; // Null for FLUSH entries
+
+    @Column(nullable = false)
+    private Long pantryId;
+
+    @Column(nullable = false)
+    private Long foodItemId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    private LocalDateTime expiresAt; // HOLD entries only
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public PantryReservationLog(ReservationLogType type, Long orderId, Long pantryId, Long foodItemId,
+            Integer quantity, LocalDateTime expiresAt) {
+        this.type = type;
+        this.orderId = orderId;
+        this.pantryId = pantryId;
+        this.foodItemId = foodItemId;
+        this.quantity = quantity;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.entity;
+
+public enum ReservationLogType {
+    HOLD, // Stock held for an unpaid order
+    CONFIRM, // Hold turned into a deduction (order paid/confirmed)
+    RELEASE, // Hold given back (order cancelled)
+    EXPIRE, // Hold given back after its expiry
+    FLUSH // Confirmed deductions written to pantry_inventory
+}
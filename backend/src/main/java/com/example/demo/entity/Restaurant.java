@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -51,9 +52,40 @@ public class Restaurant {
     @Column(nullable = false)
     private Boolean active = true;
 
-    @Column(nullable = false)
+    // Rating aggregates are only written by ReviewService's atomic updates and
+    // reconciliation, never by saving the entity, so a stale copy can't undo a review
+    @Column(nullable = false, updatable = false)
     private Double rating = 0.0;
 
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long ratingSum = 0L;
+
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private Long ratingCount = 0L;
+
+    // Rating histogram: reviews with 1 to 5 stars
+    @ColumnDefault("0")
+    @Column(name = "rating_1_count", nullable = false, updatable = false)
+    private Long rating1Count = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_2_count", nullable = false, updatable = false)
+    private Long rating2Count = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_3_count", nullable = false, updatable = false)
+    private Long rating3Count = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_4_count", nullable = false, updatable = false)
+    private Long rating4Count = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "rating_5_count", nullable = false, updatable = false)
+    private Long rating5Count = 0L;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
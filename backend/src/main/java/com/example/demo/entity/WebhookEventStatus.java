@@ -0,0 +1,10 @@
+package com.example.demo.entity;
+
+public enum WebhookEventStatus {
+    RECEIVED, // Stored, waiting for a worker
+    PROCESSING, // Claimed by a worker
+    PROCESSED, // Applied to the payment
+    COALESCED, // Superseded by another event for the same Razorpay order
+    IGNORED, // Not about a payment (refund.*, order.paid, ...), nothing to apply
+    FAILED // Gave up after max attempts
+}
@@ -0,0 +1,9 @@
+package com.example.demo.exception;
+
+// A live stream refused because the server already holds as many as it allows
+public class StreamLimitException extends RuntimeException {
+
+    public StreamLimitException(String message) {
+        super(message);
+    }
+}
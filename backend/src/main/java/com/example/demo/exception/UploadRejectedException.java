@@ -0,0 +1,18 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpStatus;
+
+// An upload refused before or while it was read: too large, wrong type, or too many at once
+public class UploadRejectedException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public UploadRejectedException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
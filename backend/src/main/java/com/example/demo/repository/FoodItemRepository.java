@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.FoodItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +13,13 @@ public interface FoodItemRepository extends JpaRepository<FoodItem, Long> {
     List<FoodItem> findByRestaurantIdAndAvailableTrue(Long restaurantId);
     List<FoodItem> findByCategory(String category);
     List<FoodItem> findByVegetarian(Boolean vegetarian);
+
+    // Search index rows, without the image column
+    @Query("SELECT f.id, f.name, f.description, f.category, f.price, f.vegetarian, f.available, f.imageUrl, "
+            + "f.restaurant.id FROM FoodItem f")
+    List<Object[]> findAllForSearch();
+
+    // Blob hash and content type of the item's image, for the image endpoint
+    @Query("SELECT f.imageHash, f.imageContentType FROM FoodItem f WHERE f.id = :id")
+    List<Object[]> findImageRef(Long id);
 }
\ No newline at end of file
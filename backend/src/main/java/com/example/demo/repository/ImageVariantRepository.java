@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ImageSize;
+import com.example.demo.entity.ImageVariant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+    Optional<ImageVariant> findBySourceHashAndVariant(String sourceHash, ImageSize variant);
+
+    List<ImageVariant> findBySourceHash(String sourceHash);
+}
@@ -2,8 +2,17 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-}
\ No newline at end of file
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, OrderItemRepositoryCustom {
+
+    // orderId, id, food item name, quantity, price, subtotal for a page of orders
+    @Query("SELECT oi.order.id, oi.id, f.name, oi.quantity, oi.price, oi.subtotal "
+            + "FROM OrderItem oi JOIN oi.foodItem f WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<Object[]> findRowsByOrderIds(Collection<Long> orderIds);
+}
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OrderItem;
+
+import java.util.List;
+
+public interface OrderItemRepositoryCustom {
+
+    // Insert all items in one JDBC batch, assign the generated IDs back and attach them to the session
+    void batchInsert(List<OrderItem> orderItems);
+}
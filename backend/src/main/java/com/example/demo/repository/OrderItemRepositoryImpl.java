@@ -0,0 +1,69 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OrderItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * JDBC batch insert for order items.
+ * OrderItem uses IDENTITY ids, which makes Hibernate insert one row per round
+ * trip, so the order placement path writes its items here instead. The
+ * inserted items are then attached to the persistence context as if
+ * Hibernate had written them, so they can be added to the order's item
+ * collection without being inserted again at flush.
+ */
+public class OrderItemRepositoryImpl implements OrderItemRepositoryCustom {
+
+    private static final String INSERT_SQL = "INSERT INTO order_items (order_id, food_item_id, quantity, price, subtotal) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void batchInsert(List<OrderItem> orderItems) {
+        if (orderItems == null || orderItems.isEmpty())
+            return;
+
+        jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (OrderItem item : orderItems) {
+                    ps.setLong(1, item.getOrder().getId());
+                    ps.setLong(2, item.getFoodItem().getId());
+                    ps.setInt(3, item.getQuantity());
+                    ps.setDouble(4, item.getPrice());
+                    ps.setDouble(5, item.getSubtotal());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int index = 0;
+                    while (keys.next() && index < orderItems.size()) {
+                        orderItems.get(index++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+
+        // Reattach without SQL, the rows were just written with exactly these values
+        Session session = entityManager.unwrap(Session.class);
+        for (OrderItem item : orderItems) {
+            session.lock(item, LockMode.NONE);
+        }
+    }
+}
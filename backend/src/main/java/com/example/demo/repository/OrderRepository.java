@@ -1,10 +1,13 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -17,4 +20,27 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByPnrNumber(String pnrNumber);
 
     List<Order> findByRestaurantOwnerIdOrderByCreatedAtDesc(Long ownerId);
+
+    // User, train and restaurant of a new order in one round trip, no row when any of them is missing
+    @Query("SELECT u, t, r FROM User u LEFT JOIN FETCH u.roles, Train t, Restaurant r "
+            + "WHERE u.id = :userId AND t.id = :trainId AND r.id = :restaurantId")
+    List<Object[]> findOrderParties(Long userId, Long trainId, Long restaurantId);
+
+    @Query("SELECT t.trainNumber FROM Order o JOIN o.train t WHERE o.id = :orderId")
+    Optional<String> findTrainNumber(Long orderId);
+
+    // Columns of an order summary, read by OrderSummaryServiceImpl. No Order entities are loaded,
+    // so the eager review side of Order is never touched
+    String SUMMARY_ROW = "SELECT o.id, u.id, u.username, u.fullName, u.phoneNumber, t.trainNumber, t.trainName, "
+            + "r.id, r.name, ow.id, o.pnrNumber, o.seatNumber, o.coachNumber, o.subtotal, o.taxAmount, "
+            + "o.totalAmount, o.status, o.deliveryInstructions, o.deliveryOtp, o.createdAt, o.updatedAt "
+            + "FROM Order o JOIN o.user u LEFT JOIN o.train t JOIN o.restaurant r LEFT JOIN r.owner ow ";
+
+    @Query(SUMMARY_ROW + "WHERE o.id = :orderId")
+    List<Object[]> findSummaryRow(Long orderId);
+
+    // Orders without a summary yet, in id order from afterId
+    @Query(SUMMARY_ROW + "WHERE o.id > :afterId "
+            + "AND NOT EXISTS (SELECT 1 FROM OrderSummary s WHERE s.orderId = o.id) ORDER BY o.id")
+    List<Object[]> findSummaryRowsMissingAfter(Long afterId, Pageable pageable);
 }
\ No newline at end of file
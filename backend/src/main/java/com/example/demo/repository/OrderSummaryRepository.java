@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    // Newest first, strictly after the (createdAt, orderId) cursor
+    String AFTER_CURSOR = "(s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.orderId < :orderId)) "
+            + "ORDER BY s.createdAt DESC, s.orderId DESC";
+
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId AND " + AFTER_CURSOR)
+    List<OrderSummary> findPageByUserId(Long userId, LocalDateTime createdAt, Long orderId, Pageable pageable);
+
+    @Query("SELECT s FROM OrderSummary s WHERE s.ownerId = :ownerId AND " + AFTER_CURSOR)
+    List<OrderSummary> findPageByOwnerId(Long ownerId, LocalDateTime createdAt, Long orderId, Pageable pageable);
+
+    @Query("SELECT s FROM OrderSummary s WHERE s.status = :status AND " + AFTER_CURSOR)
+    List<OrderSummary> findPageByStatus(Order.OrderStatus status, LocalDateTime createdAt, Long orderId,
+            Pageable pageable);
+
+    @Query("SELECT s FROM OrderSummary s WHERE " + AFTER_CURSOR)
+    List<OrderSummary> findPage(LocalDateTime createdAt, Long orderId, Pageable pageable);
+
+    // {status, count, total amount} per status of an owner's orders placed since the given time
+    @Query("SELECT s.status, COUNT(s), SUM(s.totalAmount) FROM OrderSummary s WHERE s.ownerId = :ownerId "
+            + "AND s.createdAt >= :since GROUP BY s.status")
+    List<Object[]> sumByStatusForOwner(Long ownerId, LocalDateTime since);
+
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status, s.deliveryOtp = :deliveryOtp, s.updatedAt = :updatedAt "
+            + "WHERE s.orderId = :orderId")
+    int updateStatus(Long orderId, Order.OrderStatus status, String deliveryOtp, LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.reviewId = :reviewId, s.reviewRating = :rating, s.reviewComment = :comment, "
+            + "s.reviewCreatedAt = :createdAt WHERE s.orderId = :orderId")
+    int updateReview(Long orderId, Long reviewId, Integer rating, String comment, LocalDateTime createdAt);
+}
@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.availableAt <= :now ORDER BY e.id")
+    List<Long> findDueEventIds(LocalDateTime now, Pageable pageable);
+
+    long countByStatus(OutboxStatus status);
+}
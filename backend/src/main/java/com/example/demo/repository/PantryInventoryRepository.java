@@ -1,10 +1,14 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.PantryInventoryResponse;
 import com.example.demo.entity.PantryInventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +27,49 @@ public interface PantryInventoryRepository extends JpaRepository<PantryInventory
 
     @Query("SELECT pi FROM PantryInventory pi WHERE pi.pantry.id = :pantryId AND pi.foodItem.id = :foodItemId")
     Optional<PantryInventory> findInventoryItem(Long pantryId, Long foodItemId);
+
+    // Conditional decrement: only succeeds (returns 1) if enough stock is left,
+    // so concurrent orders cannot both pass a read-then-write check and oversell
+    @Modifying
+    @Query("UPDATE PantryInventory pi SET pi.currentStock = pi.currentStock - :quantity, pi.lastUpdated = :now "
+            + "WHERE pi.pantry.id = :pantryId AND pi.foodItem.id = :foodItemId AND pi.currentStock >= :quantity")
+    int decrementStock(Long pantryId, Long foodItemId, Integer quantity, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PantryInventory pi SET pi.currentStock = pi.currentStock - :quantity, pi.lastUpdated = :now "
+            + "WHERE pi.id = :inventoryId AND pi.currentStock >= :quantity")
+    int decrementStockById(Long inventoryId, Integer quantity, LocalDateTime now);
+
+    // Flush of deductions already reserved in memory, so no stock condition
+    @Modifying
+    @Query("UPDATE PantryInventory pi SET pi.currentStock = pi.currentStock - :quantity, pi.lastUpdated = :now "
+            + "WHERE pi.pantry.id = :pantryId AND pi.foodItem.id = :foodItemId")
+    int applyDeduction(Long pantryId, Long foodItemId, Integer quantity, LocalDateTime now);
+
+    @Query("SELECT pi.currentStock FROM PantryInventory pi WHERE pi.pantry.id = :pantryId AND pi.foodItem.id = :foodItemId")
+    Optional<Integer> findCurrentStock(Long pantryId, Long foodItemId);
+
+    List<PantryInventory> findByPantryIdInAndFoodItemIdIn(Collection<Long> pantryIds, Collection<Long> foodItemIds);
+
+    // Menu rows of all active pantries, read straight into DTOs in one query
+    // (no entity loading, so the food item image blob is never read)
+    @Query("SELECT new com.example.demo.dto.PantryInventoryResponse(pi.id, p.id, f.id, f.name, f.category, f.price, "
+            + "f.imageUrl, pi.currentStock, pi.minStockLevel, pi.maxStockLevel, "
+            + "CASE WHEN pi.currentStock <= pi.minStockLevel THEN true ELSE false END, pi.lastUpdated) "
+            + "FROM PantryInventory pi JOIN pi.pantry p JOIN pi.foodItem f "
+            + "WHERE p.active = true ORDER BY p.id, pi.id")
+    List<PantryInventoryResponse> findActiveMenu();
+
+    @Query("SELECT new com.example.demo.dto.PantryInventoryResponse(pi.id, p.id, f.id, f.name, f.category, f.price, "
+            + "f.imageUrl, pi.currentStock, pi.minStockLevel, pi.maxStockLevel, "
+            + "CASE WHEN pi.currentStock <= pi.minStockLevel THEN true ELSE false END, pi.lastUpdated) "
+            + "FROM PantryInventory pi JOIN pi.pantry p JOIN pi.foodItem f "
+            + "WHERE p.active = true AND p.train.id = :trainId ORDER BY p.id, pi.id")
+    List<PantryInventoryResponse> findActiveMenuByTrainId(Long trainId);
+
+    // Stock columns only, laid over the cached menus: {id, pantryId, currentStock, minStockLevel,
+    // maxStockLevel, lastUpdated}
+    @Query("SELECT pi.id, pi.pantry.id, pi.currentStock, pi.minStockLevel, pi.maxStockLevel, pi.lastUpdated "
+            + "FROM PantryInventory pi WHERE pi.pantry.id IN :pantryIds")
+    List<Object[]> findStockByPantryIds(Collection<Long> pantryIds);
 }
@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.Pantry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +22,7 @@ public interface PantryRepository extends JpaRepository<Pantry, Long> {
     Optional<Pantry> findByTrainIdAndCoachNumber(Long trainId, String coachNumber);
 
     Boolean existsByPantryCode(String pantryCode);
+
+    @Query("SELECT p.train.id FROM Pantry p WHERE p.id = :pantryId")
+    Optional<Long> findTrainIdById(Long pantryId);
 }
@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PantryReservationLog;
+import com.example.demo.entity.ReservationLogType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PantryReservationLogRepository extends JpaRepository<PantryReservationLog, Long> {
+
+    // Confirmed deductions not yet flushed, per (pantryId, foodItemId)
+    @Query("SELECT l.pantryId, l.foodItemId, SUM(CASE WHEN l.type = 'CONFIRM' THEN l.quantity ELSE -l.quantity END) "
+            + "FROM PantryReservationLog l WHERE l.type IN ('CONFIRM', 'FLUSH') "
+            + "GROUP BY l.pantryId, l.foodItemId")
+    List<Object[]> sumUnflushedDeductions();
+
+    // Holds whose order has not been confirmed, released or expired yet
+    @Query("SELECT h FROM PantryReservationLog h WHERE h.type = 'HOLD' AND NOT EXISTS ("
+            + "SELECT t FROM PantryReservationLog t WHERE t.orderId = h.orderId AND t.type IN ('CONFIRM', 'RELEASE', 'EXPIRE')) "
+            + "ORDER BY h.id")
+    List<PantryReservationLog> findOpenHolds();
+
+    List<PantryReservationLog> findByOrderIdAndType(Long orderId, ReservationLogType type);
+
+    boolean existsByOrderIdAndType(Long orderId, ReservationLogType type);
+}
@@ -3,6 +3,8 @@ package com.example.demo.repository;
 import com.example.demo.entity.Payment;
 import com.example.demo.entity.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -31,4 +33,17 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     boolean existsByOrderIdAndStatus(Long orderId, PaymentStatus status);
 
     List<Payment> findByUserIdAndStatus(Long userId, PaymentStatus status);
+
+    // Conditional increment: only succeeds (returns 1) while the refund still fits in what was paid,
+    // so two concurrent refunds cannot both pass the check and together refund too much. Clears the
+    // persistence context so a Payment loaded earlier in the request is read again, not saved stale
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.refundedAmount = p.refundedAmount + :amount "
+            + "WHERE p.id = :paymentId AND p.status = 'SUCCESS' AND p.refundedAmount + :amount <= p.amount")
+    int reserveRefund(Long paymentId, Double amount);
+
+    // Gives back a reservation whose gateway refund failed
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.refundedAmount = p.refundedAmount - :amount WHERE p.id = :paymentId")
+    int releaseRefund(Long paymentId, Double amount);
 }
@@ -0,0 +1,30 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.PaymentWebhookEvent;
+import com.example.demo.entity.WebhookEventStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+
+    boolean existsByEventId(String eventId);
+
+    List<PaymentWebhookEvent> findByStatusOrderByIdAsc(WebhookEventStatus status, Pageable pageable);
+
+    long countByStatus(WebhookEventStatus status);
+
+    @Query("SELECT MIN(e.receivedAt) FROM PaymentWebhookEvent e WHERE e.status = 'RECEIVED'")
+    LocalDateTime findOldestReceivedAt();
+
+    // Release events left claimed by a worker that died mid-batch
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent e SET e.status = 'RECEIVED' WHERE e.status = 'PROCESSING' AND e.claimedAt < :before")
+    int releaseStaleClaims(LocalDateTime before);
+}
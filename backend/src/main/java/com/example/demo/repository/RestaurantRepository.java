@@ -1,10 +1,15 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Restaurant;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
@@ -18,4 +23,45 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
 
     List<Restaurant> findByOwnerId(Long ownerId);
 
+    // Search index rows
+    @Query("SELECT r.id, r.name, r.cuisine, r.station.id, r.rating, r.active FROM Restaurant r")
+    List<Object[]> findAllForSearch();
+
+    // Add one review to the aggregates in place, so concurrent reviews never lose an update
+    @Modifying
+    @Query("UPDATE Restaurant r SET r.ratingSum = r.ratingSum + :rating, r.ratingCount = r.ratingCount + 1, "
+            + "r.rating1Count = r.rating1Count + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, "
+            + "r.rating2Count = r.rating2Count + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, "
+            + "r.rating3Count = r.rating3Count + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, "
+            + "r.rating4Count = r.rating4Count + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, "
+            + "r.rating5Count = r.rating5Count + CASE WHEN :rating = 5 THEN 1 ELSE 0 END "
+            + "WHERE r.id = :restaurantId")
+    int addRating(Long restaurantId, Integer rating);
+
+    // Separate statement so the average reads the sums after addRating on every database;
+    // 0 once the restaurant has no reviews left
+    @Modifying
+    @Query("UPDATE Restaurant r SET r.rating = CASE WHEN r.ratingCount > 0 "
+            + "THEN CAST(r.ratingSum AS double) / r.ratingCount ELSE 0.0 END WHERE r.id = :restaurantId")
+    int refreshAverageRating(Long restaurantId);
+
+    @Query("SELECT r.rating FROM Restaurant r WHERE r.id = :restaurantId")
+    Double findRating(Long restaurantId);
+
+    // id, ratingSum, ratingCount and the 1 to 5 star counts of every restaurant
+    @Query("SELECT r.id, r.ratingSum, r.ratingCount, r.rating1Count, r.rating2Count, r.rating3Count, "
+            + "r.rating4Count, r.rating5Count FROM Restaurant r")
+    List<Object[]> findAllRatingAggregates();
+
+    // Holds new reviews of the restaurant back while its aggregates are rewritten
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Restaurant r WHERE r.id = :restaurantId")
+    Optional<Restaurant> findByIdWithLock(Long restaurantId);
+
+    @Modifying
+    @Query("UPDATE Restaurant r SET r.ratingSum = :sum, r.ratingCount = :count, r.rating1Count = :ones, "
+            + "r.rating2Count = :twos, r.rating3Count = :threes, r.rating4Count = :fours, r.rating5Count = :fives "
+            + "WHERE r.id = :restaurantId")
+    int setRatingAggregates(Long restaurantId, Long sum, Long count, Long ones, Long twos, Long threes, Long fours,
+            Long fives);
 }
\ No newline at end of file
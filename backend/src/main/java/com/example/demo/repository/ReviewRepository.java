@@ -2,8 +2,10 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +18,24 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     Optional<Review> findByOrderId(Long orderId);
 
     List<Review> findByRestaurantOwnerIdOrderByCreatedAtDesc(Long ownerId);
+
+    // Column order is read by ReviewResponse.fromRow
+    @Query("SELECT rv.id, u.id, u.username, r.id, r.name, rv.order.id, rv.rating, rv.comment, rv.createdAt "
+            + "FROM Review rv JOIN rv.user u JOIN rv.restaurant r WHERE rv.order.id IN :orderIds")
+    List<Object[]> findRowsByOrderIds(Collection<Long> orderIds);
+
+    // restaurantId, sum, count and the 1 to 5 star counts, in one pass over reviews
+    @Query("SELECT rv.restaurant.id, SUM(rv.rating), COUNT(rv), "
+            + "SUM(CASE WHEN rv.rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN rv.rating = 2 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN rv.rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN rv.rating = 4 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN rv.rating = 5 THEN 1 ELSE 0 END) FROM Review rv GROUP BY rv.restaurant.id")
+    List<Object[]> aggregateRatingsByRestaurant();
+
+    // Same aggregates for one restaurant, empty when it has no reviews
+    @Query("SELECT rv.restaurant.id, SUM(rv.rating), COUNT(rv), "
+            + "SUM(CASE WHEN rv.rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN rv.rating = 2 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN rv.rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN rv.rating = 4 THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN rv.rating = 5 THEN 1 ELSE 0 END) FROM Review rv "
+            + "WHERE rv.restaurant.id = :restaurantId GROUP BY rv.restaurant.id")
+    List<Object[]> aggregateRatings(Long restaurantId);
 }
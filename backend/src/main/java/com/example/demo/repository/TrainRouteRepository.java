@@ -14,6 +14,21 @@ public interface TrainRouteRepository extends JpaRepository<TrainRoute, Long> {
 
     List<TrainRoute> findByStationId(Long stationId);
 
+    // Every stop of every train with its station in one pass, stops whose
+    // station row is missing come back with null station columns
+    @Query("SELECT tr.train.id, tr.id, s.id, s.stationCode, s.stationName, s.latitude, s.longitude, "
+            + "tr.stopNumber, tr.scheduledArrival, tr.scheduledDeparture, tr.platformNumber, "
+            + "tr.distanceFromSource, tr.dayNumber "
+            + "FROM TrainRoute tr LEFT JOIN tr.station s ORDER BY tr.train.id, tr.stopNumber")
+    List<Object[]> findAllRouteStops();
+
+    // Same columns as findAllRouteStops, for one train
+    @Query("SELECT tr.train.id, tr.id, s.id, s.stationCode, s.stationName, s.latitude, s.longitude, "
+            + "tr.stopNumber, tr.scheduledArrival, tr.scheduledDeparture, tr.platformNumber, "
+            + "tr.distanceFromSource, tr.dayNumber "
+            + "FROM TrainRoute tr LEFT JOIN tr.station s WHERE tr.train.id = :trainId ORDER BY tr.stopNumber")
+    List<Object[]> findRouteStopsByTrainId(Long trainId);
+
     @Query("SELECT tr FROM TrainRoute tr WHERE tr.train.id = :trainId AND tr.station.id = :stationId")
     TrainRoute findByTrainIdAndStationId(Long trainId, Long stationId);
 }
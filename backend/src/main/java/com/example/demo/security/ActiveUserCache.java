@@ -0,0 +1,85 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a verified JWT may still be used, in place of loading the
+ * user on every request.
+ *
+ * The active flag of recently seen users is cached (bounded, LRU, short TTL),
+ * so a deactivated account is locked out within one TTL. Revocations reject
+ * every token of a user issued before the second of the revocation (iat has
+ * no finer resolution); they are kept until those tokens would have expired
+ * anyway, and live in memory only.
+ */
+@Component
+public class ActiveUserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${jwt.user-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    private final Map<Long, CachedStatus> activeUsers;
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>(); // Epoch second of the revocation
+
+    public ActiveUserCache(@Value("${jwt.user-cache.max-size:10000}") int maxSize) {
+        this.activeUsers = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedStatus> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean isTokenAllowed(Long userId, Date issuedAt) {
+        Long revokedAt = revokedBefore.get(userId);
+        // iat only has whole seconds, so a token issued later in the revocation second
+        // (logging in right after logging out) must not look older than the revocation
+        if (revokedAt != null && (issuedAt == null || issuedAt.getTime() / 1000 < revokedAt)) {
+            return false;
+        }
+        return isActive(userId);
+    }
+
+    // Reject all tokens issued to this user so far (logout everywhere)
+    public void revokeTokens(Long userId) {
+        long now = System.currentTimeMillis() / 1000;
+        revokedBefore.put(userId, now);
+        // Tokens older than one lifetime are expired anyway
+        revokedBefore.values().removeIf(revokedAt -> revokedAt < now - tokenLifetimeMs / 1000);
+    }
+
+    private boolean isActive(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedStatus cached;
+        synchronized (activeUsers) {
+            cached = activeUsers.get(userId);
+        }
+        if (cached != null && now - cached.loadedAt < ttlSeconds * 1000) {
+            return cached.active;
+        }
+
+        // Loaded outside the lock, concurrent misses for one user just load twice
+        boolean active = userRepository.findActiveById(userId).orElse(false);
+        synchronized (activeUsers) {
+            activeUsers.put(userId, new CachedStatus(active, now));
+        }
+        return active;
+    }
+
+    private record CachedStatus(boolean active, long loadedAt) {
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * HMAC-SHA256 signer for one fixed key, producing and checking lowercase hex
+ * signatures.
+ *
+ * Each thread keeps its own initialized Mac plus scratch buffers, so signing
+ * and verifying ASCII input does not allocate. Verification compares the hex
+ * signature in constant time, without decoding or encoding it.
+ */
+public class HmacSha256Signer {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<State> state;
+
+    public HmacSha256Signer(String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        // Fail fast on a bad key instead of on the first payment
+        newMac();
+        this.state = ThreadLocal.withInitial(() -> new State(newMac()));
+    }
+
+    public String sign(String data) {
+        return toHex(compute(data).digest);
+    }
+
+    public String sign(String first, char separator, String second) {
+        return toHex(compute(first, separator, second).digest);
+    }
+
+    public boolean verify(String data, String signature) {
+        if (data == null || !hasSignatureShape(signature)) {
+            return false;
+        }
+        return matches(compute(data).digest, signature);
+    }
+
+    public boolean verify(String first, char separator, String second, String signature) {
+        if (first == null || second == null || !hasSignatureShape(signature)) {
+            return false;
+        }
+        return matches(compute(first, separator, second).digest, signature);
+    }
+
+    private State compute(String data) {
+        State s = state.get();
+        s.reset();
+        s.append(data);
+        s.finish();
+        return s;
+    }
+
+    private State compute(String first, char separator, String second) {
+        State s = state.get();
+        s.reset();
+        s.append(first);
+        s.append(separator);
+        s.append(second);
+        s.finish();
+        return s;
+    }
+
+    private static String toHex(byte[] digest) {
+        char[] hex = new char[MAC_LENGTH * 2];
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            int b = digest[i] & 0xff;
+            hex[2 * i] = HEX[b >>> 4];
+            hex[2 * i + 1] = HEX[b & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    private static boolean hasSignatureShape(String signature) {
+        // The length is public, only the content is compared in constant time
+        return signature != null && signature.length() == MAC_LENGTH * 2;
+    }
+
+    private static boolean matches(byte[] digest, String signature) {
+        int diff = 0;
+        for (int i = 0; i < MAC_LENGTH; i++) {
+            int b = digest[i] & 0xff;
+            diff |= HEX[b >>> 4] ^ toLowerHex(signature.charAt(2 * i));
+            diff |= HEX[b & 0x0f] ^ toLowerHex(signature.charAt(2 * i + 1));
+        }
+        return diff == 0;
+    }
+
+    // Maps 'A'-'F' to 'a'-'f' and leaves every other char as it is, without branching on it
+    private static int toLowerHex(char c) {
+        // Both differences are negative only when 'A' <= c <= 'F'
+        int upper = ((('A' - 1) - c) & (c - ('F' + 1))) >>> 31;
+        return c | (upper << 5);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Per-thread Mac and buffers. Input is UTF-8 encoded into a reusable
+     * buffer in chunks and fed to the Mac.
+     */
+    private static final class State {
+        private final Mac mac;
+        private final byte[] buffer = new byte[1024];
+        private final byte[] digest = new byte[MAC_LENGTH];
+        private int position;
+
+        State(Mac mac) {
+            this.mac = mac;
+        }
+
+        void reset() {
+            mac.reset();
+            position = 0;
+        }
+
+        void append(char c) {
+            if (c >= 0x80) {
+                append(String.valueOf(c));
+                return;
+            }
+            if (position == buffer.length) {
+                flush();
+            }
+            buffer[position++] = (byte) c;
+        }
+
+        void append(String data) {
+            int length = data.length();
+            for (int i = 0; i < length; i++) {
+                char c = data.charAt(i);
+                if (c >= 0x80) {
+                    // Non-ASCII input is rare (webhook bodies with names), let the JDK encode the rest
+                    flush();
+                    byte[] rest = data.substring(i).getBytes(StandardCharsets.UTF_8);
+                    mac.update(rest);
+                    return;
+                }
+                if (position == buffer.length) {
+                    flush();
+                }
+                buffer[position++] = (byte) c;
+            }
+        }
+
+        void finish() {
+            flush();
+            try {
+                mac.doFinal(digest, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC computation failed", e);
+            }
+        }
+
+        private void flush() {
+            if (position > 0) {
+                mac.update(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.example.demo.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,15 +17,22 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private CustomUserDetailsService userDetailsService;
 
     @Autowired
-    private CustomUserDetailsService userDetailsService;
+    private ActiveUserCache activeUserCache;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private static final String STREAM_TICKET_PARAM = "ticket";
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
@@ -31,34 +41,73 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        Claims claims = null;
 
+        String jwt = null;
+        boolean fromQuery = false;
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
+        } else if (isEventStream(request)) {
+            // Browser EventSource can't set headers, so streams carry a short-lived ticket in the query
+            jwt = request.getParameter(STREAM_TICKET_PARAM);
+            fromQuery = true;
+        }
+
+        if (jwt != null && !jwt.isBlank()) {
             try {
-                username = jwtUtil.extractUsername(jwt);
-                System.out.println("DEBUG JWT: Extracted Username: " + username);
+                // Signature and expiry are checked at most once per request,
+                // and once per token while it stays cached
+                claims = verifiedTokenCache.getClaims(jwt);
             } catch (Exception e) {
                 logger.error("JWT Token extraction error: " + e.getMessage());
-                System.out.println("DEBUG JWT: Extraction failed: " + e.getMessage());
             }
         }
+        // Tickets are only taken from a stream's query string, and login tokens never are,
+        // so the URLs that reach request logs can't be replayed against the rest of the API
+        if (claims != null && fromQuery != JwtUtil.SCOPE_STREAM.equals(claims.get(JwtUtil.CLAIM_SCOPE))) {
+            logger.debug("JWT rejected: stream tickets only authenticate stream URLs");
+            claims = null;
+        }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolveUser(claims);
 
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-                System.out.println("DEBUG JWT: Authentication set for user: " + username);
             } else {
-                System.out.println("DEBUG JWT: Token validation failed for user: " + username);
+                logger.debug("JWT rejected: token revoked or user inactive: " + claims.getSubject());
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    // Only the Server-Sent Events endpoints take the query ticket
+    private static boolean isEventStream(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && request.getRequestURI().endsWith("/stream");
+    }
+
+    private UserDetails resolveUser(Claims claims) {
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        if (userId == null) {
+            // Token issued before the identity was embedded, load the user as before
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+
+        if (!activeUserCache.isTokenAllowed(userId, claims.getIssuedAt())) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        Object roles = claims.get(JwtUtil.CLAIM_ROLES);
+        if (roles instanceof List<?> roleList) {
+            for (Object role : roleList) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(role)));
+            }
+        }
+        return new CustomUserDetails(userId, claims.getSubject(), "", true, true, true, true, authorities);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.example.demo.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Razorpay signature checks with keys initialised once at startup.
+ */
+@Component
+public class RazorpaySignatureVerifier {
+
+    private final HmacSha256Signer paymentSigner;
+    private final HmacSha256Signer webhookSigner;
+
+    public RazorpaySignatureVerifier(@Value("${razorpay.key.secret}") String keySecret,
+            @Value("${razorpay.webhook.secret:${razorpay.key.secret}}") String webhookSecret) {
+        this.paymentSigner = new HmacSha256Signer(keySecret);
+        this.webhookSigner = new HmacSha256Signer(webhookSecret);
+    }
+
+    // Checkout signature: HMAC of "order_id|payment_id" with the key secret
+    public boolean verifyPaymentSignature(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        return paymentSigner.verify(razorpayOrderId, '|', razorpayPaymentId, signature);
+    }
+
+    // Webhook signature: HMAC of the raw request body with the webhook secret
+    public boolean verifyWebhookSignature(String rawBody, String signature) {
+        return webhookSigner.verify(rawBody, signature);
+    }
+
+    public String signPayment(String razorpayOrderId, String razorpayPaymentId) {
+        return paymentSigner.sign(razorpayOrderId, '|', razorpayPaymentId);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of verified JWT claims, so a burst of requests with the
+ * same bearer token pays for signature verification and parsing once.
+ *
+ * Entries are keyed by a SHA-256 digest of the token (the token itself is
+ * not kept) and live until the token expires or the TTL passes, whichever is
+ * first. Revocation is still checked per request by the filter. Disable with
+ * jwt.token-cache.enabled=false to compare against plain verification.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Value("${jwt.token-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.token-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${jwt.token-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<TokenKey, CachedClaims> entries = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry) {
+        this.hitCounter = meterRegistry.counter("jwt.token_cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("jwt.token_cache.requests", "result", "miss");
+        this.evictionCounter = meterRegistry.counter("jwt.token_cache.evictions");
+        meterRegistry.gaugeMapSize("jwt.token_cache.size", List.of(), entries);
+    }
+
+    /**
+     * Claims of a valid token, from the cache when possible. Throws like
+     * {@link JwtUtil#extractAllClaims(String)} for an invalid token.
+     */
+    public Claims getClaims(String token) {
+        if (!enabled) {
+            return jwtUtil.extractAllClaims(token);
+        }
+
+        TokenKey key = keyOf(token);
+        long now = System.currentTimeMillis();
+        CachedClaims cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hitCounter.increment();
+                return cached.claims;
+            }
+            entries.remove(key, cached);
+        }
+
+        missCounter.increment();
+        Claims claims = jwtUtil.extractAllClaims(token);
+
+        long expiresAt = now + ttlSeconds * 1000;
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        if (entries.size() >= maxSize) {
+            evict(now);
+        }
+        entries.put(key, new CachedClaims(claims, expiresAt));
+        return claims;
+    }
+
+    private void evict(long now) {
+        // Expired entries first; if that is not enough, drop about a tenth
+        // of the cache in iteration order, which is cheap and roughly random
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<TokenKey> iterator = entries.keySet().iterator();
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            evictionCounter.increment();
+        }
+    }
+
+    private TokenKey keyOf(String token) {
+        MessageDigest digest = digests.get();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = (high << 8) | (hash[i] & 0xff);
+            low = (low << 8) | (hash[i + 8] & 0xff);
+        }
+        return new TokenKey(high, low);
+    }
+
+    // First 128 bits of the token digest
+    private record TokenKey(long high, long low) {
+    }
+
+    private record CachedClaims(Claims claims, long expiresAt) {
+    }
+}
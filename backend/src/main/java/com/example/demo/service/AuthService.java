@@ -3,7 +3,9 @@ package com.example.demo.service;
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.RegisterRequest;
+import com.example.demo.dto.StreamTicketResponse;
 import com.example.demo.dto.VendorRegisterRequest;
+import com.example.demo.security.CustomUserDetails;
 
 public interface AuthService {
     AuthResponse register(RegisterRequest request);
@@ -11,4 +13,10 @@ public interface AuthService {
     AuthResponse registerVendor(VendorRegisterRequest request);
 
     AuthResponse login(LoginRequest request);
+
+    // Invalidate every token issued to the user so far
+    void logout(Long userId);
+
+    // Short-lived ticket that authenticates the user's Server-Sent Events streams
+    StreamTicketResponse createStreamTicket(CustomUserDetails userDetails);
 }
\ No newline at end of file
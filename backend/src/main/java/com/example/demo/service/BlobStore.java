@@ -0,0 +1,51 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Content-addressed storage for binary data such as food images. A blob is
+ * named by the SHA-256 of its bytes, so storing the same bytes twice keeps
+ * one copy and a stored blob never changes.
+ */
+public interface BlobStore {
+
+    // Hex SHA-256, sniffed content type and size of a stored blob
+    record Blob(String hash, String contentType, long size) {
+    }
+
+    // Thrown by store once the input passes maxBytes; nothing is kept
+    class TooLargeException extends IOException {
+        public TooLargeException(long maxBytes) {
+            super("Blob larger than " + maxBytes + " bytes");
+        }
+    }
+
+    // Store the stream's bytes, returns the existing blob if already present
+    Blob store(InputStream in) throws IOException;
+
+    // Store the channel's bytes, streamed to disk while hashing, up to maxBytes
+    Blob store(ReadableByteChannel in, long maxBytes) throws IOException;
+
+    // File holding the blob, null when no blob has this hash
+    Path locate(String hash);
+
+    // Size and sniffed content type of a stored blob, null when missing
+    Blob describe(String hash) throws IOException;
+
+    // Image type from magic bytes, so a mislabelled upload is served correctly
+    static String sniffContentType(byte[] h, int length) {
+        if (length >= 3 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xFF) == 0xD8 && (h[2] & 0xFF) == 0xFF)
+            return "image/jpeg";
+        if (length >= 8 && (h[0] & 0xFF) == 0x89 && h[1] == 'P' && h[2] == 'N' && h[3] == 'G')
+            return "image/png";
+        if (length >= 6 && h[0] == 'G' && h[1] == 'I' && h[2] == 'F' && h[3] == '8')
+            return "image/gif";
+        if (length >= 12 && h[0] == 'R' && h[1] == 'I' && h[2] == 'F' && h[3] == 'F'
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P')
+            return "image/webp";
+        return "application/octet-stream";
+    }
+}
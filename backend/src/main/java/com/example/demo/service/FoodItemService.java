@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.FoodItemRequest;
+import com.example.demo.dto.FoodSearchResponse;
 import com.example.demo.entity.FoodItem;
 
 import java.util.List;
@@ -21,4 +22,11 @@ public interface FoodItemService {
     void deleteFoodItem(Long id);
 
     FoodItem save(FoodItem foodItem);
+
+    // Point the item at an image already in the blob store
+    FoodItem attachImage(Long id, BlobStore.Blob image);
+
+    // Food items and restaurants, best matches first; null filters are ignored
+    List<FoodSearchResponse> search(String query, Long stationId, Boolean vegetarian, Double minPrice,
+            Double maxPrice, Integer limit);
 }
\ No newline at end of file
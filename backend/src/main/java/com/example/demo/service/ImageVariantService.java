@@ -0,0 +1,22 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.ImageSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public interface ImageVariantService {
+
+    // Bytes to send for a request; exact is false when the source stands in for a pending variant
+    record Image(String hash, String contentType, Path path, long bytes, long sourceBytes, boolean exact) {
+    }
+
+    // Queue thumb, card and full variants of a stored image, false when the queue is full
+    boolean generateVariants(String sourceHash);
+
+    // Drop the image and its variants from the byte cache once it has been replaced
+    void evictCached(String sourceHash);
+
+    // The requested size of the image, null when the source blob is missing
+    Image resolve(String sourceHash, ImageSize size) throws IOException;
+}
@@ -3,17 +3,21 @@ package com.example.demo.service.Impl;
 import com.example.demo.dto.AuthResponse;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.RegisterRequest;
+import com.example.demo.dto.StreamTicketResponse;
 import com.example.demo.dto.VendorRegisterRequest;
 import com.example.demo.entity.Role;
 import com.example.demo.entity.User;
 import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.ActiveUserCache;
+import com.example.demo.security.CustomUserDetails;
 import com.example.demo.security.JwtUtil;
 import com.example.demo.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -33,6 +37,8 @@ public class AuthServiceImpl implements AuthService {
         private JwtUtil jwtUtil;
         @Autowired
         private AuthenticationManager authenticationManager;
+        @Autowired
+        private ActiveUserCache activeUserCache;
 
         @Override
         public AuthResponse register(RegisterRequest request) {
@@ -57,13 +63,17 @@ public class AuthServiceImpl implements AuthService {
                 roles.add(userRole);
                 user.setRoles(roles);
                 User savedUser = userRepository.save(user);
-                UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                                .username(savedUser.getUsername())
-                                .password(savedUser.getPassword())
-                                .authorities(savedUser.getRoles().stream()
-                                                .map(role -> role.getName())
-                                                .toArray(String[]::new))
-                                .build();
+                UserDetails userDetails = new CustomUserDetails(
+                                savedUser.getId(),
+                                savedUser.getUsername(),
+                                savedUser.getPassword(),
+                                true,
+                                true,
+                                true,
+                                true,
+                                savedUser.getRoles().stream()
+                                                .map(role -> new SimpleGrantedAuthority(role.getName()))
+                                                .collect(Collectors.toList()));
                 String token = jwtUtil.generateToken(userDetails);
                 return new AuthResponse(
                                 token,
@@ -103,13 +113,17 @@ public class AuthServiceImpl implements AuthService {
                 // Vendor entity to store these fields.
                 // For now, they will be validated but not persisted.
                 User savedUser = userRepository.save(user);
-                UserDetails userDetails = org.springframework.security.core.userdetails.User.builder()
-                                .username(savedUser.getUsername())
-                                .password(savedUser.getPassword())
-                                .authorities(savedUser.getRoles().stream()
-                                                .map(role -> role.getName())
-                                                .toArray(String[]::new))
-                                .build();
+                UserDetails userDetails = new CustomUserDetails(
+                                savedUser.getId(),
+                                savedUser.getUsername(),
+                                savedUser.getPassword(),
+                                true,
+                                true,
+                                true,
+                                true,
+                                savedUser.getRoles().stream()
+                                                .map(role -> new SimpleGrantedAuthority(role.getName()))
+                                                .collect(Collectors.toList()));
                 String token = jwtUtil.generateToken(userDetails);
                 return new AuthResponse(
                                 token,
@@ -138,4 +152,15 @@ public class AuthServiceImpl implements AuthService {
                                 user.getPhoneNumber(),
                                 user.getRoles().stream().map(Role::getName).collect(Collectors.toSet()));
         }
+
+        @Override
+        public void logout(Long userId) {
+                activeUserCache.revokeTokens(userId);
+        }
+
+        @Override
+        public StreamTicketResponse createStreamTicket(CustomUserDetails userDetails) {
+                return new StreamTicketResponse(jwtUtil.generateStreamTicket(userDetails),
+                                jwtUtil.getStreamTicketExpiration() / 1000);
+        }
 }
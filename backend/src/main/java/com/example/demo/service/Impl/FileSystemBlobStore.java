@@ -0,0 +1,153 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.BlobStore;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Blobs live under blob.store.dir as ab/cd/abcd..., sharded on the first
+ * two bytes of the hash. Bytes go through a direct buffer into a temp file
+ * channel while being hashed, and the file is moved into place in one
+ * step, so readers never see a partial blob.
+ *
+ * The store used to default to uploads/blobs, inside the directory served
+ * as /images/**. A store still there is moved to blob.store.dir on startup
+ * unless blob.store.migrate-legacy is off.
+ */
+@Service
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int HEADER_SIZE = 12;
+    private static final String LEGACY_DIR = "uploads/blobs";
+
+    @Value("${blob.store.dir:blob-store}")
+    private String storeDir;
+
+    @Value("${blob.store.migrate-legacy:true}")
+    private boolean migrateLegacy;
+
+    // One direct buffer per uploading thread, reused across uploads
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(
+            () -> ByteBuffer.allocateDirect(64 * 1024));
+
+    private Path root;
+    private Path tmp;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(storeDir).toAbsolutePath().normalize();
+        Path legacy = Paths.get(LEGACY_DIR).toAbsolutePath().normalize();
+        if (migrateLegacy && !root.equals(legacy) && !Files.exists(root) && Files.isDirectory(legacy)) {
+            Files.createDirectories(root.getParent());
+            Files.move(legacy, root);
+            System.out.println("🗄️ Moved blob store from " + legacy + " to " + root);
+        }
+        tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+        System.out.println("🗄️ Blob store at " + root);
+    }
+
+    @Override
+    public Blob store(InputStream in) throws IOException {
+        return store(Channels.newChannel(in), Long.MAX_VALUE);
+    }
+
+    @Override
+    public Blob store(ReadableByteChannel in, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] header = new byte[HEADER_SIZE];
+        int headerLength = 0;
+        long size = 0;
+
+        Path temp = Files.createTempFile(tmp, "blob", ".part");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = BUFFER.get();
+                while (in.read(buffer.clear()) != -1) {
+                    buffer.flip();
+                    size += buffer.remaining();
+                    if (size > maxBytes) {
+                        throw new TooLargeException(maxBytes);
+                    }
+                    if (headerLength < HEADER_SIZE) {
+                        int n = Math.min(buffer.remaining(), HEADER_SIZE - headerLength);
+                        buffer.get(buffer.position(), header, headerLength, n);
+                        headerLength += n;
+                    }
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same bytes stored concurrently, the existing copy is identical
+                }
+            }
+            return new Blob(hash, BlobStore.sniffContentType(header, headerLength), size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Path locate(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            return null;
+        }
+        Path path = pathFor(hash);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    @Override
+    public Blob describe(String hash) throws IOException {
+        Path path = locate(hash);
+        if (path == null) {
+            return null;
+        }
+        byte[] header = new byte[HEADER_SIZE];
+        int length;
+        try (InputStream in = Files.newInputStream(path)) {
+            length = in.readNBytes(header, 0, HEADER_SIZE);
+        }
+        return new Blob(hash, BlobStore.sniffContentType(header, length), Files.size(path));
+    }
+
+    private Path pathFor(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
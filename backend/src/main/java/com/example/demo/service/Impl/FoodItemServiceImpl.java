@@ -1,11 +1,14 @@
 package com.example.demo.service.Impl;
 
 import com.example.demo.dto.FoodItemRequest;
+import com.example.demo.dto.FoodSearchResponse;
 import com.example.demo.entity.FoodItem;
 import com.example.demo.entity.Restaurant;
 import com.example.demo.repository.FoodItemRepository;
 import com.example.demo.repository.RestaurantRepository;
+import com.example.demo.service.BlobStore;
 import com.example.demo.service.FoodItemService;
+import com.example.demo.service.ImageVariantService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +24,15 @@ public class FoodItemServiceImpl implements FoodItemService {
     @Autowired
     private RestaurantRepository restaurantRepository;
 
+    @Autowired
+    private PantryMenuCache pantryMenuCache;
+
+    @Autowired
+    private FoodSearchIndex foodSearchIndex;
+
+    @Autowired
+    private ImageVariantService imageVariantService;
+
     @Override
     @Transactional
     public FoodItem createFoodItem(FoodItemRequest request) {
@@ -40,7 +52,9 @@ public class FoodItemServiceImpl implements FoodItemService {
         foodItem.setVegetarian(request.getVegetarian());
         foodItem.setAvailable(true);
 
-        return foodItemRepository.save(foodItem);
+        FoodItem savedItem = foodItemRepository.save(foodItem);
+        foodSearchIndex.indexFoodAfterCommit(savedItem);
+        return savedItem;
     }
 
     @Override
@@ -81,7 +95,11 @@ public class FoodItemServiceImpl implements FoodItemService {
         foodItem.setImageUrl(request.getImageUrl());
         foodItem.setVegetarian(request.getVegetarian());
 
-        return foodItemRepository.save(foodItem);
+        // Name, price and image are shown on pantry menus
+        pantryMenuCache.evictFoodItem(id);
+        FoodItem updatedItem = foodItemRepository.save(foodItem);
+        foodSearchIndex.indexFoodAfterCommit(updatedItem);
+        return updatedItem;
     }
 
     @Override
@@ -93,6 +111,7 @@ public class FoodItemServiceImpl implements FoodItemService {
                 .orElseThrow(() -> new RuntimeException("Food item not found"));
         foodItem.setAvailable(false);
         foodItemRepository.save(foodItem);
+        foodSearchIndex.indexFoodAfterCommit(foodItem);
     }
 
     @Override
@@ -100,6 +119,33 @@ public class FoodItemServiceImpl implements FoodItemService {
     public FoodItem save(FoodItem foodItem) {
         if (foodItem == null)
             throw new RuntimeException("FoodItem cannot be null");
-        return foodItemRepository.save(foodItem);
+        pantryMenuCache.evictFoodItem(foodItem.getId());
+        FoodItem savedItem = foodItemRepository.save(foodItem);
+        foodSearchIndex.indexFoodAfterCommit(savedItem);
+        return savedItem;
+    }
+
+    @Override
+    @Transactional
+    public FoodItem attachImage(Long id, BlobStore.Blob blob) {
+        FoodItem foodItem = getFoodItemById(id);
+        imageVariantService.generateVariants(blob.hash());
+        String previousHash = foodItem.getImageHash();
+        if (previousHash != null && !previousHash.equals(blob.hash())) {
+            // Replaced image: its cached bytes would only be hit by stale URLs
+            imageVariantService.evictCached(previousHash);
+        }
+        foodItem.setImageHash(blob.hash());
+        foodItem.setImageContentType(blob.contentType());
+        // The version changes with the bytes, so clients may cache each URL forever
+        foodItem.setImageUrl("/api/food-items/" + id + "/image?v=" + blob.hash().substring(0, 16));
+        return save(foodItem);
+    }
+
+    @Override
+    public List<FoodSearchResponse> search(String query, Long stationId, Boolean vegetarian, Double minPrice,
+            Double maxPrice, Integer limit) {
+        return foodSearchIndex.search(
+                new FoodSearchIndex.Query(query, stationId, vegetarian, minPrice, maxPrice, limit));
     }
-}
\ No newline at end of file
+}
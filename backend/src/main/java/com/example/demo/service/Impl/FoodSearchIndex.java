@@ -0,0 +1,613 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.FoodSearchResponse;
+import com.example.demo.entity.FoodItem;
+import com.example.demo.entity.Restaurant;
+import com.example.demo.repository.FoodItemRepository;
+import com.example.demo.repository.RestaurantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over food items (name, category, description)
+ * and restaurants (name, cuisine). Query words match index terms exactly,
+ * by prefix, or within one or two typos (the first letter has to match).
+ * Hits are ranked by text relevance weighted by restaurant rating.
+ * Built at startup and updated by FoodItemService / RestaurantService writes.
+ */
+@Component
+public class FoodSearchIndex {
+
+    public static final String FOOD_ITEM = "FOOD_ITEM";
+    public static final String RESTAURANT = "RESTAURANT";
+
+    // Field weights
+    private static final float NAME = 3f;
+    private static final float CATEGORY = 2f;
+    private static final float DESCRIPTION = 1f;
+
+    // Match quality
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.8f;
+    private static final float FUZZY = 0.5f;
+
+    // Terms a single query word may expand to by prefix
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    @Autowired
+    private FoodItemRepository foodItemRepository;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Value("${food.search.max-results:20}")
+    private int maxResults;
+
+    // Idle score accumulators kept per document kind
+    @Value("${food.search.scratch-pool:8}")
+    private int scratchPool = 8;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Segment<FoodDoc> foods = new Segment<>();
+    private final Segment<RestaurantDoc> restaurants = new Segment<>();
+    // Catalogue-sized, so a few are pooled instead of one kept by every request thread
+    private final BlockingQueue<Scratch> foodScratch = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Scratch> restaurantScratch = new LinkedBlockingQueue<>();
+    private volatile boolean built;
+
+    private record FoodDoc(Long id, String name, String description, String category, Double price,
+            boolean vegetarian, boolean available, String imageUrl, Long restaurantId, Map<String, Float> terms) {
+    }
+
+    private record RestaurantDoc(Long id, String name, String cuisine, Long stationId, double rating,
+            boolean active, Map<String, Float> terms) {
+    }
+
+    // Documents containing a term, by slot, with the best field weight the term has in each
+    private static final class Postings {
+        final PostingList foods = new PostingList();
+        final PostingList restaurants = new PostingList();
+
+        boolean isEmpty() {
+            return foods.size == 0 && restaurants.size == 0;
+        }
+    }
+
+    private static final class PostingList {
+        int[] slots = new int[2];
+        float[] weights = new float[2];
+        int size;
+
+        void add(int slot, float weight) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            slots[size] = slot;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    // Documents under dense int slots, so a query scores over primitive arrays
+    private static final class Segment<D> {
+        final Map<Long, Integer> slotById = new HashMap<>();
+        final List<D> bySlot = new ArrayList<>();
+        final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+        int put(Long id, D doc) {
+            Integer slot = freeSlots.poll();
+            if (slot == null) {
+                slot = bySlot.size();
+                bySlot.add(doc);
+            } else {
+                bySlot.set(slot, doc);
+            }
+            slotById.put(id, slot);
+            return slot;
+        }
+
+        // Postings must be cleared before the slot is handed out again
+        void free(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                bySlot.set(slot, null);
+                freeSlots.push(slot);
+            }
+        }
+
+        D get(Long id) {
+            Integer slot = slotById.get(id);
+            return slot != null ? bySlot.get(slot) : null;
+        }
+
+        int slotOf(Long id) {
+            return slotById.get(id);
+        }
+
+        void clear() {
+            slotById.clear();
+            bySlot.clear();
+            freeSlots.clear();
+        }
+    }
+
+    // Score accumulators, indexed by slot and left zeroed after each query
+    private static final class Scratch {
+        float[] wordBest = new float[0];
+        float[] total = new float[0];
+        int[] matchedWords = new int[0];
+        int[] touched = new int[0];
+        int[] candidates = new int[0];
+
+        void ensure(int capacity) {
+            if (total.length < capacity) {
+                wordBest = new float[capacity];
+                total = new float[capacity];
+                matchedWords = new int[capacity];
+                touched = new int[capacity];
+                candidates = new int[capacity];
+            }
+        }
+    }
+
+    private record TermMatch(Postings postings, float quality) {
+    }
+
+    private record Hit(double score, String name, boolean food, int slot) {
+    }
+
+    // Worst hit first: lowest score, then last name
+    private static final Comparator<Hit> HIT_ORDER = Comparator.comparingDouble(Hit::score)
+            .thenComparing(Hit::name, Comparator.reverseOrder());
+
+    // Search filters; null means no filter
+    public record Query(String text, Long stationId, Boolean vegetarian, Double minPrice, Double maxPrice,
+            Integer limit) {
+
+        boolean filtersFood() {
+            return vegetarian != null || minPrice != null || maxPrice != null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        load();
+        lock.readLock().lock();
+        try {
+            System.out.println("🔎 Food search index built: " + foods.slotById.size() + " food items, "
+                    + restaurants.slotById.size() + " restaurants, " + terms.size() + " terms");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Also run by the first search when it comes in before startup finished, without the log line
+    private void load() {
+        List<Object[]> restaurantRows = restaurantRepository.findAllForSearch();
+        List<Object[]> foodRows = foodItemRepository.findAllForSearch();
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            foods.clear();
+            restaurants.clear();
+            for (Object[] row : restaurantRows) {
+                addRestaurant(restaurantDoc((Long) row[0], (String) row[1], (String) row[2], (Long) row[3],
+                        (Double) row[4], (Boolean) row[5]));
+            }
+            for (Object[] row : foodRows) {
+                addFood(foodDoc((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (Double) row[4],
+                        (Boolean) row[5], (Boolean) row[6], (String) row[7], (Long) row[8]));
+            }
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexFoodAfterCommit(FoodItem item) {
+        FoodDoc doc = foodDoc(item.getId(), item.getName(), item.getDescription(), item.getCategory(),
+                item.getPrice(), item.getVegetarian(), item.getAvailable(), item.getImageUrl(),
+                item.getRestaurant() != null ? item.getRestaurant().getId() : null);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeFood(doc.id());
+                addFood(doc);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void indexRestaurantAfterCommit(Restaurant restaurant) {
+        RestaurantDoc doc = restaurantDoc(restaurant.getId(), restaurant.getName(), restaurant.getCuisine(),
+                restaurant.getStation() != null ? restaurant.getStation().getId() : null, restaurant.getRating(),
+                restaurant.getActive());
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeRestaurant(doc.id());
+                addRestaurant(doc);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // Only the rating changed: swap the document in place, its postings stay as they are
+    public void updateRestaurantRatingAfterCommit(Long restaurantId, Double rating) {
+        double value = rating != null ? rating : 0.0;
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Integer slot = restaurants.slotById.get(restaurantId);
+                RestaurantDoc doc = slot != null ? restaurants.bySlot.get(slot) : null;
+                if (doc != null) {
+                    restaurants.bySlot.set(slot, new RestaurantDoc(doc.id(), doc.name(), doc.cuisine(),
+                            doc.stationId(), value, doc.active(), doc.terms()));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public List<FoodSearchResponse> search(Query query) {
+        List<String> words = tokenize(query.text());
+        if (words.isEmpty())
+            return new ArrayList<>();
+
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    load();
+                }
+            }
+        }
+
+        int max = query.limit() != null && query.limit() > 0 ? Math.min(query.limit(), maxResults) : maxResults;
+        PriorityQueue<Hit> top = new PriorityQueue<>(max + 1, HIT_ORDER);
+        List<FoodSearchResponse> results = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            List<List<TermMatch>> wordMatches = new ArrayList<>(words.size());
+            for (String word : words) {
+                wordMatches.add(matchWord(word));
+            }
+
+            Scratch scratch = borrow(foodScratch, foods.bySlot.size());
+            int count = score(wordMatches, true, scratch);
+            for (int i = 0; i < count; i++) {
+                int slot = scratch.candidates[i];
+                if (scratch.matchedWords[slot] == words.size()) {
+                    FoodDoc food = foods.bySlot.get(slot);
+                    RestaurantDoc restaurant = restaurants.get(food.restaurantId());
+                    if (restaurant != null && matches(food, restaurant, query)) {
+                        offer(top, new Hit(rank(scratch.total[slot], restaurant.rating()), food.name(), true, slot),
+                                max);
+                    }
+                }
+                scratch.total[slot] = 0f;
+                scratch.matchedWords[slot] = 0;
+            }
+            giveBack(foodScratch, scratch);
+
+            // Veg and price only describe food items, restaurants drop out when they are set
+            if (!query.filtersFood()) {
+                scratch = borrow(restaurantScratch, restaurants.bySlot.size());
+                count = score(wordMatches, false, scratch);
+                for (int i = 0; i < count; i++) {
+                    int slot = scratch.candidates[i];
+                    if (scratch.matchedWords[slot] == words.size()) {
+                        RestaurantDoc restaurant = restaurants.bySlot.get(slot);
+                        if (restaurant.active() && inStation(restaurant, query)) {
+                            offer(top, new Hit(rank(scratch.total[slot], restaurant.rating()), restaurant.name(),
+                                    false, slot), max);
+                        }
+                    }
+                    scratch.total[slot] = 0f;
+                    scratch.matchedWords[slot] = 0;
+                }
+                giveBack(restaurantScratch, scratch);
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(HIT_ORDER.reversed());
+            for (Hit hit : hits) {
+                results.add(hit.food() ? foodResponse(foods.bySlot.get(hit.slot()), hit.score())
+                        : restaurantResponse(restaurants.bySlot.get(hit.slot()), hit.score()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    // An idle accumulator, or a new one when every pooled one is in use
+    private static Scratch borrow(BlockingQueue<Scratch> pool, int capacity) {
+        Scratch scratch = pool.poll();
+        if (scratch == null) {
+            scratch = new Scratch();
+        }
+        scratch.ensure(capacity);
+        return scratch;
+    }
+
+    // Only once the query has zeroed it, a failed query just drops its accumulator.
+    // Past food.search.scratch-pool idle ones it is left to the garbage collector
+    private void giveBack(BlockingQueue<Scratch> pool, Scratch scratch) {
+        if (pool.size() < scratchPool) {
+            pool.offer(scratch);
+        }
+    }
+
+    /**
+     * Adds up, per document, the best match of each query word. Only
+     * documents that matched every earlier word are considered, so the
+     * returned candidates (the first word's matches) carry matchedWords ==
+     * words.size() when they matched them all.
+     */
+    private static int score(List<List<TermMatch>> wordMatches, boolean food, Scratch scratch) {
+        int candidateCount = 0;
+        for (int k = 0; k < wordMatches.size(); k++) {
+            int touchedCount = 0;
+            for (TermMatch match : wordMatches.get(k)) {
+                PostingList list = food ? match.postings().foods : match.postings().restaurants;
+                for (int i = 0; i < list.size; i++) {
+                    int slot = list.slots[i];
+                    if (scratch.matchedWords[slot] != k)
+                        continue;
+                    float value = list.weights[i] * match.quality();
+                    if (scratch.wordBest[slot] == 0f) {
+                        scratch.touched[touchedCount++] = slot;
+                    }
+                    if (value > scratch.wordBest[slot]) {
+                        scratch.wordBest[slot] = value;
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int slot = scratch.touched[i];
+                scratch.total[slot] += scratch.wordBest[slot];
+                scratch.wordBest[slot] = 0f;
+                scratch.matchedWords[slot] = k + 1;
+            }
+            if (k == 0) {
+                System.arraycopy(scratch.touched, 0, scratch.candidates, 0, touchedCount);
+                candidateCount = touchedCount;
+            }
+        }
+        return candidateCount;
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Hit hit, int max) {
+        if (top.size() < max) {
+            top.add(hit);
+        } else if (HIT_ORDER.compare(hit, top.peek()) > 0) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private List<TermMatch> matchWord(String word) {
+        List<TermMatch> matches = new ArrayList<>();
+
+        // Exact and prefix matches
+        int expansions = 0;
+        for (Map.Entry<String, Postings> entry : terms.subMap(word, true, word + Character.MAX_VALUE, false)
+                .entrySet()) {
+            float quality = entry.getKey().length() == word.length() ? EXACT : PREFIX;
+            matches.add(new TermMatch(entry.getValue(), quality));
+            if (++expansions >= MAX_PREFIX_EXPANSIONS)
+                break;
+        }
+
+        // Typos: terms starting with the same letter whose start is within the edit budget
+        int maxEdits = word.length() < 4 ? 0 : word.length() < 8 ? 1 : 2;
+        if (maxEdits == 0)
+            return matches;
+        char first = word.charAt(0);
+        for (Map.Entry<String, Postings> entry : terms.subMap(String.valueOf(first), true,
+                String.valueOf((char) (first + 1)), false).entrySet()) {
+            String term = entry.getKey();
+            if (term.startsWith(word) || term.length() < word.length() - maxEdits)
+                continue;
+            if (prefixDistance(word, term, maxEdits) <= maxEdits) {
+                matches.add(new TermMatch(entry.getValue(), FUZZY));
+            }
+        }
+        return matches;
+    }
+
+    private FoodSearchResponse foodResponse(FoodDoc food, double score) {
+        RestaurantDoc restaurant = restaurants.get(food.restaurantId());
+        return new FoodSearchResponse(FOOD_ITEM, food.id(), food.name(), food.description(), food.category(),
+                food.price(), food.vegetarian(), food.imageUrl(), restaurant.id(), restaurant.name(),
+                restaurant.stationId(), restaurant.rating(), score);
+    }
+
+    private static FoodSearchResponse restaurantResponse(RestaurantDoc restaurant, double score) {
+        return new FoodSearchResponse(RESTAURANT, restaurant.id(), restaurant.name(), restaurant.cuisine(), null,
+                null, null, null, restaurant.id(), restaurant.name(), restaurant.stationId(), restaurant.rating(),
+                score);
+    }
+
+    private static boolean matches(FoodDoc food, RestaurantDoc restaurant, Query query) {
+        return food.available() && restaurant.active() && inStation(restaurant, query)
+                && (query.vegetarian() == null || query.vegetarian() == food.vegetarian())
+                && (query.minPrice() == null || (food.price() != null && food.price() >= query.minPrice()))
+                && (query.maxPrice() == null || (food.price() != null && food.price() <= query.maxPrice()));
+    }
+
+    private static boolean inStation(RestaurantDoc restaurant, Query query) {
+        return query.stationId() == null || query.stationId().equals(restaurant.stationId());
+    }
+
+    // Ratings run 0-5, a 5-star restaurant gets half again the text score
+    private static double rank(float relevance, double rating) {
+        return relevance * (1 + rating / 10);
+    }
+
+    /**
+     * Smallest edit distance between the word and any prefix of the term,
+     * stops early once every path is over the budget.
+     */
+    static int prefixDistance(String word, String term, int maxEdits) {
+        int n = word.length();
+        int m = Math.min(term.length(), n + maxEdits);
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = word.charAt(i - 1) == term.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits)
+                return rowMin;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = Integer.MAX_VALUE;
+        for (int j = Math.max(0, n - maxEdits); j <= m; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+
+    private void addFood(FoodDoc doc) {
+        int slot = foods.put(doc.id(), doc);
+        doc.terms().forEach((term, weight) -> terms.computeIfAbsent(term, t -> new Postings()).foods
+                .add(slot, weight));
+    }
+
+    private void removeFood(Long id) {
+        FoodDoc doc = foods.get(id);
+        if (doc == null)
+            return;
+        int slot = foods.slotOf(id);
+        doc.terms().keySet().forEach(term -> {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                postings.foods.remove(slot);
+                if (postings.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        });
+        foods.free(id);
+    }
+
+    private void addRestaurant(RestaurantDoc doc) {
+        int slot = restaurants.put(doc.id(), doc);
+        doc.terms().forEach((term, weight) -> terms.computeIfAbsent(term, t -> new Postings()).restaurants
+                .add(slot, weight));
+    }
+
+    private void removeRestaurant(Long id) {
+        RestaurantDoc doc = restaurants.get(id);
+        if (doc == null)
+            return;
+        int slot = restaurants.slotOf(id);
+        doc.terms().keySet().forEach(term -> {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                postings.restaurants.remove(slot);
+                if (postings.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        });
+        restaurants.free(id);
+    }
+
+    private static FoodDoc foodDoc(Long id, String name, String description, String category, Double price,
+            Boolean vegetarian, Boolean available, String imageUrl, Long restaurantId) {
+        Map<String, Float> docTerms = new HashMap<>();
+        addTerms(docTerms, description, DESCRIPTION);
+        addTerms(docTerms, category, CATEGORY);
+        addTerms(docTerms, name, NAME);
+        return new FoodDoc(id, name, description, category, price, Boolean.TRUE.equals(vegetarian),
+                Boolean.TRUE.equals(available), imageUrl, restaurantId, docTerms);
+    }
+
+    private static RestaurantDoc restaurantDoc(Long id, String name, String cuisine, Long stationId, Double rating,
+            Boolean active) {
+        Map<String, Float> docTerms = new HashMap<>();
+        addTerms(docTerms, cuisine, CATEGORY);
+        addTerms(docTerms, name, NAME);
+        return new RestaurantDoc(id, name, cuisine, stationId, rating != null ? rating : 0.0,
+                Boolean.TRUE.equals(active), docTerms);
+    }
+
+    private static void addTerms(Map<String, Float> docTerms, String text, float weight) {
+        for (String term : tokenize(text)) {
+            docTerms.merge(term, weight, Math::max);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.RazorpayApi;
+import com.example.demo.service.RazorpayApi.ClientErrorException;
+import com.razorpay.RazorpayException;
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Razorpay API over plain HTTP against a configurable base URL, so the app
+ * can point at the local stub gateway (or any other Razorpay-compatible
+ * endpoint). Every socket timeout is capped at the gateway timeout: a call
+ * that timed out is not interrupted by cancelling its future, so it has to
+ * end on its own by then to free its bulkhead thread.
+ */
+public class HttpRazorpayApi implements RazorpayApi {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final OkHttpClient httpClient;
+    private final HttpUrl baseUrl;
+    private final String credentials;
+
+    public HttpRazorpayApi(String baseUrl, String keyId, String keySecret, Duration timeout) {
+        this.baseUrl = HttpUrl.get(baseUrl);
+        this.credentials = Credentials.basic(keyId, keySecret);
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(timeout)
+                .readTimeout(timeout)
+                .writeTimeout(timeout)
+                .callTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public JSONObject createOrder(JSONObject orderRequest) throws RazorpayException {
+        return execute(post(url("orders"), orderRequest));
+    }
+
+    @Override
+    public JSONObject fetchPayment(String razorpayPaymentId) throws RazorpayException {
+        return execute(authorized(url("payments", razorpayPaymentId)).get().build());
+    }
+
+    @Override
+    public JSONObject refundPayment(String razorpayPaymentId, JSONObject refundRequest) throws RazorpayException {
+        return execute(post(url("payments", razorpayPaymentId, "refund"), refundRequest));
+    }
+
+    private HttpUrl url(String... segments) {
+        HttpUrl.Builder builder = baseUrl.newBuilder().addPathSegment("v1");
+        for (String segment : segments) {
+            builder.addPathSegment(segment);
+        }
+        return builder.build();
+    }
+
+    private Request.Builder authorized(HttpUrl url) {
+        return new Request.Builder().url(url).header("Authorization", credentials);
+    }
+
+    private Request post(HttpUrl url, JSONObject body) {
+        return authorized(url).post(RequestBody.create(body.toString(), JSON)).build();
+    }
+
+    private JSONObject execute(Request request) throws RazorpayException {
+        try (Response response = httpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            JSONObject json = new JSONObject(body != null ? body.string() : "{}");
+            if (!response.isSuccessful()) {
+                JSONObject error = json.optJSONObject("error");
+                String description = error != null ? error.optString("description") : response.message();
+                String message = "Razorpay API error " + response.code() + ": " + description;
+                // 429 asks us to back off, so it counts against the gateway like a 5xx
+                if (response.code() >= 400 && response.code() < 500 && response.code() != 429) {
+                    throw new ClientErrorException(message);
+                }
+                throw new RazorpayException(message);
+            }
+            return json;
+        } catch (IOException | JSONException e) {
+            throw new RazorpayException("Razorpay API call failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -2,15 +2,13 @@ package com.example.demo.service.Impl;
 
 import com.example.demo.dto.TrainStatusResponse;
 import com.example.demo.entity.Train;
-import com.example.demo.entity.TrainRoute;
 import com.example.demo.repository.TrainRepository;
-import com.example.demo.repository.TrainRouteRepository;
 import com.example.demo.service.IRCTCMockService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Random;
 
 @Service
 public class IRCTCMockServiceImpl implements IRCTCMockService {
@@ -19,12 +17,19 @@ public class IRCTCMockServiceImpl implements IRCTCMockService {
     private TrainRepository trainRepository;
 
     @Autowired
-    private TrainRouteRepository trainRouteRepository;
+    private TrainRouteCache trainRouteCache;
 
-    private final Random random = new Random();
+    @Autowired
+    private TrainSimulator trainSimulator;
 
     @Override
     public TrainStatusResponse getTrainStatus(String trainNumber) {
+        // Trains with a timetable are moved by the simulator, this is a map read
+        TrainStatusResponse simulated = trainSimulator.getStatus(trainNumber);
+        if (simulated != null) {
+            return simulated;
+        }
+
         // Create response object early
         TrainStatusResponse response = new TrainStatusResponse();
         response.setTrainNumber(trainNumber);
@@ -35,29 +40,32 @@ public class IRCTCMockServiceImpl implements IRCTCMockService {
             response.setTrainName(train != null ? train.getTrainName() : "Express Train " + trainNumber);
 
             // Try to get train route
-            List<TrainRoute> routes = train != null
-                    ? trainRouteRepository.findByTrainIdOrderByStopNumberAsc(train.getId())
+            List<TrainRouteCache.Stop> routes = train != null
+                    ? trainRouteCache.getStops(train.getId())
                     : null;
 
             if (routes != null && !routes.isEmpty()) {
-                // Scenario A: Real route data exists
-                int currentStopIndex = random.nextInt(routes.size());
-                TrainRoute currentStop = routes.get(currentStopIndex);
-                TrainRoute nextStop = currentStopIndex < routes.size() - 1 ? routes.get(currentStopIndex + 1) : null;
-
-                response.setCurrentStation(currentStop.getStation().getStationName());
-                response.setCurrentStationCode(currentStop.getStation().getStationCode());
-                response.setCurrentLatitude(currentStop.getStation().getLatitude());
-                response.setCurrentLongitude(currentStop.getStation().getLongitude());
+                // Scenario A: Route without usable timings, hold the train at its origin
+                int currentStopIndex = 0;
+                TrainRouteCache.Stop currentStop = routes.get(currentStopIndex);
+                TrainRouteCache.Stop nextStop = currentStopIndex < routes.size() - 1
+                        ? routes.get(currentStopIndex + 1)
+                        : null;
+
+                response.setCurrentStation(currentStop.stationName());
+                response.setCurrentStationCode(currentStop.stationCode());
+                response.setCurrentLatitude(currentStop.latitude());
+                response.setCurrentLongitude(currentStop.longitude());
+                response.setAverageSpeed(0.0);
 
                 if (nextStop != null) {
-                    response.setNextStation(nextStop.getStation().getStationName());
-                    response.setNextStationCode(nextStop.getStation().getStationCode());
+                    response.setNextStation(nextStop.stationName());
+                    response.setNextStationCode(nextStop.stationCode());
                     response.setDistanceToNextStation(
-                            nextStop.getDistanceFromSource() != null && currentStop.getDistanceFromSource() != null
-                                    ? nextStop.getDistanceFromSource() - currentStop.getDistanceFromSource()
-                                    : random.nextInt(50) + 10);
-                    response.setEstimatedTimeToNextStation(random.nextInt(40) + 10);
+                            nextStop.distanceFromSource() != null && currentStop.distanceFromSource() != null
+                                    ? nextStop.distanceFromSource() - currentStop.distanceFromSource()
+                                    : 30);
+                    response.setEstimatedTimeToNextStation(30);
                 }
             } else {
                 // Scenario B: Fallback mock for trains without routes in DB
@@ -70,19 +78,14 @@ public class IRCTCMockServiceImpl implements IRCTCMockService {
                 response.setNextStationCode("BVI");
                 response.setDistanceToNextStation(18);
                 response.setEstimatedTimeToNextStation(25);
+                response.setAverageSpeed(75.5);
             }
 
             // Shared Mock Logic
-            String[] statuses = { "ON_TIME", "DELAYED", "ON_TIME", "ON_TIME" };
-            response.setCurrentStatus(statuses[random.nextInt(statuses.length)]);
-
-            if ("DELAYED".equals(response.getCurrentStatus())) {
-                response.setDelayMinutes(random.nextInt(30) + 1);
-            } else {
-                response.setDelayMinutes(0);
-            }
-
-            response.setAverageSpeed(65.0 + random.nextDouble() * 30);
+            // Same answer on every call for the day, as for simulated trains
+            int delayMinutes = TrainSimulator.delayMinutes(trainNumber, LocalDate.now());
+            response.setCurrentStatus(delayMinutes > 0 ? "DELAYED" : "ON_TIME");
+            response.setDelayMinutes(delayMinutes);
 
         } catch (Exception e) {
             // Ultimate fallback
@@ -0,0 +1,280 @@
+package com.example.demo.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of hot image bytes held outside the Java heap. One direct
+ * buffer is allocated at startup and split into fixed-size pages; an
+ * entry is a list of pages, so eviction just returns pages to the free
+ * list and image traffic creates no garbage. Entries are reference
+ * counted: an evicted entry's pages are reused only once every response
+ * still writing it has finished.
+ */
+@Component
+public class ImageByteCache {
+
+    private final ByteBuffer arena;
+    private final int pageSize;
+    private final long maxEntryBytes;
+    private final int[] freePages; // Stack of free page numbers
+    private int freeCount;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong residentBytes = new AtomicLong();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter evictionCounter;
+
+    public ImageByteCache(@Value("${image.cache.max-bytes:67108864}") int maxBytes,
+            @Value("${image.cache.page-bytes:8192}") int pageSize,
+            @Value("${image.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+            MeterRegistry meterRegistry) {
+        this.pageSize = pageSize;
+        this.maxEntryBytes = maxEntryBytes;
+        this.arena = ByteBuffer.allocateDirect(maxBytes / pageSize * pageSize);
+        this.freePages = new int[maxBytes / pageSize];
+        for (int page = 0; page < freePages.length; page++) {
+            freePages[freeCount++] = page;
+        }
+
+        this.hitCounter = meterRegistry.counter("image.cache.hits");
+        this.missCounter = meterRegistry.counter("image.cache.misses");
+        this.evictionCounter = meterRegistry.counter("image.cache.evictions");
+        meterRegistry.gauge("image.cache.resident.bytes", residentBytes);
+        meterRegistry.gauge("image.cache.capacity.bytes", arena, ByteBuffer::capacity);
+        meterRegistry.gauge("image.cache.entries", this, cache -> cache.size());
+        meterRegistry.gauge("image.cache.hit.ratio", this, cache -> {
+            double hits = cache.hitCounter.count();
+            double total = hits + cache.missCounter.count();
+            return total == 0 ? 0 : hits / total;
+        });
+    }
+
+    private final class Entry {
+        final int[] pages;
+        final int length;
+        // 1 for the cache's own reference plus one per open Handle, pages are freed at 0
+        final AtomicInteger refs = new AtomicInteger(1);
+
+        Entry(int[] pages, int length) {
+            this.pages = pages;
+            this.length = length;
+        }
+
+        boolean retain() {
+            int current;
+            do {
+                current = refs.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!refs.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release() {
+            if (refs.decrementAndGet() == 0) {
+                freePages(pages);
+            }
+        }
+    }
+
+    /**
+     * Cached bytes, valid until closed. Pages are read through views of
+     * the arena, so writing them to a socket never copies onto the heap.
+     */
+    public final class Handle implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        public int length() {
+            return entry.length;
+        }
+
+        // Read-only view of one page, trimmed to the entry's length
+        public ByteBuffer page(int index) {
+            int offset = entry.pages[index] * pageSize;
+            int length = Math.min(pageSize, entry.length - index * pageSize);
+            return arena.slice(offset, length).asReadOnlyBuffer();
+        }
+
+        public int pageCount() {
+            return entry.pages.length;
+        }
+
+        public InputStream inputStream() {
+            return new InputStream() {
+                private int index;
+                private ByteBuffer current = entry.length > 0 ? page(0) : ByteBuffer.allocate(0);
+
+                @Override
+                public int read() {
+                    return advance() ? current.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (!advance()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, current.remaining());
+                    current.get(b, off, n);
+                    return n;
+                }
+
+                private boolean advance() {
+                    while (!current.hasRemaining()) {
+                        if (++index >= entry.pages.length) {
+                            return false;
+                        }
+                        current = page(index);
+                    }
+                    return true;
+                }
+
+                @Override
+                public void close() {
+                    Handle.this.close();
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                entry.release();
+            }
+        }
+    }
+
+    // Whether an entry of this many bytes may be cached at all
+    public boolean admits(long bytes) {
+        return bytes <= maxEntryBytes && bytes <= arena.capacity();
+    }
+
+    // Cached bytes for the key, null on a miss; close the handle when done
+    public Handle get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.retain()) {
+            hitCounter.increment();
+            return new Handle(entry);
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * Read the file into the cache under the key. Null when the file is
+     * over image.cache.max-entry-bytes or every page is still in use, in
+     * which case the caller serves the file directly.
+     */
+    public Handle load(String key, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (!admits(size)) {
+                return null;
+            }
+            int[] pages = allocate((int) ((size + pageSize - 1) / pageSize));
+            if (pages == null) {
+                return null;
+            }
+
+            Entry entry = new Entry(pages, (int) size);
+            try {
+                for (int i = 0; i < pages.length; i++) {
+                    ByteBuffer page = arena.slice(pages[i] * pageSize, Math.min(pageSize, (int) size - i * pageSize));
+                    while (page.hasRemaining() && channel.read(page, (long) i * pageSize + page.position()) != -1) {
+                        // Fill the page
+                    }
+                }
+            } catch (IOException e) {
+                freePages(pages);
+                throw e;
+            }
+
+            entry.retain(); // The caller's handle
+            Entry previous;
+            synchronized (this) {
+                previous = entries.put(key, entry);
+            }
+            residentBytes.addAndGet(entry.length);
+            if (previous != null) {
+                residentBytes.addAndGet(-previous.length);
+                previous.release();
+            }
+            return new Handle(entry);
+        }
+    }
+
+    // Drop the key, e.g. when the image it names has been replaced
+    public void invalidate(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(key);
+        }
+        if (entry != null) {
+            residentBytes.addAndGet(-entry.length);
+            entry.release();
+        }
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+
+    // Free pages for a new entry, evicting least recently used entries as needed
+    private int[] allocate(int count) {
+        while (true) {
+            Entry victim = null;
+            synchronized (this) {
+                if (freeCount >= count) {
+                    int[] pages = new int[count];
+                    for (int i = 0; i < count; i++) {
+                        pages[i] = freePages[--freeCount];
+                    }
+                    return pages;
+                }
+                Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+                if (eldest.hasNext()) {
+                    victim = eldest.next().getValue();
+                    eldest.remove();
+                }
+            }
+            if (victim == null) {
+                return null; // Everything left is pinned by in-flight responses
+            }
+            residentBytes.addAndGet(-victim.length);
+            evictionCounter.increment();
+            victim.release();
+        }
+    }
+
+    private synchronized void freePages(int[] pages) {
+        for (int page : pages) {
+            freePages[freeCount++] = page;
+        }
+    }
+}
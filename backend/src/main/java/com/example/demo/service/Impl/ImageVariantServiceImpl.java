@@ -0,0 +1,392 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.entity.ImageSize;
+import com.example.demo.entity.ImageVariant;
+import com.example.demo.repository.ImageVariantRepository;
+import com.example.demo.service.BlobStore;
+import com.example.demo.service.ImageVariantService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the thumb, card and full variants of uploaded images on a small
+ * fixed pool with a bounded queue. Each source is decoded once and every
+ * variant is scaled from that one bitmap, turned upright by its EXIF
+ * orientation, then stored as a JPEG blob.
+ * Requests for a variant that is not ready get the source meanwhile.
+ */
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private static final int MAX_RESOLVED = 10_000;
+    private static final ImageSize[] VARIANTS = { ImageSize.FULL, ImageSize.CARD, ImageSize.THUMB };
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private ImageVariantRepository imageVariantRepository;
+
+    @Autowired
+    private ImageByteCache imageByteCache;
+
+    @Value("${image.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    @Value("${image.variants.max-pixels:40000000}")
+    private long maxPixels;
+
+    private final ThreadPoolExecutor workers;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // Exact resolutions by hash and size; blobs never change, so these stay valid
+    private final Map<String, Image> resolved = new ConcurrentHashMap<>();
+
+    private final Counter generatedCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Counter bytesSavedCounter;
+
+    public ImageVariantServiceImpl(@Value("${image.variants.workers:2}") int workerCount,
+            @Value("${image.variants.queue-capacity:64}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+
+        this.generatedCounter = meterRegistry.counter("image.variant.generated");
+        this.rejectedCounter = meterRegistry.counter("image.variant.rejected");
+        this.failedCounter = meterRegistry.counter("image.variant.failed");
+        this.bytesSavedCounter = meterRegistry.counter("image.variant.bytes.saved.stored");
+        meterRegistry.gauge("image.variant.queue.depth", workers, executor -> executor.getQueue().size());
+    }
+
+    @Override
+    public boolean generateVariants(String sourceHash) {
+        if (!inFlight.add(sourceHash)) {
+            return true; // Already queued or running
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(sourceHash);
+                } catch (Exception e) {
+                    failedCounter.increment();
+                    System.err.println("⚠️ Image variants failed for " + sourceHash + ": " + e.getMessage());
+                } finally {
+                    inFlight.remove(sourceHash);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Queue full: the next request for the image queues it again
+            inFlight.remove(sourceHash);
+            rejectedCounter.increment();
+            return false;
+        }
+    }
+
+    @Override
+    public void evictCached(String sourceHash) {
+        resolved.keySet().removeIf(key -> key.startsWith(sourceHash));
+        imageByteCache.invalidate(sourceHash);
+        imageVariantRepository.findBySourceHash(sourceHash)
+                .forEach(variant -> imageByteCache.invalidate(variant.getBlobHash()));
+    }
+
+    @Override
+    public Image resolve(String sourceHash, ImageSize size) throws IOException {
+        String key = sourceHash + ":" + size;
+        Image image = resolved.get(key);
+        if (image == null) {
+            image = lookup(sourceHash, size);
+            if (image != null && image.exact()) {
+                if (resolved.size() >= MAX_RESOLVED) {
+                    resolved.clear();
+                }
+                resolved.put(key, image);
+            }
+        }
+        return image;
+    }
+
+    private Image lookup(String sourceHash, ImageSize size) throws IOException {
+        if (size.isVariant()) {
+            ImageVariant variant = imageVariantRepository.findBySourceHashAndVariant(sourceHash, size).orElse(null);
+            Path path = variant != null ? blobStore.locate(variant.getBlobHash()) : null;
+            if (path != null) {
+                BlobStore.Blob source = blobStore.describe(sourceHash);
+                long sourceBytes = source != null ? source.size() : variant.getBytes();
+                return new Image(variant.getBlobHash(), variant.getContentType(), path, variant.getBytes(),
+                        sourceBytes, true);
+            }
+        }
+
+        BlobStore.Blob source = blobStore.describe(sourceHash);
+        if (source == null) {
+            return null;
+        }
+        if (size.isVariant()) {
+            generateVariants(sourceHash);
+        }
+        return new Image(source.hash(), source.contentType(), blobStore.locate(sourceHash), source.size(),
+                source.size(), !size.isVariant());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void generate(String sourceHash) throws IOException {
+        Set<ImageSize> missing = EnumSet.noneOf(ImageSize.class);
+        for (ImageSize size : VARIANTS) {
+            missing.add(size);
+        }
+        imageVariantRepository.findBySourceHash(sourceHash).forEach(v -> missing.remove(v.getVariant()));
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        BlobStore.Blob source = blobStore.describe(sourceHash);
+        if (source == null) {
+            return;
+        }
+        Path path = blobStore.locate(sourceHash);
+        BufferedImage decoded = decode(path);
+        if (decoded == null) {
+            // Format ImageIO can't decode (e.g. WebP) or too large: serve the source for every size
+            for (ImageSize size : missing) {
+                saveVariant(sourceHash, size, source.hash(), source.contentType(), source.size(), null, null);
+            }
+            return;
+        }
+
+        // Largest first, each step scales down from the previous one; only
+        // the first draws from the decoded bitmap, so only it has to turn it
+        int orientation = exifOrientation(path);
+        int sourceWidth = orientation >= 5 ? decoded.getHeight() : decoded.getWidth();
+        int sourceHeight = orientation >= 5 ? decoded.getWidth() : decoded.getHeight();
+        BufferedImage current = decoded;
+        for (ImageSize size : VARIANTS) {
+            current = scale(current, current == decoded ? orientation : 1, size.getMaxEdge());
+            if (!missing.contains(size)) {
+                continue;
+            }
+            byte[] jpeg = encodeJpeg(current);
+            if (jpeg.length < source.size()) {
+                BlobStore.Blob stored = blobStore.store(new ByteArrayInputStream(jpeg));
+                saveVariant(sourceHash, size, stored.hash(), "image/jpeg", stored.size(), current.getWidth(),
+                        current.getHeight());
+                bytesSavedCounter.increment(source.size() - stored.size());
+            } else {
+                // Already small enough, recompressing would only grow it
+                saveVariant(sourceHash, size, source.hash(), source.contentType(), source.size(),
+                        sourceWidth, sourceHeight);
+            }
+            generatedCounter.increment();
+        }
+    }
+
+    private void saveVariant(String sourceHash, ImageSize size, String blobHash, String contentType, long bytes,
+            Integer width, Integer height) {
+        ImageVariant variant = new ImageVariant(null, sourceHash, size, blobHash, contentType, bytes, width, height,
+                null);
+        try {
+            imageVariantRepository.save(variant);
+        } catch (DataIntegrityViolationException e) {
+            // Generated concurrently elsewhere, the stored row is equivalent
+        }
+    }
+
+    // Null when no reader handles the format or the pixel count is over the limit
+    private BufferedImage decode(Path path) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > maxPixels) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * EXIF orientation (1-8) of a JPEG, 1 when it has none or is another
+     * format. Walks the header segments up to the image data.
+     */
+    private static int exifOrientation(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1; // Start of scan: no EXIF segment before the image data
+                }
+                int length = in.readUnsignedShort() - 2;
+                if (marker == 0xFFE1) {
+                    int orientation = orientationTag(in.readNBytes(length));
+                    if (orientation != 0) {
+                        return orientation;
+                    }
+                } else {
+                    in.skipNBytes(length);
+                }
+            }
+        } catch (EOFException e) {
+            return 1;
+        }
+    }
+
+    // Orientation tag of IFD0 in an APP1 segment, 0 when it is not EXIF or has none
+    private static int orientationTag(byte[] segment) {
+        if (segment.length < 14 || segment[0] != 'E' || segment[1] != 'x' || segment[2] != 'i'
+                || segment[3] != 'f') {
+            return 0;
+        }
+        ByteBuffer tiff = ByteBuffer.wrap(segment, 6, segment.length - 6).slice();
+        tiff.order(tiff.get(0) == 'I' ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+        try {
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == 0x0112) {
+                    int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                    return orientation >= 1 && orientation <= 8 ? orientation : 0;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // Truncated or corrupt EXIF, treat as untagged
+        }
+        return 0;
+    }
+
+    // Maps a w x h bitmap stored with this EXIF orientation onto its upright position
+    private static AffineTransform uprightTransform(int orientation, int w, int h) {
+        return switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0); // Mirrored
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h); // Upside down
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h); // Flipped
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0); // Transposed
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0); // Needs 90 degrees clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w); // Transversed
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w); // Needs 90 degrees counter-clockwise
+            default -> new AffineTransform();
+        };
+    }
+
+    /**
+     * Halve until within 2x of the target, then one bilinear step; never
+     * upscales. Unless the image is already an upright RGB bitmap that fits,
+     * the first step draws it turned by its EXIF orientation onto white (JPEG
+     * has no alpha channel), so the source is never copied at full size.
+     */
+    private static BufferedImage scale(BufferedImage image, int orientation, int maxEdge) {
+        boolean turned = orientation >= 5;
+        int uprightWidth = turned ? image.getHeight() : image.getWidth();
+        int uprightHeight = turned ? image.getWidth() : image.getHeight();
+        int longest = Math.max(uprightWidth, uprightHeight);
+        if (longest <= maxEdge && orientation == 1 && image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        double ratio = Math.min(1.0, (double) maxEdge / longest);
+        int targetWidth = Math.max(1, (int) Math.round(uprightWidth * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(uprightHeight * ratio));
+
+        BufferedImage current = image;
+        int width = uprightWidth;
+        int height = uprightHeight;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                if (current == image) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                    AffineTransform transform = AffineTransform.getScaleInstance((double) width / uprightWidth,
+                            (double) height / uprightHeight);
+                    transform.concatenate(uprightTransform(orientation, image.getWidth(), image.getHeight()));
+                    g.drawImage(image, transform, null);
+                } else {
+                    g.drawImage(current, 0, 0, width, height, null);
+                }
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -4,13 +4,22 @@ import com.example.demo.dto.*;
 import com.example.demo.entity.*;
 import com.example.demo.repository.*;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.OrderSummaryService;
+import com.example.demo.service.OutboxService;
+import com.example.demo.service.PantryReservationService;
+import com.example.demo.service.PantryService;
 import com.example.demo.service.TrackingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,11 +41,26 @@ public class OrderServiceImpl implements OrderService {
     private FoodItemRepository foodItemRepository;
 
     @Autowired
-    private TrackingService trackingService; // ✅ ADDED FOR AUTO-TRACKING
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private OutboxService outboxService; // ✅ ADDED FOR AUTO-TRACKING
 
     @Autowired
     private StationRepository stationRepository;
 
+    @Autowired
+    private PantryService pantryService;
+
+    @Autowired
+    private PantryReservationService reservationService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private TrackingService trackingService;
+
     @Override
     @Transactional
     public OrderResponse createOrder(OrderRequest request) {
@@ -44,51 +68,32 @@ public class OrderServiceImpl implements OrderService {
         if (userId == null) {
             throw new RuntimeException("User ID is required");
         }
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-
         Long trainId = request.getTrainId();
         if (trainId == null) {
             throw new RuntimeException("Train ID is required");
         }
-        Train train = trainRepository.findById(trainId)
-                .orElseThrow(() -> new RuntimeException("Train not found"));
-
-        // Validate restaurant (Self-Healing)
         Long restaurantId = request.getRestaurantId();
         if (restaurantId == null)
             throw new RuntimeException("Restaurant ID is required");
-        Restaurant restaurant = restaurantRepository.findById(restaurantId)
-                .orElseGet(() -> {
-                    // Fallback: If ID 999 fails, try finding by Name "IRCTC Pantry"
-                    if (request.getRestaurantId() != null && request.getRestaurantId() == 999L) {
-                        return restaurantRepository.findByName("IRCTC Pantry")
-                                .orElseGet(() -> {
-                                    // 🚨 EMERGENCY CREATION
-                                    System.out.println("⚠️ Pantry missing. Creating ON-THE-FLY.");
-                                    com.example.demo.entity.Station station = stationRepository.findAll().stream()
-                                            .findFirst().orElse(null);
-                                    if (station == null) {
-                                        station = new com.example.demo.entity.Station();
-                                        station.setStationName("IRCTC Virtual Station");
-                                        station.setStationCode("IRCTC");
-                                        station.setLatitude(0.0);
-                                        station.setLongitude(0.0);
-                                        station = stationRepository.save(station);
-                                    }
-                                    Restaurant pantry = new Restaurant();
-                                    pantry.setName("IRCTC Pantry");
-                                    pantry.setDescription("Onboard Train Pantry Service");
-                                    pantry.setCuisine("Pantry");
-                                    pantry.setDeliveryTime("30-45 min");
-                                    pantry.setActive(true);
-                                    pantry.setRating(4.5);
-                                    pantry.setStation(station);
-                                    return restaurantRepository.save(pantry);
-                                });
-                    }
-                    throw new RuntimeException("Restaurant not found with ID: " + request.getRestaurantId());
-                });
+
+        // User, train and restaurant in one round trip; the single lookups
+        // below only run when one of them is missing
+        User user;
+        Train train;
+        Restaurant restaurant;
+        List<Object[]> parties = orderRepository.findOrderParties(userId, trainId, restaurantId);
+        if (!parties.isEmpty()) {
+            Object[] row = parties.get(0);
+            user = (User) row[0];
+            train = (Train) row[1];
+            restaurant = (Restaurant) row[2];
+        } else {
+            user = userRepository.findById(userId)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            train = trainRepository.findById(trainId)
+                    .orElseThrow(() -> new RuntimeException("Train not found"));
+            restaurant = resolveRestaurant(restaurantId);
+        }
 
         // Create order
         Order order = new Order();
@@ -101,17 +106,28 @@ public class OrderServiceImpl implements OrderService {
         order.setDeliveryInstructions(request.getDeliveryInstructions());
         order.setStatus(Order.OrderStatus.PENDING);
 
+        // Resolve every referenced food item in a single query instead of one
+        // findById per line item
+        Map<Long, FoodItem> foodItems = loadFoodItems(request.getItems());
+        boolean pantryOrder = isPantry(restaurant);
+
         // Create order items and calculate total
         List<OrderItem> orderItems = new ArrayList<>();
         double totalAmount = 0.0;
 
         // ✅ FIXED: Use OrderRequest.OrderItemRequest
         for (OrderRequest.OrderItemRequest itemRequest : request.getItems()) {
-            Long foodItemId = itemRequest.getFoodItemId();
-            if (foodItemId == null)
-                throw new RuntimeException("Food Item ID is required");
-            FoodItem foodItem = foodItemRepository.findById(foodItemId)
-                    .orElseThrow(() -> new RuntimeException("Food item not found"));
+            FoodItem foodItem = foodItems.get(itemRequest.getFoodItemId());
+
+            // Pantry orders mix items from several kitchens, everything else must
+            // come from the chosen restaurant
+            if (!pantryOrder && !restaurant.getId().equals(foodItem.getRestaurant().getId())) {
+                throw new RuntimeException("Food item " + foodItem.getId() + " does not belong to restaurant: "
+                        + restaurant.getName());
+            }
+            if (!Boolean.TRUE.equals(foodItem.getAvailable())) {
+                throw new RuntimeException("Food item is not available: " + foodItem.getName());
+            }
 
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -124,7 +140,18 @@ public class OrderServiceImpl implements OrderService {
             totalAmount += orderItem.getSubtotal();
         }
 
-        order.setOrderItems(orderItems);
+        // Pantry stock is taken for the whole cart in one go; if any line runs
+        // short the exception rolls back the other lines and the order
+        Map<Long, Integer> pantryQuantities = new HashMap<>();
+        if (pantryOrder) {
+            for (OrderRequest.OrderItemRequest itemRequest : request.getItems()) {
+                pantryQuantities.merge(itemRequest.getFoodItemId(), itemRequest.getQuantity(), Integer::sum);
+            }
+            if (!reservationService.isEnabled()) {
+                pantryService.deductCartStock(trainId, pantryQuantities);
+            }
+        }
+
         // Add 5% Tax to Total Amount
         double subtotal = totalAmount;
         double tax = subtotal * 0.05;
@@ -134,22 +161,91 @@ public class OrderServiceImpl implements OrderService {
         order.setTaxAmount(tax);
         order.setTotalAmount(subtotal + tax);
 
-        // Save order
+        // Save order, then write all of its items in one JDBC batch
         Order savedOrder = orderRepository.save(order);
+        orderItemRepository.batchInsert(orderItems);
+        savedOrder.getOrderItems().addAll(orderItems);
+        orderSummaryService.orderCreated(savedOrder.getId());
 
-        // ✅ AUTO-CREATE TRACKING RECORD
-        try {
-            trackingService.createTracking(savedOrder.getId());
-            System.out.println("✅ Tracking created for order: " + savedOrder.getId());
-        } catch (Exception e) {
-            System.err.println("⚠️ Failed to create tracking for order " + savedOrder.getId() + ": " + e.getMessage());
+        // With reservations the stock is only held until the order is paid
+        if (pantryOrder && reservationService.isEnabled()) {
+            reservationService.holdCart(savedOrder.getId(), trainId, pantryQuantities);
         }
 
+        // ✅ AUTO-CREATE TRACKING RECORD (via outbox, created by the dispatcher
+        // after this transaction commits)
+        outboxService.publish(OutboxService.ORDER_CREATED, savedOrder.getId(), null);
+
         OrderResponse response = OrderResponse.fromEntity(savedOrder);
+        response.setItems(orderItems.stream()
+                .map(item -> new OrderResponse.OrderItemResponse(
+                        item.getId(),
+                        item.getFoodItem().getName(),
+                        item.getQuantity(),
+                        item.getPrice(),
+                        item.getSubtotal()))
+                .collect(Collectors.toList()));
         populateTrackingInfo(response, savedOrder);
         return response;
     }
 
+    // Pantry orders are placed against the shared "IRCTC Pantry" restaurant
+    private static boolean isPantry(Restaurant restaurant) {
+        return restaurant != null && "IRCTC Pantry".equals(restaurant.getName());
+    }
+
+    // Validate restaurant (Self-Healing)
+    private Restaurant resolveRestaurant(Long restaurantId) {
+        return restaurantRepository.findById(restaurantId)
+                .orElseGet(() -> {
+                    // Fallback: If ID 999 fails, try finding by Name "IRCTC Pantry"
+                    if (restaurantId == 999L) {
+                        return restaurantRepository.findByName("IRCTC Pantry")
+                                .orElseGet(() -> {
+                                    // 🚨 EMERGENCY CREATION
+                                    System.out.println("⚠️ Pantry missing. Creating ON-THE-FLY.");
+                                    com.example.demo.entity.Station station = stationRepository.findAll().stream()
+                                            .findFirst().orElse(null);
+                                    if (station == null) {
+                                        station = new com.example.demo.entity.Station();
+                                        station.setStationName("IRCTC Virtual Station");
+                                        station.setStationCode("IRCTC");
+                                        station.setLatitude(0.0);
+                                        station.setLongitude(0.0);
+                                        station = stationRepository.save(station);
+                                    }
+                                    Restaurant pantry = new Restaurant();
+                                    pantry.setName("IRCTC Pantry");
+                                    pantry.setDescription("Onboard Train Pantry Service");
+                                    pantry.setCuisine("Pantry");
+                                    pantry.setDeliveryTime("30-45 min");
+                                    pantry.setActive(true);
+                                    pantry.setRating(4.5);
+                                    pantry.setStation(station);
+                                    return restaurantRepository.save(pantry);
+                                });
+                    }
+                    throw new RuntimeException("Restaurant not found with ID: " + restaurantId);
+                });
+    }
+
+    private Map<Long, FoodItem> loadFoodItems(List<OrderRequest.OrderItemRequest> items) {
+        Set<Long> foodItemIds = new HashSet<>();
+        for (OrderRequest.OrderItemRequest itemRequest : items) {
+            if (itemRequest.getFoodItemId() == null)
+                throw new RuntimeException("Food Item ID is required");
+            foodItemIds.add(itemRequest.getFoodItemId());
+        }
+
+        Map<Long, FoodItem> foodItems = foodItemRepository.findAllById(foodItemIds).stream()
+                .collect(Collectors.toMap(FoodItem::getId, Function.identity()));
+        if (foodItems.size() != foodItemIds.size()) {
+            foodItemIds.removeAll(foodItems.keySet());
+            throw new RuntimeException("Food item not found: " + foodItemIds);
+        }
+        return foodItems;
+    }
+
     private void populateTrackingInfo(OrderResponse response, Order order) {
         // Tracking info population logic (can be expanded if needed)
     }
@@ -168,17 +264,10 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<OrderResponse> getOrdersByUserId(Long userId) {
+    public OrderPageResponse getOrdersByUserId(Long userId, String cursor, Integer limit) {
         if (userId == null)
-            return new ArrayList<>();
-        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return orders.stream()
-                .map(order -> {
-                    OrderResponse response = OrderResponse.fromEntity(order);
-                    populateTrackingInfo(response, order);
-                    return response;
-                })
-                .collect(Collectors.toList());
+            return new OrderPageResponse(new ArrayList<>(), null);
+        return orderSummaryService.getPageByUserId(userId, cursor, limit);
     }
 
     @Override
@@ -194,6 +283,7 @@ public class OrderServiceImpl implements OrderService {
             throw new RuntimeException("ID is required");
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
+        Order.OrderStatus previousStatus = order.getStatus();
 
         // OTP Logic
         if (status == Order.OrderStatus.OUT_FOR_DELIVERY) {
@@ -209,6 +299,18 @@ public class OrderServiceImpl implements OrderService {
 
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
+        orderSummaryService.statusChanged(updatedOrder);
+        trackingService.syncOrderStatus(id, status);
+
+        // Held pantry stock is sold once the order moves on, or given back on cancel.
+        // Only pending pantry orders can have a hold, skip the reservation log otherwise
+        if (previousStatus == Order.OrderStatus.PENDING && isPantry(updatedOrder.getRestaurant())) {
+            if (status == Order.OrderStatus.CANCELLED) {
+                reservationService.releaseOrder(id);
+            } else if (status != Order.OrderStatus.PENDING) {
+                reservationService.confirmOrder(id);
+            }
+        }
         OrderResponse response = OrderResponse.fromEntity(updatedOrder);
         populateTrackingInfo(response, updatedOrder);
         return response;
@@ -216,29 +318,20 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<OrderResponse> getAllOrders() {
-        List<Order> orders = orderRepository.findAll();
-        return orders.stream()
-                .map(order -> {
-                    OrderResponse response = OrderResponse.fromEntity(order);
-                    populateTrackingInfo(response, order);
-                    return response;
-                })
-                .collect(Collectors.toList());
+    public OrderPageResponse getAllOrders(Order.OrderStatus status, String cursor, Integer limit) {
+        return orderSummaryService.getPage(status, cursor, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<OrderResponse> getOrdersByOwnerId(Long ownerId) {
+    public OrderPageResponse getOrdersByOwnerId(Long ownerId, String cursor, Integer limit) {
         if (ownerId == null)
-            return new ArrayList<>();
-        List<Order> orders = orderRepository.findByRestaurantOwnerIdOrderByCreatedAtDesc(ownerId);
-        return orders.stream()
-                .map(order -> {
-                    OrderResponse response = OrderResponse.fromEntity(order);
-                    populateTrackingInfo(response, order);
-                    return response;
-                })
-                .collect(Collectors.toList());
+            return new OrderPageResponse(new ArrayList<>(), null);
+        return orderSummaryService.getPageByOwnerId(ownerId, cursor, limit);
+    }
+
+    @Override
+    public VendorOrderStatsResponse getVendorStats(Long ownerId) {
+        return orderSummaryService.getStatsByOwnerId(ownerId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.exception.StreamLimitException;
+import com.example.demo.service.OrderStreamService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Vendor dashboard streams, one topic per restaurant owner. Replaces
+ * polling of /api/orders/vendor/my-orders: the dashboard loads the list
+ * once and then applies order-created and order-status events.
+ */
+@Service
+public class OrderStreamServiceImpl implements OrderStreamService {
+
+    private final SseEventHub<Long> hub;
+
+    @Value("${orders.stream.idle-topic-ms:3600000}")
+    private long idleTopicMillis;
+
+    public OrderStreamServiceImpl(@Value("${orders.stream.workers:4}") int workers,
+            @Value("${orders.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${orders.stream.write-timeout-ms:10000}") long writeTimeoutMillis,
+            @Value("${orders.stream.max-subscribers:10000}") int maxSubscribers,
+            @Value("${orders.stream.replay-size:200}") int replaySize,
+            @Value("${orders.stream.queue-capacity:256}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        this.hub = new SseEventHub<>("orders", workers, timeoutMillis, writeTimeoutMillis, maxSubscribers,
+                replaySize, queueCapacity, meterRegistry);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long ownerId, String lastEventId) {
+        SseEmitter emitter = hub.subscribe(ownerId, lastEventId);
+        if (emitter == null) {
+            throw new StreamLimitException("Too many live order streams, please fall back to refreshing");
+        }
+        return emitter;
+    }
+
+    @Override
+    public void publishAfterCommit(Long ownerId, String eventName, Object payload) {
+        if (ownerId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            hub.publish(ownerId, eventName, payload);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                hub.publish(ownerId, eventName, payload);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${orders.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        hub.heartbeat(idleTopicMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.shutdown();
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.OrderPageResponse;
+import com.example.demo.dto.OrderResponse;
+import com.example.demo.dto.OrderStatusEvent;
+import com.example.demo.dto.ReviewResponse;
+import com.example.demo.dto.VendorOrderStatsResponse;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderSummary;
+import com.example.demo.entity.Review;
+import com.example.demo.entity.User;
+import com.example.demo.repository.OrderItemRepository;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.OrderSummaryRepository;
+import com.example.demo.repository.ReviewRepository;
+import com.example.demo.service.OrderStreamService;
+import com.example.demo.service.OrderSummaryService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps order_summary in step with orders and serves the order lists from
+ * it. Pages are keyset ranges on (createdAt, orderId) over the owner, user
+ * or status index, so a page costs the same on the first order as on the
+ * millionth. Vendor totals are aggregates over the owner index rather than
+ * sums over a list, so they stay right however many pages a vendor has.
+ */
+@Service
+public class OrderSummaryServiceImpl implements OrderSummaryService {
+
+    private static final TypeReference<List<OrderResponse.OrderItemResponse>> ITEM_LIST = new TypeReference<>() {
+    };
+
+    // Cursor of the first page: after every order that can exist
+    private static final LocalDateTime FIRST_PAGE_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+    // Lower bound of the all-time totals: before every order that can exist
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderStreamService orderStreamService;
+
+    @Value("${orders.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${orders.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${order.summary.backfill-batch-size:500}")
+    private int backfillBatchSize;
+
+    private interface PageQuery {
+        List<OrderSummary> fetch(LocalDateTime createdAt, Long orderId, Pageable pageable);
+    }
+
+    @Override
+    @Transactional
+    public void orderCreated(Long orderId) {
+        for (OrderSummary summary : rebuild(orderId)) {
+            orderStreamService.publishAfterCommit(summary.getOwnerId(), OrderStreamService.ORDER_CREATED,
+                    toResponse(summary));
+        }
+    }
+
+    @Override
+    @Transactional
+    public void statusChanged(Order order) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderSummaryRepository.updateStatus(order.getId(), order.getStatus(), order.getDeliveryOtp(),
+                now);
+        if (updated == 0) {
+            // Not backfilled yet
+            rebuild(order.getId());
+        }
+        User owner = order.getRestaurant().getOwner();
+        if (owner != null) {
+            orderStreamService.publishAfterCommit(owner.getId(), OrderStreamService.ORDER_STATUS,
+                    new OrderStatusEvent(order.getId(), order.getStatus().name(), now));
+        }
+    }
+
+    private List<OrderSummary> rebuild(Long orderId) {
+        List<OrderSummary> summaries = build(orderRepository.findSummaryRow(orderId));
+        orderSummaryRepository.saveAll(summaries);
+        return summaries;
+    }
+
+    @Override
+    @Transactional
+    public void reviewAdded(Review review) {
+        orderSummaryRepository.updateReview(review.getOrder().getId(), review.getId(), review.getRating(),
+                review.getComment(), review.getCreatedAt());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getPageByUserId(Long userId, String cursor, Integer limit) {
+        return loadPage(cursor, limit,
+                (createdAt, orderId, page) -> orderSummaryRepository.findPageByUserId(userId, createdAt, orderId, page));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getPageByOwnerId(Long ownerId, String cursor, Integer limit) {
+        return loadPage(cursor, limit,
+                (createdAt, orderId, page) -> orderSummaryRepository.findPageByOwnerId(ownerId, createdAt, orderId,
+                        page));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getPage(Order.OrderStatus status, String cursor, Integer limit) {
+        if (status == null) {
+            return loadPage(cursor, limit, orderSummaryRepository::findPage);
+        }
+        return loadPage(cursor, limit,
+                (createdAt, orderId, page) -> orderSummaryRepository.findPageByStatus(status, createdAt, orderId,
+                        page));
+    }
+
+    // Three range scans on the owner index, the dashboard never pulls the orders themselves
+    @Override
+    @Transactional(readOnly = true)
+    public VendorOrderStatsResponse getStatsByOwnerId(Long ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> ordersByStatus = new LinkedHashMap<>();
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            ordersByStatus.put(status.name(), 0L);
+        }
+
+        VendorOrderStatsResponse stats = new VendorOrderStatsResponse();
+        for (Object[] row : orderSummaryRepository.sumByStatusForOwner(ownerId, ALL_TIME)) {
+            Order.OrderStatus status = (Order.OrderStatus) row[0];
+            long count = ((Number) row[1]).longValue();
+            ordersByStatus.put(status.name(), count);
+            stats.setTotalOrders(stats.getTotalOrders() + count);
+            if (status == Order.OrderStatus.DELIVERED) {
+                stats.setTotalRevenue(amount(row));
+            }
+        }
+        stats.setOrdersByStatus(ordersByStatus);
+
+        for (Object[] row : orderSummaryRepository.sumByStatusForOwner(ownerId, now.toLocalDate().atStartOfDay())) {
+            stats.setTodayOrders(stats.getTodayOrders() + ((Number) row[1]).longValue());
+            if (row[0] != Order.OrderStatus.CANCELLED) {
+                stats.setTodayRevenue(stats.getTodayRevenue() + amount(row));
+            }
+        }
+        for (Object[] row : orderSummaryRepository.sumByStatusForOwner(ownerId, now.minusDays(30))) {
+            if (row[0] != Order.OrderStatus.CANCELLED) {
+                stats.setMonthRevenue(stats.getMonthRevenue() + amount(row));
+            }
+        }
+        return stats;
+    }
+
+    private static double amount(Object[] row) {
+        return row[2] == null ? 0.0 : ((Number) row[2]).doubleValue();
+    }
+
+    /**
+     * Summaries for orders placed before the table existed, in id batches of
+     * their own transaction. Orders that already have one are skipped, so an
+     * interrupted run just continues on the next start.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public int backfill() {
+        int written = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<OrderSummary> batch = transactionTemplate.execute(status -> {
+                List<OrderSummary> summaries = build(
+                        orderRepository.findSummaryRowsMissingAfter(from, PageRequest.of(0, backfillBatchSize)));
+                orderSummaryRepository.saveAll(summaries);
+                return summaries;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            written += batch.size();
+            afterId = batch.get(batch.size() - 1).getOrderId();
+        }
+        if (written > 0) {
+            System.out.println("📋 Order summary backfill wrote " + written + " orders");
+        }
+        return written;
+    }
+
+    // Summary rows with their items and reviews, two queries for the whole batch
+    private List<OrderSummary> build(List<Object[]> rows) {
+        Map<Long, OrderSummary> summaries = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            OrderSummary summary = new OrderSummary();
+            summary.setOrderId((Long) row[0]);
+            summary.setUserId((Long) row[1]);
+            summary.setUsername((String) row[2]);
+            summary.setUserFullName((String) row[3]);
+            summary.setUserPhoneNumber((String) row[4]);
+            summary.setTrainNumber((String) row[5]);
+            summary.setTrainName((String) row[6]);
+            summary.setRestaurantId((Long) row[7]);
+            summary.setRestaurantName((String) row[8]);
+            summary.setOwnerId((Long) row[9]);
+            summary.setPnrNumber((String) row[10]);
+            summary.setSeatNumber((String) row[11]);
+            summary.setCoachNumber((String) row[12]);
+            summary.setSubtotal((Double) row[13]);
+            summary.setTaxAmount((Double) row[14]);
+            summary.setTotalAmount((Double) row[15]);
+            summary.setStatus((Order.OrderStatus) row[16]);
+            summary.setDeliveryInstructions((String) row[17]);
+            summary.setDeliveryOtp((String) row[18]);
+            summary.setCreatedAt((LocalDateTime) row[19]);
+            summary.setUpdatedAt((LocalDateTime) row[20]);
+            summaries.put(summary.getOrderId(), summary);
+        }
+        if (summaries.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, List<OrderResponse.OrderItemResponse>> items = new HashMap<>();
+        for (Object[] item : orderItemRepository.findRowsByOrderIds(summaries.keySet())) {
+            items.computeIfAbsent((Long) item[0], id -> new ArrayList<>()).add(new OrderResponse.OrderItemResponse(
+                    (Long) item[1], (String) item[2], (Integer) item[3], (Double) item[4], (Double) item[5]));
+        }
+        for (Object[] review : reviewRepository.findRowsByOrderIds(summaries.keySet())) {
+            ReviewResponse response = ReviewResponse.fromRow(review);
+            OrderSummary summary = summaries.get(response.getOrderId());
+            summary.setReviewId(response.getId());
+            summary.setReviewRating(response.getRating());
+            summary.setReviewComment(response.getComment());
+            summary.setReviewCreatedAt(response.getCreatedAt());
+        }
+        for (OrderSummary summary : summaries.values()) {
+            summary.setItemsJson(writeItems(items.getOrDefault(summary.getOrderId(), new ArrayList<>())));
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
+    private OrderPageResponse loadPage(String cursor, Integer limit, PageQuery query) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        LocalDateTime createdAt = FIRST_PAGE_CREATED_AT;
+        Long orderId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = decoded.split("_", 2);
+                createdAt = LocalDateTime.parse(parts[0]);
+                orderId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+
+        // One extra row tells whether another page follows
+        List<OrderSummary> summaries = query.fetch(createdAt, orderId, PageRequest.of(0, size + 1));
+        boolean hasMore = summaries.size() > size;
+        if (hasMore) {
+            summaries = summaries.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            OrderSummary last = summaries.get(summaries.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreatedAt() + "_" + last.getOrderId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new OrderPageResponse(toResponses(summaries), nextCursor);
+    }
+
+    private List<OrderResponse> toResponses(List<OrderSummary> summaries) {
+        List<OrderResponse> orders = new ArrayList<>(summaries.size());
+        for (OrderSummary summary : summaries) {
+            orders.add(toResponse(summary));
+        }
+        return orders;
+    }
+
+    private OrderResponse toResponse(OrderSummary summary) {
+        OrderResponse response = new OrderResponse();
+        response.setId(summary.getOrderId());
+        response.setUserId(summary.getUserId());
+        response.setUsername(summary.getUsername());
+        response.setUserFullName(summary.getUserFullName());
+        response.setUserPhoneNumber(summary.getUserPhoneNumber());
+        response.setTrainNumber(summary.getTrainNumber());
+        response.setTrainName(summary.getTrainName());
+        response.setRestaurantName(summary.getRestaurantName());
+        response.setPnrNumber(summary.getPnrNumber());
+        response.setSeatNumber(summary.getSeatNumber());
+        response.setCoachNumber(summary.getCoachNumber());
+        response.setSubtotal(summary.getSubtotal());
+        response.setTaxAmount(summary.getTaxAmount());
+        response.setTotalAmount(summary.getTotalAmount());
+        response.setStatus(summary.getStatus().name());
+        response.setDeliveryInstructions(summary.getDeliveryInstructions());
+        response.setDeliveryOtp(summary.getDeliveryOtp());
+        response.setCreatedAt(summary.getCreatedAt());
+        response.setUpdatedAt(summary.getUpdatedAt());
+        response.setItems(readItems(summary.getItemsJson()));
+        if (summary.getReviewId() != null) {
+            response.setReview(new ReviewResponse(summary.getReviewId(), summary.getUserId(), summary.getUsername(),
+                    summary.getRestaurantId(), summary.getRestaurantName(), summary.getOrderId(),
+                    summary.getReviewRating(), summary.getReviewComment(), summary.getReviewCreatedAt()));
+        }
+        return response;
+    }
+
+    private String writeItems(List<OrderResponse.OrderItemResponse> items) {
+        try {
+            return objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize order items: " + e.getMessage());
+        }
+    }
+
+    private List<OrderResponse.OrderItemResponse> readItems(String json) {
+        if (json == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return objectMapper.readValue(json, ITEM_LIST);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to read order items: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.entity.OutboxStatus;
+import com.example.demo.repository.OutboxEventRepository;
+import com.example.demo.service.OutboxEventHandler;
+import com.example.demo.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Value("${outbox.dispatch.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.dispatch.max-attempts:10}")
+    private int maxAttempts;
+
+    private final Map<String, OutboxEventHandler> handlers;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer lagTimer;
+    private final Counter processedCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final AtomicLong pendingGauge = new AtomicLong();
+
+    public OutboxServiceImpl(List<OutboxEventHandler> handlers, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.handlers = handlers.stream()
+                .collect(Collectors.toMap(OutboxEventHandler::getEventType, Function.identity()));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+
+        this.lagTimer = Timer.builder("outbox.dispatch.lag")
+                .description("Time between an outbox event being recorded and being handled")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.processedCounter = meterRegistry.counter("outbox.dispatch.processed");
+        this.retryCounter = meterRegistry.counter("outbox.dispatch.retried");
+        this.failedCounter = meterRegistry.counter("outbox.dispatch.failed");
+        meterRegistry.gauge("outbox.pending", pendingGauge);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String eventType, Long aggregateId, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setAggregateId(aggregateId);
+        event.setPayload(payload);
+        event.setStatus(OutboxStatus.PENDING);
+        event.setAvailableAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${outbox.dispatch.interval-ms:500}")
+    public int dispatchPending() {
+        List<Long> dueIds = outboxEventRepository.findDueEventIds(LocalDateTime.now(),
+                PageRequest.of(0, batchSize));
+
+        int handled = 0;
+        if (!dueIds.isEmpty()) {
+            Integer batch = dispatchBatch(dueIds);
+            if (batch != null) {
+                handled = batch;
+            } else {
+                // Something in the batch failed and it was rolled back: retry one event per
+                // transaction so the failure is recorded against that event only
+                for (Long id : dueIds) {
+                    if (dispatch(id)) {
+                        handled++;
+                    }
+                }
+            }
+        }
+
+        pendingGauge.set(outboxEventRepository.countByStatus(OutboxStatus.PENDING));
+        return handled;
+    }
+
+    // The whole batch in one transaction, null when any event failed
+    private Integer dispatchBatch(List<Long> eventIds) {
+        List<Duration> lags = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                for (OutboxEvent event : outboxEventRepository.findAllById(eventIds)) {
+                    if (event.getStatus() == OutboxStatus.PENDING) {
+                        lags.add(handle(event, now));
+                    }
+                }
+            });
+        } catch (Exception e) {
+            return null;
+        }
+        lags.forEach(lagTimer::record);
+        processedCounter.increment(lags.size());
+        return lags.size();
+    }
+
+    private boolean dispatch(Long eventId) {
+        try {
+            Duration lag = transactionTemplate.execute(status -> {
+                OutboxEvent event = outboxEventRepository.findById(eventId).orElse(null);
+                if (event == null || event.getStatus() != OutboxStatus.PENDING) {
+                    return null;
+                }
+                return handle(event, LocalDateTime.now());
+            });
+            if (lag == null) {
+                return false;
+            }
+            lagTimer.record(lag);
+            processedCounter.increment();
+            return true;
+        } catch (Exception e) {
+            recordFailure(eventId, e);
+            return false;
+        }
+    }
+
+    // Runs the handler and marks the event processed; returns how long it waited
+    private Duration handle(OutboxEvent event, LocalDateTime now) {
+        OutboxEventHandler handler = handlers.get(event.getEventType());
+        if (handler == null) {
+            throw new RuntimeException("No outbox handler for event type: " + event.getEventType());
+        }
+        handler.handle(event);
+
+        event.setStatus(OutboxStatus.PROCESSED);
+        event.setProcessedAt(now);
+        event.setAttempts(event.getAttempts() + 1);
+        outboxEventRepository.save(event);
+        return Duration.between(event.getCreatedAt(), now);
+    }
+
+    private void recordFailure(Long eventId, Exception cause) {
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(eventId).ifPresent(event -> {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(cause.getMessage());
+
+            if (attempts >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+                failedCounter.increment();
+                System.err.println("⚠️ Outbox event " + eventId + " failed permanently: " + cause.getMessage());
+            } else {
+                // Exponential backoff capped at 5 minutes
+                long delaySeconds = Math.min(300, 1L << Math.min(attempts, 8));
+                event.setAvailableAt(LocalDateTime.now().plusSeconds(delaySeconds));
+                retryCounter.increment();
+            }
+            outboxEventRepository.save(event);
+        }));
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.PantryInventoryResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cached pantry menus, one entry per train plus one for the combined menu
+ * of all trains. An entry holds what rarely changes (which pantries stock
+ * which food items, with their names, prices and images) and is evicted by
+ * PantryService and food item changes only when that does.
+ *
+ * Stock levels change with every order, so they are cached apart, per
+ * pantry, and laid over the menu on each read. A deduction only drops the
+ * stock of the pantries it touched; reloading it is one query on
+ * pantry_inventory, the menu itself stays cached.
+ */
+@Component
+public class PantryMenuCache {
+
+    // Key of the combined menu, train ids are always positive
+    private static final Long ALL_TRAINS = -1L;
+
+    private final Map<Long, List<PantryInventoryResponse>> menus = new ConcurrentHashMap<>();
+    private final Map<Long, Map<Long, Stock>> stockByPantry = new ConcurrentHashMap<>();
+    // Bumped on every eviction, a load that raced with one is returned but not cached
+    private final AtomicLong menuEvictions = new AtomicLong();
+    private final AtomicLong stockEvictions = new AtomicLong();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    // Stock columns of one inventory row
+    private record Stock(Integer currentStock, Integer minStockLevel, Integer maxStockLevel,
+            LocalDateTime lastUpdated) {
+    }
+
+    public PantryMenuCache(MeterRegistry meterRegistry) {
+        this.hitCounter = meterRegistry.counter("pantry.menu_cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("pantry.menu_cache.requests", "result", "miss");
+    }
+
+    /**
+     * stockLoader gets pantry ids and returns rows of
+     * {inventoryId, pantryId, currentStock, minStockLevel, maxStockLevel, lastUpdated}.
+     */
+    public List<PantryInventoryResponse> getTrainMenu(Long trainId, Supplier<List<PantryInventoryResponse>> loader,
+            Function<Collection<Long>, List<Object[]>> stockLoader) {
+        return withStock(get(trainId, loader), stockLoader);
+    }
+
+    public List<PantryInventoryResponse> getAllMenu(Supplier<List<PantryInventoryResponse>> loader,
+            Function<Collection<Long>, List<Object[]>> stockLoader) {
+        return withStock(get(ALL_TRAINS, loader), stockLoader);
+    }
+
+    // Drop the menu of one train (and the combined menu)
+    public void evictTrain(Long trainId) {
+        evict(menuEvictions, () -> {
+            if (trainId != null) {
+                menus.remove(trainId);
+            }
+            menus.remove(ALL_TRAINS);
+        });
+    }
+
+    // Drop the menus that show this food item
+    public void evictFoodItem(Long foodItemId) {
+        if (foodItemId == null) {
+            return;
+        }
+        evict(menuEvictions, () -> menus.values().removeIf(menu -> menu.stream()
+                .anyMatch(item -> foodItemId.equals(item.getFoodItemId()))));
+    }
+
+    // Drop the cached stock of these pantries, menus stay cached
+    public void evictStock(Collection<Long> pantryIds) {
+        List<Long> ids = List.copyOf(pantryIds);
+        evict(stockEvictions, () -> stockByPantry.keySet().removeAll(ids));
+    }
+
+    public void evictStock(Long pantryId) {
+        if (pantryId != null) {
+            evictStock(List.of(pantryId));
+        }
+    }
+
+    private List<PantryInventoryResponse> get(Long key, Supplier<List<PantryInventoryResponse>> loader) {
+        List<PantryInventoryResponse> menu = menus.get(key);
+        if (menu != null) {
+            hitCounter.increment();
+            return menu;
+        }
+        missCounter.increment();
+        long generation = menuEvictions.get();
+        menu = Collections.unmodifiableList(loader.get());
+        if (menuEvictions.get() == generation) {
+            menus.put(key, menu);
+        }
+        return menu;
+    }
+
+    // Copies of the menu rows carrying the current stock
+    private List<PantryInventoryResponse> withStock(List<PantryInventoryResponse> menu,
+            Function<Collection<Long>, List<Object[]>> stockLoader) {
+        Map<Long, Map<Long, Stock>> stock = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (PantryInventoryResponse item : menu) {
+            Long pantryId = item.getPantryId();
+            if (!stock.containsKey(pantryId)) {
+                Map<Long, Stock> cached = stockByPantry.get(pantryId);
+                if (cached != null) {
+                    stock.put(pantryId, cached);
+                } else {
+                    missing.add(pantryId);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            stock.putAll(loadStock(missing, stockLoader));
+        }
+
+        List<PantryInventoryResponse> result = new ArrayList<>(menu.size());
+        for (PantryInventoryResponse item : menu) {
+            Stock current = stock.getOrDefault(item.getPantryId(), Map.of()).get(item.getId());
+            if (current == null) {
+                // Row added after the stock was cached, the menu load is the fresher copy
+                result.add(item);
+                continue;
+            }
+            result.add(new PantryInventoryResponse(item.getId(), item.getPantryId(), item.getFoodItemId(),
+                    item.getFoodItemName(), item.getFoodItemCategory(), item.getFoodItemPrice(), item.getImageUrl(),
+                    current.currentStock(), current.minStockLevel(), current.maxStockLevel(),
+                    current.currentStock() <= current.minStockLevel(), current.lastUpdated()));
+        }
+        return result;
+    }
+
+    private Map<Long, Map<Long, Stock>> loadStock(Set<Long> pantryIds,
+            Function<Collection<Long>, List<Object[]>> stockLoader) {
+        long generation = stockEvictions.get();
+        Map<Long, Map<Long, Stock>> loaded = new HashMap<>();
+        for (Long pantryId : pantryIds) {
+            loaded.put(pantryId, new HashMap<>());
+        }
+        for (Object[] row : stockLoader.apply(pantryIds)) {
+            loaded.get((Long) row[1]).put((Long) row[0],
+                    new Stock((Integer) row[2], (Integer) row[3], (Integer) row[4], (LocalDateTime) row[5]));
+        }
+        if (stockEvictions.get() == generation) {
+            stockByPantry.putAll(loaded);
+        }
+        return loaded;
+    }
+
+    private void evict(AtomicLong evictions, Runnable eviction) {
+        evictions.incrementAndGet();
+        eviction.run();
+        // Evict again once the change is committed, so a menu or stock loaded
+        // by a concurrent request before the commit does not stay cached
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictions.incrementAndGet();
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.entity.Pantry;
+import com.example.demo.entity.PantryInventory;
+import com.example.demo.entity.PantryReservationLog;
+import com.example.demo.entity.ReservationLogType;
+import com.example.demo.repository.PantryInventoryRepository;
+import com.example.demo.repository.PantryRepository;
+import com.example.demo.repository.PantryReservationLogRepository;
+import com.example.demo.service.PantryReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Pantry stock reservations kept in memory. Carts take stock from per-line
+ * atomic counters instead of locking pantry_inventory rows; confirmed
+ * deductions are written back to the database in periodic batches.
+ * <p>
+ * Every hold, confirmation and release is appended to pantry_reservation_log
+ * in the caller's transaction, so the counters can be rebuilt after a restart.
+ * The counters live in this JVM only: run a single instance while this is
+ * enabled. It is off unless pantry.reservation.enabled is set, orders then
+ * take their stock with PantryService's conditional UPDATEs.
+ */
+@Service
+public class PantryReservationServiceImpl implements PantryReservationService {
+
+    @Autowired
+    private PantryRepository pantryRepository;
+
+    @Autowired
+    private PantryInventoryRepository pantryInventoryRepository;
+
+    @Autowired
+    private PantryReservationLogRepository reservationLogRepository;
+
+    @Autowired
+    private PantryMenuCache pantryMenuCache;
+
+    @Value("${pantry.reservation.enabled:false}")
+    private boolean enabled;
+
+    @Value("${pantry.reservation.hold-ttl-seconds:900}")
+    private long holdTtlSeconds;
+
+    private final Map<StockKey, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Long, OrderHold> holds = new ConcurrentHashMap<>();
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter grantedCounter;
+    private final Counter rejectedCounter;
+    private final Counter confirmedCounter;
+    private final Counter expiredCounter;
+    private final Counter flushedCounter;
+
+    public PantryReservationServiceImpl(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionTemplate.PROPAGATION_REQUIRES_NEW);
+
+        this.grantedCounter = meterRegistry.counter("pantry.reservation.holds", "result", "granted");
+        this.rejectedCounter = meterRegistry.counter("pantry.reservation.holds", "result", "rejected");
+        this.confirmedCounter = meterRegistry.counter("pantry.reservation.confirmed");
+        this.expiredCounter = meterRegistry.counter("pantry.reservation.expired");
+        this.flushedCounter = meterRegistry.counter("pantry.reservation.flushed.units");
+        meterRegistry.gauge("pantry.reservation.open_holds", holds, Map::size);
+        meterRegistry.gauge("pantry.reservation.pending.units", counters,
+                c -> c.values().stream().mapToInt(counter -> counter.pending.get()).sum());
+    }
+
+    // Rebuild unflushed deductions and open holds from the log; available
+    // stock is read from the database when a line is first used
+    @PostConstruct
+    public void recover() {
+        if (!enabled)
+            return;
+
+        for (Object[] row : reservationLogRepository.sumUnflushedDeductions()) {
+            int pending = ((Number) row[2]).intValue();
+            if (pending > 0) {
+                counter(new StockKey((Long) row[0], (Long) row[1])).pending.addAndGet(pending);
+            }
+        }
+
+        Map<Long, List<PantryReservationLog>> openHolds = reservationLogRepository.findOpenHolds().stream()
+                .collect(Collectors.groupingBy(PantryReservationLog::getOrderId));
+        openHolds.forEach((orderId, rows) -> {
+            List<HoldLine> lines = new ArrayList<>();
+            for (PantryReservationLog row : rows) {
+                HoldLine line = new HoldLine(new StockKey(row.getPantryId(), row.getFoodItemId()), row.getQuantity());
+                counter(line.key()).held.addAndGet(line.quantity());
+                lines.add(line);
+            }
+            holds.put(orderId, new OrderHold(orderId, lines, rows.get(0).getExpiresAt()));
+        });
+
+        if (!openHolds.isEmpty() || !counters.isEmpty()) {
+            System.out.println("📦 Recovered " + openHolds.size() + " pantry holds and "
+                    + counters.size() + " stock lines from the reservation log");
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    @Transactional
+    public void holdCart(Long orderId, Long trainId, Map<Long, Integer> quantities) {
+        if (trainId == null || quantities.isEmpty())
+            return;
+
+        List<Long> pantryIds = pantryRepository.findByTrainIdAndActiveTrue(trainId).stream()
+                .map(Pantry::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        if (pantryIds.isEmpty()) {
+            // Train without a managed pantry, nothing to hold
+            return;
+        }
+
+        Map<Long, PantryInventory> inventoryByFoodItem = PantryServiceImpl.pickInventory(pantryIds,
+                pantryInventoryRepository.findByPantryIdInAndFoodItemIdIn(pantryIds, quantities.keySet()));
+        List<Map.Entry<Long, Integer>> cartLines = PantryServiceImpl.sortedCartLines(quantities,
+                inventoryByFoodItem);
+
+        List<HoldLine> acquired = new ArrayList<>();
+        for (Map.Entry<Long, Integer> cartLine : cartLines) {
+            PantryInventory inventory = inventoryByFoodItem.get(cartLine.getKey());
+            HoldLine line = new HoldLine(new StockKey(inventory.getPantry().getId(), cartLine.getKey()),
+                    cartLine.getValue());
+            StockCounter counter = loadedCounter(line.key());
+            if (!counter.tryHold(line.quantity())) {
+                acquired.forEach(this::releaseLine);
+                rejectedCounter.increment();
+                throw new RuntimeException("Insufficient stock for " + inventory.getFoodItem().getName()
+                        + ". Available: " + Math.max(counter.available.get(), 0)
+                        + ", Required: " + line.quantity());
+            }
+            acquired.add(line);
+        }
+
+        // The order becomes visible to confirm/expire only once it is committed
+        OrderHold hold = new OrderHold(orderId, acquired, LocalDateTime.now().plusSeconds(holdTtlSeconds));
+        afterCompletion(committed -> {
+            if (committed) {
+                holds.put(orderId, hold);
+            } else {
+                acquired.forEach(this::releaseLine);
+            }
+        });
+        reservationLogRepository.saveAll(logRows(hold, ReservationLogType.HOLD));
+        grantedCounter.increment();
+    }
+
+    @Override
+    @Transactional
+    public void confirmOrder(Long orderId) {
+        if (!enabled || orderId == null)
+            return;
+
+        OrderHold hold = holds.remove(orderId);
+        if (hold == null) {
+            hold = reacquireExpiredHold(orderId);
+            if (hold == null)
+                return;
+        }
+
+        OrderHold claimed = hold;
+        afterCompletion(committed -> {
+            if (committed) {
+                for (HoldLine line : claimed.lines()) {
+                    StockCounter counter = counter(line.key());
+                    counter.held.addAndGet(-line.quantity());
+                    counter.pending.addAndGet(line.quantity());
+                }
+                confirmedCounter.increment();
+            } else {
+                holds.put(orderId, claimed);
+            }
+        });
+        reservationLogRepository.saveAll(logRows(claimed, ReservationLogType.CONFIRM));
+    }
+
+    @Override
+    @Transactional
+    public void releaseOrder(Long orderId) {
+        if (!enabled || orderId == null)
+            return;
+
+        OrderHold hold = holds.remove(orderId);
+        if (hold == null)
+            return;
+
+        afterCompletion(committed -> {
+            if (committed) {
+                hold.lines().forEach(this::releaseLine);
+            } else {
+                holds.put(orderId, hold);
+            }
+        });
+        reservationLogRepository.saveAll(logRows(hold, ReservationLogType.RELEASE));
+    }
+
+    @Override
+    public void invalidate(Long pantryId, Long foodItemId) {
+        if (!enabled || pantryId == null || foodItemId == null)
+            return;
+
+        StockCounter counter = counters.get(new StockKey(pantryId, foodItemId));
+        if (counter == null)
+            return;
+        afterCompletion(committed -> counter.loaded = false);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${pantry.reservation.expiry-check-ms:5000}")
+    public int expireHolds() {
+        if (!enabled || holds.isEmpty())
+            return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        int expired = 0;
+        for (OrderHold hold : holds.values()) {
+            if (hold.expiresAt().isAfter(now) || !holds.remove(hold.orderId(), hold))
+                continue;
+            try {
+                transactionTemplate.executeWithoutResult(
+                        status -> reservationLogRepository.saveAll(logRows(hold, ReservationLogType.EXPIRE)));
+            } catch (RuntimeException e) {
+                holds.put(hold.orderId(), hold);
+                System.err.println("❌ Failed to expire pantry hold of order " + hold.orderId() + ": "
+                        + e.getMessage());
+                continue;
+            }
+            hold.lines().forEach(this::releaseLine);
+            expiredCounter.increment();
+            expired++;
+        }
+        return expired;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${pantry.reservation.flush-interval-ms:2000}")
+    public int flush() {
+        if (!enabled)
+            return 0;
+
+        int flushed = 0;
+        Set<Long> flushedPantries = new HashSet<>();
+        for (Map.Entry<StockKey, StockCounter> entry : counters.entrySet()) {
+            StockKey key = entry.getKey();
+            StockCounter counter = entry.getValue();
+            if (counter.pending.get() <= 0)
+                continue;
+
+            // The row, the log and base move together, a concurrent reload
+            // never sees the database ahead of the counter
+            synchronized (counter) {
+                int deduction = counter.pending.get();
+                if (deduction <= 0)
+                    continue;
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        pantryInventoryRepository.applyDeduction(key.pantryId(), key.foodItemId(), deduction,
+                                LocalDateTime.now());
+                        reservationLogRepository.save(new PantryReservationLog(ReservationLogType.FLUSH, null,
+                                key.pantryId(), key.foodItemId(), deduction, null));
+                    });
+                } catch (RuntimeException e) {
+                    System.err.println("❌ Failed to flush pantry stock for pantry " + key.pantryId()
+                            + ", item " + key.foodItemId() + ": " + e.getMessage());
+                    continue;
+                }
+                counter.pending.addAndGet(-deduction);
+                counter.base -= deduction;
+                flushed += deduction;
+                flushedPantries.add(key.pantryId());
+            }
+        }
+
+        if (flushed > 0) {
+            flushedCounter.increment(flushed);
+            pantryMenuCache.evictStock(flushedPantries);
+        }
+        return flushed;
+    }
+
+    private OrderHold reacquireExpiredHold(Long orderId) {
+        List<PantryReservationLog> rows = reservationLogRepository.findByOrderIdAndType(orderId,
+                ReservationLogType.HOLD);
+        if (rows.isEmpty()
+                || reservationLogRepository.existsByOrderIdAndType(orderId, ReservationLogType.CONFIRM)
+                || reservationLogRepository.existsByOrderIdAndType(orderId, ReservationLogType.RELEASE))
+            return null;
+
+        // The hold expired before the order was paid. The order stands either
+        // way, so take the stock back even if it runs the line short
+        List<HoldLine> lines = new ArrayList<>();
+        for (PantryReservationLog row : rows) {
+            HoldLine line = new HoldLine(new StockKey(row.getPantryId(), row.getFoodItemId()), row.getQuantity());
+            StockCounter counter = loadedCounter(line.key());
+            if (!counter.tryHold(line.quantity())) {
+                counter.available.addAndGet(-line.quantity());
+                counter.held.addAndGet(line.quantity());
+                System.err.println("⚠️ Pantry " + row.getPantryId() + " oversold item " + row.getFoodItemId()
+                        + " by confirming expired order " + orderId);
+            }
+            lines.add(line);
+        }
+        return new OrderHold(orderId, lines, LocalDateTime.now());
+    }
+
+    private void releaseLine(HoldLine line) {
+        StockCounter counter = counter(line.key());
+        counter.held.addAndGet(-line.quantity());
+        counter.available.addAndGet(line.quantity());
+    }
+
+    private StockCounter counter(StockKey key) {
+        return counters.computeIfAbsent(key, k -> new StockCounter());
+    }
+
+    // Counter with available stock in line with the database
+    private StockCounter loadedCounter(StockKey key) {
+        StockCounter counter = counter(key);
+        if (!counter.loaded) {
+            synchronized (counter) {
+                if (!counter.loaded) {
+                    int stock = pantryInventoryRepository.findCurrentStock(key.pantryId(), key.foodItemId())
+                            .orElse(0);
+                    if (counter.initialized) {
+                        // Only apply the outside change, holds taken meanwhile stay counted
+                        counter.available.addAndGet(stock - counter.base);
+                    } else {
+                        counter.available.set(stock - counter.pending.get() - counter.held.get());
+                        counter.initialized = true;
+                    }
+                    counter.base = stock;
+                    counter.loaded = true;
+                }
+            }
+        }
+        return counter;
+    }
+
+    private List<PantryReservationLog> logRows(OrderHold hold, ReservationLogType type) {
+        LocalDateTime expiresAt = type == ReservationLogType.HOLD ? hold.expiresAt() : null;
+        return hold.lines().stream()
+                .map(line -> new PantryReservationLog(type, hold.orderId(), line.key().pantryId(),
+                        line.key().foodItemId(), line.quantity(), expiresAt))
+                .collect(Collectors.toList());
+    }
+
+    // Runs the callback once the caller's transaction ends, or right away without one
+    private void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private record StockKey(Long pantryId, Long foodItemId) {
+    }
+
+    private record HoldLine(StockKey key, int quantity) {
+    }
+
+    private record OrderHold(Long orderId, List<HoldLine> lines, LocalDateTime expiresAt) {
+    }
+
+    // available = stock in the database - unflushed deductions - holds
+    private static final class StockCounter {
+        final AtomicInteger available = new AtomicInteger();
+        final AtomicInteger held = new AtomicInteger();
+        final AtomicInteger pending = new AtomicInteger();
+
+        // Database stock the counter was last lined up with, guarded by the counter's lock
+        int base;
+        boolean initialized;
+        volatile boolean loaded;
+
+        boolean tryHold(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity)
+                    return false;
+                if (available.compareAndSet(current, current - quantity)) {
+                    held.addAndGet(quantity);
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -12,13 +12,20 @@ import com.example.demo.repository.FoodItemRepository;
 import com.example.demo.repository.PantryInventoryRepository;
 import com.example.demo.repository.PantryRepository;
 import com.example.demo.repository.TrainRepository;
+import com.example.demo.service.PantryReservationService;
 import com.example.demo.service.PantryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -36,19 +43,16 @@ public class PantryServiceImpl implements PantryService {
     @Autowired
     private FoodItemRepository foodItemRepository;
 
+    @Autowired
+    private PantryMenuCache pantryMenuCache;
+
+    @Autowired
+    private PantryReservationService reservationService;
+
     @Override
     public List<PantryInventoryResponse> getAllAvailableMenuItems() {
-        List<Pantry> activePantries = pantryRepository.findByActiveTrue();
-        List<PantryInventoryResponse> allMenuItems = new ArrayList<>();
-
-        for (Pantry pantry : activePantries) {
-            List<PantryInventory> inventory = pantryInventoryRepository.findByPantryId(pantry.getId());
-            allMenuItems.addAll(inventory.stream()
-                    .map(PantryInventoryResponse::fromEntity)
-                    .collect(Collectors.toList()));
-        }
-
-        return allMenuItems;
+        return pantryMenuCache.getAllMenu(pantryInventoryRepository::findActiveMenu,
+                pantryInventoryRepository::findStockByPantryIds);
     }
 
     @Override
@@ -73,6 +77,7 @@ public class PantryServiceImpl implements PantryService {
         pantry.setActive(true);
 
         Pantry savedPantry = pantryRepository.save(pantry);
+        pantryMenuCache.evictTrain(trainId);
         return PantryResponse.fromEntity(savedPantry);
     }
 
@@ -130,6 +135,10 @@ public class PantryServiceImpl implements PantryService {
             }
         }
 
+        // The pantry may move to another train, both menus change
+        pantryMenuCache.evictTrain(pantry.getTrain().getId());
+        pantryMenuCache.evictTrain(trainId);
+
         pantry.setTrain(train);
         pantry.setPantryCode(request.getPantryCode());
         pantry.setCoachNumber(request.getCoachNumber());
@@ -149,6 +158,7 @@ public class PantryServiceImpl implements PantryService {
                 .orElseThrow(() -> new RuntimeException("Pantry not found with ID: " + id));
         pantry.setActive(false);
         pantryRepository.save(pantry);
+        pantryMenuCache.evictTrain(pantry.getTrain().getId());
     }
 
     @Override
@@ -177,6 +187,8 @@ public class PantryServiceImpl implements PantryService {
         inventory.setMaxStockLevel(request.getMaxStockLevel());
 
         PantryInventory savedInventory = pantryInventoryRepository.save(inventory);
+        pantryMenuCache.evictTrain(pantry.getTrain().getId());
+        reservationService.invalidate(pantryId, foodItemId);
         return PantryInventoryResponse.fromEntity(savedInventory);
     }
 
@@ -198,6 +210,8 @@ public class PantryServiceImpl implements PantryService {
         inventory.setMaxStockLevel(request.getMaxStockLevel());
 
         PantryInventory updatedInventory = pantryInventoryRepository.save(inventory);
+        pantryMenuCache.evictStock(pantryId);
+        reservationService.invalidate(pantryId, inventory.getFoodItem().getId());
         return PantryInventoryResponse.fromEntity(updatedInventory);
     }
 
@@ -212,6 +226,8 @@ public class PantryServiceImpl implements PantryService {
 
         inventory.setCurrentStock(quantity);
         PantryInventory updatedInventory = pantryInventoryRepository.save(inventory);
+        pantryMenuCache.evictStock(pantryId);
+        reservationService.invalidate(pantryId, foodItemId);
         return PantryInventoryResponse.fromEntity(updatedInventory);
     }
 
@@ -228,6 +244,8 @@ public class PantryServiceImpl implements PantryService {
         }
 
         pantryInventoryRepository.delete(inventory);
+        evictMenu(pantryId);
+        reservationService.invalidate(pantryId, inventory.getFoodItem().getId());
     }
 
     @Override
@@ -284,37 +302,95 @@ public class PantryServiceImpl implements PantryService {
     public void deductStock(Long pantryId, Long foodItemId, Integer quantity) {
         if (pantryId == null || foodItemId == null)
             throw new RuntimeException("Pantry ID and Food Item ID are required");
-
-        PantryInventory inventory = pantryInventoryRepository.findByPantryIdAndFoodItemId(pantryId, foodItemId)
-                .orElseThrow(() -> new RuntimeException("Inventory item not found for this food item in this pantry"));
-
-        if (!inventory.isAvailable(quantity)) {
+        if (quantity == null || quantity <= 0)
+            throw new RuntimeException("Quantity must be positive");
+
+        int updated = pantryInventoryRepository.decrementStock(pantryId, foodItemId, quantity, LocalDateTime.now());
+        if (updated == 0) {
+            PantryInventory inventory = pantryInventoryRepository.findByPantryIdAndFoodItemId(pantryId, foodItemId)
+                    .orElseThrow(() -> new RuntimeException(
+                            "Inventory item not found for this food item in this pantry"));
             throw new RuntimeException(
                     "Insufficient stock. Available: " + inventory.getCurrentStock() + ", Required: " + quantity);
         }
+        pantryMenuCache.evictStock(pantryId);
+        reservationService.invalidate(pantryId, foodItemId);
+    }
+
+    @Override
+    @Transactional
+    public void deductCartStock(Long trainId, Map<Long, Integer> quantities) {
+        if (trainId == null || quantities.isEmpty())
+            return;
+
+        List<Long> pantryIds = pantryRepository.findByTrainIdAndActiveTrue(trainId).stream()
+                .map(Pantry::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        if (pantryIds.isEmpty()) {
+            // Train without a managed pantry, nothing to deduct from
+            return;
+        }
 
-        inventory.setCurrentStock(inventory.getCurrentStock() - quantity);
-        pantryInventoryRepository.save(inventory);
+        Map<Long, PantryInventory> inventoryByFoodItem = pickInventory(pantryIds,
+                pantryInventoryRepository.findByPantryIdInAndFoodItemIdIn(pantryIds, quantities.keySet()));
+
+        // Update rows in inventory id order so concurrent carts lock them in
+        // the same order and cannot deadlock
+        List<Map.Entry<Long, Integer>> lines = sortedCartLines(quantities, inventoryByFoodItem);
+
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> touchedPantries = new HashSet<>();
+        for (Map.Entry<Long, Integer> line : lines) {
+            PantryInventory inventory = inventoryByFoodItem.get(line.getKey());
+            if (pantryInventoryRepository.decrementStockById(inventory.getId(), line.getValue(), now) == 0) {
+                // Rolls back the decrements already made for this cart
+                throw new RuntimeException("Insufficient stock for " + inventory.getFoodItem().getName()
+                        + ". Required: " + line.getValue());
+            }
+            touchedPantries.add(inventory.getPantry().getId());
+        }
+        // Only stock changed, the cached menu stays
+        pantryMenuCache.evictStock(touchedPantries);
     }
 
     @Override
     public List<PantryInventoryResponse> getMenuItemsByTrainId(Long trainId) {
-        // Get all pantries for this train
-        List<Pantry> pantries = pantryRepository.findByTrainIdAndActiveTrue(trainId);
-        List<PantryInventoryResponse> allMenuItems = new ArrayList<>();
-
-        for (Pantry pantry : pantries) {
-            List<PantryInventory> inventory = pantryInventoryRepository.findByPantryId(pantry.getId());
-            List<PantryInventoryResponse> items = inventory.stream()
-                    .map(inv -> {
-                        PantryInventoryResponse response = PantryInventoryResponse.fromEntity(inv);
-                        // Add train info to response if needed
-                        return response;
-                    })
-                    .collect(Collectors.toList());
-            allMenuItems.addAll(items);
+        return pantryMenuCache.getTrainMenu(trainId,
+                () -> pantryInventoryRepository.findActiveMenuByTrainId(trainId),
+                pantryInventoryRepository::findStockByPantryIds);
+    }
+
+    // Each item comes from the first pantry of the train that stocks it
+    static Map<Long, PantryInventory> pickInventory(List<Long> pantryIds, List<PantryInventory> candidates) {
+        Map<Long, PantryInventory> inventoryByFoodItem = new HashMap<>();
+        for (PantryInventory inventory : candidates) {
+            Long foodItemId = inventory.getFoodItem().getId();
+            PantryInventory current = inventoryByFoodItem.get(foodItemId);
+            if (current == null || pantryIds.indexOf(inventory.getPantry().getId()) < pantryIds
+                    .indexOf(current.getPantry().getId())) {
+                inventoryByFoodItem.put(foodItemId, inventory);
+            }
         }
+        return inventoryByFoodItem;
+    }
+
+    // Validates the cart against the picked inventory, lines come back in inventory id order
+    static List<Map.Entry<Long, Integer>> sortedCartLines(Map<Long, Integer> quantities,
+            Map<Long, PantryInventory> inventoryByFoodItem) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        for (Map.Entry<Long, Integer> line : lines) {
+            if (!inventoryByFoodItem.containsKey(line.getKey()))
+                throw new RuntimeException("Food item " + line.getKey() + " is not stocked in this train's pantry");
+            if (line.getValue() == null || line.getValue() <= 0)
+                throw new RuntimeException("Quantity must be positive");
+        }
+        lines.sort(Comparator.comparing(line -> inventoryByFoodItem.get(line.getKey()).getId()));
+        return lines;
+    }
 
-        return allMenuItems;
+    // The pantry's items changed, drop the cached menu of its train
+    private void evictMenu(Long pantryId) {
+        pantryMenuCache.evictTrain(pantryRepository.findTrainIdById(pantryId).orElse(null));
     }
 }
\ No newline at end of file
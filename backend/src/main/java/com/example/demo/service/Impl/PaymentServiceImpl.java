@@ -4,22 +4,21 @@ import com.example.demo.dto.*;
 import com.example.demo.entity.*;
 import com.example.demo.repository.OrderRepository;
 import com.example.demo.repository.PaymentRepository;
+import com.example.demo.security.RazorpaySignatureVerifier;
+import com.example.demo.service.OrderSummaryService;
+import com.example.demo.service.PantryReservationService;
+import com.example.demo.service.PaymentGatewayService;
 import com.example.demo.service.PaymentService;
-import com.razorpay.RazorpayClient;
+import com.example.demo.service.TrackingService;
 import com.razorpay.RazorpayException;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.security.SignatureException;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,45 +34,58 @@ public class PaymentServiceImpl implements PaymentService {
     private com.example.demo.repository.UserRepository userRepository;
 
     @Autowired
-    private RazorpayClient razorpayClient;
+    private PaymentGatewayService paymentGateway;
+
+    @Autowired
+    private RazorpaySignatureVerifier signatureVerifier;
+
+    @Autowired
+    private PantryReservationService reservationService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private TrackingService trackingService;
+
+    // Gateway calls are made outside of any transaction, only the short DB
+    // writes that follow them run inside one
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     @Value("${razorpay.key.id}")
     private String razorpayKeyId;
 
-    @Value("${razorpay.key.secret}")
-    private String razorpayKeySecret;
-
     @Value("${razorpay.currency}")
     private String currency;
 
     @Override
-    @Transactional
     public PaymentOrderResponse createPaymentOrder(PaymentOrderRequest request) {
-        Order order = null;
-        User user = null;
-
         // CHANGED: Only validate order if orderId is provided (not null)
         // If orderId is null, it's a wallet top-up (no associated order)
         Long orderId = request.getOrderId();
         Long userId = request.getUserId();
 
-        if (orderId != null) {
-            order = orderRepository.findById(orderId)
-                    .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        Object[] orderAndUser = transactionTemplate.execute(status -> {
+            if (orderId != null) {
+                Order existingOrder = orderRepository.findById(orderId)
+                        .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
 
-            user = order.getUser();
-
-            // Check if order already has a successful payment
-            if (paymentRepository.existsByOrderIdAndStatus(orderId, PaymentStatus.SUCCESS)) {
-                throw new RuntimeException("Order already has a successful payment");
+                // Check if order already has a successful payment
+                if (paymentRepository.existsByOrderIdAndStatus(orderId, PaymentStatus.SUCCESS)) {
+                    throw new RuntimeException("Order already has a successful payment");
+                }
+                return new Object[] { existingOrder, existingOrder.getUser() };
+            } else if (userId != null) {
+                // Wallet top-up case: fetch user directly
+                User existingUser = userRepository.findById(userId)
+                        .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
+                return new Object[] { null, existingUser };
             }
-        } else if (userId != null) {
-            // Wallet top-up case: fetch user directly
-            user = userRepository.findById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-        } else {
             throw new RuntimeException("Either orderId or userId must be provided for payment");
-        }
+        });
+        Order order = (Order) orderAndUser[0];
+        User user = (User) orderAndUser[1];
 
         try {
             // Create Razorpay order
@@ -89,7 +101,7 @@ public class PaymentServiceImpl implements PaymentService {
             // FIXED: Removed problematic JSON parsing - notes are optional for Razorpay
             // We'll store notes in our database only, not send to Razorpay
 
-            com.razorpay.Order razorpayOrder = razorpayClient.orders.create(orderRequest);
+            JSONObject razorpayOrder = paymentGateway.createOrder(orderRequest);
 
             // Create payment record in database
             Payment payment = new Payment();
@@ -98,7 +110,7 @@ public class PaymentServiceImpl implements PaymentService {
             payment.setAmount(request.getAmount());
             payment.setCurrency(currency);
             payment.setStatus(PaymentStatus.CREATED);
-            payment.setRazorpayOrderId(razorpayOrder.get("id"));
+            payment.setRazorpayOrderId(razorpayOrder.getString("id"));
             payment.setReceipt(receipt);
             payment.setNotes(request.getNotes()); // Store notes as string in our database
 
@@ -124,53 +136,52 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
-    @Transactional
     public PaymentResponse verifyPayment(PaymentVerificationRequest request) {
         // Find payment by Razorpay order ID
         Payment payment = paymentRepository.findByRazorpayOrderId(request.getRazorpayOrderId())
                 .orElseThrow(
                         () -> new RuntimeException("Payment not found for order ID: " + request.getRazorpayOrderId()));
 
-        try {
-            // Verify signature
-            String generatedSignature = calculateRFC2104HMAC(
-                    request.getRazorpayOrderId() + "|" + request.getRazorpayPaymentId(),
-                    razorpayKeySecret);
+        // Verify signature
+        if (!signatureVerifier.verifyPaymentSignature(request.getRazorpayOrderId(),
+                request.getRazorpayPaymentId(), request.getRazorpaySignature())) {
+            payment.setStatus(PaymentStatus.FAILED);
+            payment.setFailureReason("Invalid signature");
+            paymentRepository.save(payment);
+            throw new RuntimeException("Payment signature verification failed");
+        }
 
-            if (!generatedSignature.equals(request.getRazorpaySignature())) {
-                payment.setStatus(PaymentStatus.FAILED);
-                payment.setFailureReason("Invalid signature");
-                paymentRepository.save(payment);
-                throw new RuntimeException("Payment signature verification failed");
-            }
+        // Fetch payment details from Razorpay before opening the transaction
+        JSONObject razorpayPayment = fetchPaymentQuietly(request.getRazorpayPaymentId());
 
-            // Update payment details
-            payment.setRazorpayPaymentId(request.getRazorpayPaymentId());
-            payment.setRazorpaySignature(request.getRazorpaySignature());
-            payment.setStatus(PaymentStatus.SUCCESS);
+        Payment updatedPayment = transactionTemplate.execute(status -> {
+            Payment current = paymentRepository.findById(payment.getId())
+                    .orElseThrow(() -> new RuntimeException("Payment not found with ID: " + payment.getId()));
 
-            // Fetch and update payment details from Razorpay
-            updatePaymentDetailsInternal(payment, request.getRazorpayPaymentId());
+            // Update payment details
+            current.setRazorpayPaymentId(request.getRazorpayPaymentId());
+            current.setRazorpaySignature(request.getRazorpaySignature());
+            current.setStatus(PaymentStatus.SUCCESS);
+            applyPaymentDetails(current, razorpayPayment);
 
-            Payment updatedPayment = paymentRepository.save(payment);
+            Payment saved = paymentRepository.save(current);
 
             // CHANGED: Only update order status if payment has an associated order
-            if (payment.getOrder() != null) {
-                Order order = payment.getOrder();
+            if (current.getOrder() != null) {
+                Order order = current.getOrder();
                 if (order.getStatus() == Order.OrderStatus.PENDING) {
                     order.setStatus(Order.OrderStatus.CONFIRMED);
                     orderRepository.save(order);
+                    orderSummaryService.statusChanged(order);
+                    trackingService.syncOrderStatus(order.getId(), Order.OrderStatus.CONFIRMED);
+                    // Only a pending order can still hold pantry stock
+                    reservationService.confirmOrder(order.getId());
                 }
             }
+            return saved;
+        });
 
-            return PaymentResponse.fromEntity(updatedPayment);
-
-        } catch (SignatureException e) {
-            payment.setStatus(PaymentStatus.FAILED);
-            payment.setFailureReason("Signature calculation error: " + e.getMessage());
-            paymentRepository.save(payment);
-            throw new RuntimeException("Payment verification failed", e);
-        }
+        return PaymentResponse.fromEntity(updatedPayment);
     }
 
     @Override
@@ -204,7 +215,6 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
-    @Transactional
     public PaymentResponse processRefund(RefundRequest request) {
         Long paymentId = request.getPaymentId();
         if (paymentId == null)
@@ -225,6 +235,15 @@ public class PaymentServiceImpl implements PaymentService {
                     "Refund amount exceeds refundable amount. Max: " + payment.getRefundableAmount());
         }
 
+        // Claim the amount before calling the gateway, so concurrent refunds that both passed the
+        // checks above cannot together refund more than was paid
+        Integer reserved = transactionTemplate.execute(
+                status -> paymentRepository.reserveRefund(paymentId, request.getAmount()));
+        if (reserved == null || reserved == 0) {
+            throw new RuntimeException("Refund amount exceeds refundable amount, another refund is in progress");
+        }
+
+        JSONObject refund;
         try {
             // Create refund in Razorpay
             JSONObject refundRequest = new JSONObject();
@@ -233,108 +252,100 @@ public class PaymentServiceImpl implements PaymentService {
                 refundRequest.put("notes", new JSONObject().put("reason", request.getReason()));
             }
 
-            com.razorpay.Refund refund = razorpayClient.payments.refund(payment.getRazorpayPaymentId(), refundRequest);
+            refund = paymentGateway.refundPayment(payment.getRazorpayPaymentId(), refundRequest);
+        } catch (RazorpayException e) {
+            transactionTemplate.executeWithoutResult(
+                    status -> paymentRepository.releaseRefund(paymentId, request.getAmount()));
+            throw new RuntimeException("Failed to process refund: " + e.getMessage(), e);
+        }
+
+        Payment updatedPayment = transactionTemplate.execute(status -> {
+            Payment current = paymentRepository.findById(paymentId)
+                    .orElseThrow(() -> new RuntimeException("Payment not found with ID: " + paymentId));
 
-            // Update payment record
-            payment.setRefundedAmount(payment.getRefundedAmount() + request.getAmount());
-            payment.setRefundId(refund.get("id"));
-            payment.setRefundedAt(LocalDateTime.now());
+            // Update payment record (refundedAmount already includes this refund)
+            current.setRefundId(refund.getString("id"));
+            current.setRefundedAt(LocalDateTime.now());
 
             // Update status
-            if (payment.getRefundedAmount().equals(payment.getAmount())) {
-                payment.setStatus(PaymentStatus.REFUNDED);
+            if (current.getRefundedAmount().equals(current.getAmount())) {
+                current.setStatus(PaymentStatus.REFUNDED);
             } else {
-                payment.setStatus(PaymentStatus.PARTIAL_REFUND);
+                current.setStatus(PaymentStatus.PARTIAL_REFUND);
             }
 
-            Payment updatedPayment = paymentRepository.save(payment);
+            Payment saved = paymentRepository.save(current);
 
             // CHANGED: Only update order if payment has an associated order
-            if (payment.getStatus() == PaymentStatus.REFUNDED && payment.getOrder() != null) {
-                Order order = payment.getOrder();
+            if (current.getStatus() == PaymentStatus.REFUNDED && current.getOrder() != null) {
+                Order order = current.getOrder();
                 order.setStatus(Order.OrderStatus.CANCELLED);
                 orderRepository.save(order);
+                orderSummaryService.statusChanged(order);
+                trackingService.syncOrderStatus(order.getId(), Order.OrderStatus.CANCELLED);
             }
+            return saved;
+        });
 
-            return PaymentResponse.fromEntity(updatedPayment);
-
-        } catch (RazorpayException e) {
-            throw new RuntimeException("Failed to process refund: " + e.getMessage(), e);
-        }
+        return PaymentResponse.fromEntity(updatedPayment);
     }
 
     @Override
-    @Transactional
-    public void handleWebhook(Map<String, Object> payload, String signature) {
-        // Verify webhook signature
-        try {
-            String webhookSecret = razorpayKeySecret; // Use your webhook secret
-            String generatedSignature = calculateRFC2104HMAC(payload.toString(), webhookSecret);
-
-            // Verify the signature matches
-            if (!generatedSignature.equals(signature)) {
-                throw new RuntimeException("Invalid webhook signature - possible security breach");
-            }
-
-            String event = (String) payload.get("event");
-            Object payloadObj = payload.get("payload");
-            if (payloadObj == null) {
-                throw new RuntimeException("Missing 'payload' in webhook data");
-            }
-            @SuppressWarnings("unchecked")
-            Map<String, Object> payloadData = (Map<String, Object>) payloadObj;
-
-            Object paymentObj = payloadData.get("payment");
-            if (paymentObj == null) {
-                throw new RuntimeException("Missing 'payment' in webhook payload");
-            }
-            @SuppressWarnings("unchecked")
-            Map<String, Object> paymentData = (Map<String, Object>) paymentObj;
-
-            Object entityObj = paymentData.get("entity");
-            if (entityObj == null) {
-                throw new RuntimeException("Missing 'entity' in payment data");
-            }
-            @SuppressWarnings("unchecked")
-            Map<String, Object> entity = (Map<String, Object>) entityObj;
-
-            String razorpayOrderId = (String) entity.get("order_id");
-            String razorpayPaymentId = (String) entity.get("id");
-
-            Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId)
-                    .orElse(null);
+    public boolean verifyWebhookSignature(String rawBody, String signature) {
+        return signatureVerifier.verifyWebhookSignature(rawBody, signature);
+    }
 
-            if (payment == null) {
-                return; // Payment not found, skip
-            }
+    @Override
+    public void applyWebhookEvent(String event, JSONObject entity) {
+        String razorpayOrderId = entity.optString("order_id", null);
+        String razorpayPaymentId = entity.optString("id", null);
 
-            switch (event) {
-                case "payment.captured":
-                    payment.setStatus(PaymentStatus.SUCCESS);
-                    payment.setRazorpayPaymentId(razorpayPaymentId);
-                    updatePaymentDetailsInternal(payment, razorpayPaymentId);
-                    paymentRepository.save(payment);
-                    break;
+        Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId)
+                .orElse(null);
 
-                case "payment.failed":
-                    payment.setStatus(PaymentStatus.FAILED);
-                    payment.setFailureReason((String) entity.get("error_description"));
-                    paymentRepository.save(payment);
-                    break;
+        if (payment == null) {
+            return; // Payment not found, skip
+        }
 
-                default:
-                    // Handle other events if needed
+        switch (event) {
+            case "payment.captured":
+                JSONObject razorpayPayment = fetchPaymentQuietly(razorpayPaymentId);
+                // Webhooks are applied on a worker thread, the order is only
+                // reachable (lazily) inside a transaction
+                transactionTemplate.executeWithoutResult(status -> {
+                    Payment current = paymentRepository.findById(payment.getId())
+                            .orElseThrow(() -> new RuntimeException("Payment not found with ID: " + payment.getId()));
+                    current.setStatus(PaymentStatus.SUCCESS);
+                    current.setRazorpayPaymentId(razorpayPaymentId);
+                    applyPaymentDetails(current, razorpayPayment);
+                    paymentRepository.save(current);
+                    Order order = current.getOrder();
+                    if (order != null && order.getStatus() == Order.OrderStatus.PENDING) {
+                        reservationService.confirmOrder(order.getId());
+                    }
+                });
+                break;
+
+            case "payment.failed":
+                // A late failure of an earlier attempt must not undo a capture
+                if (payment.getStatus() == PaymentStatus.SUCCESS) {
                     break;
-            }
+                }
+                payment.setStatus(PaymentStatus.FAILED);
+                payment.setFailureReason(entity.optString("error_description", null));
+                paymentRepository.save(payment);
+                break;
 
-        } catch (Exception e) {
-            throw new RuntimeException("Webhook processing failed: " + e.getMessage(), e);
+            default:
+                // Handle other events if needed
+                break;
         }
     }
 
     @Override
-    @Transactional
     public PaymentResponse updatePaymentDetails(String razorpayPaymentId, String razorpayOrderId) {
+        boolean demoPayment = razorpayPaymentId.startsWith("pay_demo_");
+
         // Step 1: Try to find by Razorpay Payment ID (if we already processed it/stored
         // it)
         Payment payment = paymentRepository.findByRazorpayPaymentId(razorpayPaymentId).orElse(null);
@@ -342,57 +353,50 @@ public class PaymentServiceImpl implements PaymentService {
         // Step 2: If not found, and we have an Order ID, try to find by Order ID
         if (payment == null && razorpayOrderId != null) {
             payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId).orElse(null);
-            if (payment != null) {
-                // Link the new payment ID to this record
-                payment.setRazorpayPaymentId(razorpayPaymentId);
-            }
         }
 
-        // Step 3: If still not found, and it's NOT a demo payment, try fetching from
-        // Razorpay
-        if (payment == null && !razorpayPaymentId.startsWith("pay_demo_")) {
+        // Step 3: Fetch from Razorpay once, it is used both to resolve the local
+        // record and to update its details (handle demo payments gracefully)
+        JSONObject razorpayPayment = null;
+        if (!demoPayment) {
             try {
-                // Fetch from Razorpay
-                com.razorpay.Payment razorpayPayment = razorpayClient.payments.fetch(razorpayPaymentId);
-                String fetchedOrderId = razorpayPayment.get("order_id");
-
-                // Find local payment record by Order ID from Razorpay
-                payment = paymentRepository.findByRazorpayOrderId(fetchedOrderId)
-                        .orElseThrow(() -> new RuntimeException("Payment not found for Order ID: " + fetchedOrderId));
-
-                // Link the payment ID
-                payment.setRazorpayPaymentId(razorpayPaymentId);
+                razorpayPayment = paymentGateway.fetchPayment(razorpayPaymentId);
             } catch (RazorpayException e) {
-                throw new RuntimeException("Failed to fetch payment details from Razorpay: " + e.getMessage(), e);
+                if (payment == null) {
+                    throw new RuntimeException("Failed to fetch payment details from Razorpay: " + e.getMessage(), e);
+                }
+                // Log but don't crash, though validation failed
+                System.err.println("Error verifying payment status: " + e.getMessage());
             }
         }
 
+        if (payment == null && razorpayPayment != null) {
+            // Find local payment record by Order ID from Razorpay
+            String fetchedOrderId = razorpayPayment.optString("order_id", null);
+            payment = paymentRepository.findByRazorpayOrderId(fetchedOrderId)
+                    .orElseThrow(() -> new RuntimeException("Payment not found for Order ID: " + fetchedOrderId));
+        }
+
         // Step 4: Final checks
         if (payment == null) {
             throw new RuntimeException("Payment reference could not be found for ID: " + razorpayPaymentId);
         }
 
-        // Update details (handle demo payments gracefully)
-        if (!razorpayPaymentId.startsWith("pay_demo_")) {
-            try {
-                com.razorpay.Payment razorpayPayment = razorpayClient.payments.fetch(razorpayPaymentId);
-                String status = razorpayPayment.get("status");
-
-                if ("captured".equals(status) || "authorized".equals(status)) {
-                    payment.setStatus(PaymentStatus.SUCCESS);
-                } else if ("failed".equals(status)) {
-                    payment.setStatus(PaymentStatus.FAILED);
-                }
+        // Link the payment ID
+        payment.setRazorpayPaymentId(razorpayPaymentId);
 
-                updatePaymentDetailsInternal(payment, razorpayPaymentId);
-            } catch (RazorpayException e) {
-                // Log but don't crash, though validation failed
-                System.err.println("Error verifying payment status: " + e.getMessage());
-            }
-        } else {
+        if (demoPayment) {
             // For demo payments, manually set success
             payment.setStatus(PaymentStatus.SUCCESS);
             payment.setPaymentMethod(PaymentMethod.WALLET); // Assume wallet/test
+        } else if (razorpayPayment != null) {
+            String status = razorpayPayment.optString("status");
+            if ("captured".equals(status) || "authorized".equals(status)) {
+                payment.setStatus(PaymentStatus.SUCCESS);
+            } else if ("failed".equals(status)) {
+                payment.setStatus(PaymentStatus.FAILED);
+            }
+            applyPaymentDetails(payment, razorpayPayment);
         }
 
         Payment updatedPayment = paymentRepository.save(payment);
@@ -406,63 +410,49 @@ public class PaymentServiceImpl implements PaymentService {
 
     // Private helper methods
 
-    private void updatePaymentDetailsInternal(Payment payment, String razorpayPaymentId) {
+    private JSONObject fetchPaymentQuietly(String razorpayPaymentId) {
         try {
-            com.razorpay.Payment razorpayPayment = razorpayClient.payments.fetch(razorpayPaymentId);
-
-            // Convert Razorpay Payment to JSONObject for nested data access
-            JSONObject paymentJson = razorpayPayment.toJson();
-
-            // Update payment method
-            String method = paymentJson.optString("method");
-            if (method != null && !method.isEmpty()) {
-                switch (method.toLowerCase()) {
-                    case "card":
-                        payment.setPaymentMethod(PaymentMethod.CARD);
-                        if (paymentJson.has("card")) {
-                            JSONObject card = paymentJson.getJSONObject("card");
-                            payment.setCardLast4(card.optString("last4"));
-                            payment.setCardNetwork(card.optString("network"));
-                        }
-                        break;
-                    case "upi":
-                        payment.setPaymentMethod(PaymentMethod.UPI);
-                        payment.setUpiId(paymentJson.optString("vpa"));
-                        break;
-                    case "netbanking":
-                        payment.setPaymentMethod(PaymentMethod.NET_BANKING);
-                        payment.setBank(paymentJson.optString("bank"));
-                        break;
-                    case "wallet":
-                        payment.setPaymentMethod(PaymentMethod.WALLET);
-                        payment.setWallet(paymentJson.optString("wallet"));
-                        break;
-                    case "emi":
-                        payment.setPaymentMethod(PaymentMethod.EMI);
-                        break;
-                }
-            }
-
+            return paymentGateway.fetchPayment(razorpayPaymentId);
         } catch (RazorpayException e) {
-            // Log error but don't fail the transaction
+            // Log error but don't fail the payment update
             System.err.println("Failed to fetch payment details: " + e.getMessage());
+            return null;
         }
     }
 
-    private String calculateRFC2104HMAC(String data, String secret) throws SignatureException {
-        try {
-            SecretKeySpec signingKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(signingKey);
-            byte[] rawHmac = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-
-            StringBuilder sb = new StringBuilder();
-            for (byte b : rawHmac) {
-                sb.append(String.format("%02x", b));
+    private void applyPaymentDetails(Payment payment, JSONObject paymentJson) {
+        if (paymentJson == null) {
+            return;
+        }
+
+        // Update payment method
+        String method = paymentJson.optString("method");
+        if (method != null && !method.isEmpty()) {
+            switch (method.toLowerCase()) {
+                case "card":
+                    payment.setPaymentMethod(PaymentMethod.CARD);
+                    if (paymentJson.has("card")) {
+                        JSONObject card = paymentJson.getJSONObject("card");
+                        payment.setCardLast4(card.optString("last4"));
+                        payment.setCardNetwork(card.optString("network"));
+                    }
+                    break;
+                case "upi":
+                    payment.setPaymentMethod(PaymentMethod.UPI);
+                    payment.setUpiId(paymentJson.optString("vpa"));
+                    break;
+                case "netbanking":
+                    payment.setPaymentMethod(PaymentMethod.NET_BANKING);
+                    payment.setBank(paymentJson.optString("bank"));
+                    break;
+                case "wallet":
+                    payment.setPaymentMethod(PaymentMethod.WALLET);
+                    payment.setWallet(paymentJson.optString("wallet"));
+                    break;
+                case "emi":
+                    payment.setPaymentMethod(PaymentMethod.EMI);
+                    break;
             }
-            return sb.toString();
-        } catch (Exception e) {
-            throw new SignatureException("Failed to calculate HMAC: " + e.getMessage());
         }
     }
 
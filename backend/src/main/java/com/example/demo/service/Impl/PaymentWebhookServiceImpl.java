@@ -0,0 +1,305 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.entity.PaymentWebhookEvent;
+import com.example.demo.entity.WebhookEventStatus;
+import com.example.demo.repository.PaymentWebhookEventRepository;
+import com.example.demo.service.PaymentService;
+import com.example.demo.service.PaymentWebhookService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Webhook inbox: the request thread only verifies the signature and appends
+ * the raw body, workers apply the events afterwards. Events are deduplicated by
+ * Razorpay event id and coalesced per Razorpay order so that a burst of
+ * retries for one payment costs a single gateway fetch.
+ *
+ * The scheduled job only claims and hands out work, it never waits for the
+ * gateway. Each worker is a single-thread lane and a Razorpay order always
+ * maps to the same lane, so its events stay in order across batches.
+ */
+@Service
+public class PaymentWebhookServiceImpl implements PaymentWebhookService {
+
+    private static final String PAYMENT_CAPTURED = "payment.captured";
+
+    @Autowired
+    private PaymentWebhookEventRepository webhookEventRepository;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${payment.webhook.batch-size:200}")
+    private int batchSize;
+
+    @Value("${payment.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payment.webhook.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    private final ExecutorService[] lanes;
+    private final AtomicInteger inFlight = new AtomicInteger(); // Claimed events not finished yet
+
+    private final Timer lagTimer;
+    private final Counter receivedCounter;
+    private final Counter duplicateCounter;
+    private final Counter coalescedCounter;
+    private final Counter ignoredCounter;
+    private final Counter failedCounter;
+    private final AtomicLong depthGauge = new AtomicLong();
+    private final AtomicLong oldestAgeGauge = new AtomicLong();
+
+    public PaymentWebhookServiceImpl(@Value("${payment.webhook.workers:4}") int workerCount,
+            MeterRegistry meterRegistry) {
+        this.lanes = new ExecutorService[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            String name = "payment-webhook-" + (i + 1);
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, name);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        this.lagTimer = Timer.builder("payment.webhook.lag")
+                .description("Time between a webhook being received and being applied")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.receivedCounter = meterRegistry.counter("payment.webhook.received");
+        this.duplicateCounter = meterRegistry.counter("payment.webhook.duplicate");
+        this.coalescedCounter = meterRegistry.counter("payment.webhook.coalesced");
+        this.ignoredCounter = meterRegistry.counter("payment.webhook.ignored");
+        this.failedCounter = meterRegistry.counter("payment.webhook.failed");
+        meterRegistry.gauge("payment.webhook.queue.depth", depthGauge);
+        meterRegistry.gauge("payment.webhook.queue.oldest.seconds", oldestAgeGauge);
+        meterRegistry.gauge("payment.webhook.in_flight", inFlight);
+    }
+
+    @Override
+    public boolean enqueue(String rawBody, String signature, String eventId) {
+        if (!paymentService.verifyWebhookSignature(rawBody, signature)) {
+            throw new RuntimeException("Invalid webhook signature - possible security breach");
+        }
+
+        JSONObject payload;
+        try {
+            payload = new JSONObject(rawBody);
+        } catch (JSONException e) {
+            throw new RuntimeException("Malformed webhook body: " + e.getMessage());
+        }
+
+        String dedupeKey = (eventId != null && !eventId.isBlank()) ? eventId : sha256Hex(rawBody);
+        if (webhookEventRepository.existsByEventId(dedupeKey)) {
+            duplicateCounter.increment();
+            return false;
+        }
+
+        PaymentWebhookEvent event = new PaymentWebhookEvent();
+        event.setEventId(dedupeKey);
+        event.setEventType(payload.optString("event", null));
+        JSONObject entity = paymentEntity(payload);
+        event.setRazorpayOrderId(entity != null ? entity.optString("order_id", null) : null);
+        event.setRawBody(rawBody);
+        event.setReceivedAt(LocalDateTime.now());
+        if (entity != null) {
+            event.setStatus(WebhookEventStatus.RECEIVED);
+        } else {
+            // Kept for deduplication and audit, but there is no payment to apply it to
+            event.setStatus(WebhookEventStatus.IGNORED);
+            event.setProcessedAt(event.getReceivedAt());
+        }
+
+        try {
+            webhookEventRepository.save(event);
+        } catch (DataIntegrityViolationException e) {
+            // Concurrent redelivery of the same event won the insert
+            duplicateCounter.increment();
+            return false;
+        }
+        receivedCounter.increment();
+        if (entity == null) {
+            ignoredCounter.increment();
+        }
+        return true;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${payment.webhook.interval-ms:200}")
+    public int processPending() {
+        // Workers still busy with up to a batch: leave the rest in the inbox rather than
+        // queueing claims that could outlive the claim timeout
+        int capacity = batchSize - inFlight.get();
+        List<PaymentWebhookEvent> claimed = capacity > 0 ? claimBatch(capacity) : List.of();
+
+        if (!claimed.isEmpty()) {
+            // Events for the same Razorpay order stay on one lane, in arrival order
+            Map<String, List<PaymentWebhookEvent>> groups = new LinkedHashMap<>();
+            for (PaymentWebhookEvent event : claimed) {
+                String key = event.getRazorpayOrderId() != null ? event.getRazorpayOrderId()
+                        : "event:" + event.getId();
+                groups.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+            }
+
+            inFlight.addAndGet(claimed.size());
+            groups.forEach((key, group) -> {
+                ExecutorService lane = lanes[Math.floorMod(key.hashCode(), lanes.length)];
+                try {
+                    lane.execute(() -> {
+                        try {
+                            processGroup(group);
+                        } catch (Exception e) {
+                            System.err.println("⚠️ Webhook group " + key + " failed: " + e.getMessage());
+                        } finally {
+                            inFlight.addAndGet(-group.size());
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Shutting down, the claim times out and the events are picked up again
+                    inFlight.addAndGet(-group.size());
+                }
+            });
+        }
+
+        refreshGauges();
+        return claimed.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private List<PaymentWebhookEvent> claimBatch(int limit) {
+        List<PaymentWebhookEvent> claimed = transactionTemplate.execute(status -> {
+            webhookEventRepository.releaseStaleClaims(LocalDateTime.now().minusNanos(claimTimeoutMs * 1_000_000L));
+
+            List<PaymentWebhookEvent> batch = webhookEventRepository.findByStatusOrderByIdAsc(
+                    WebhookEventStatus.RECEIVED, PageRequest.of(0, limit));
+            LocalDateTime now = LocalDateTime.now();
+            for (PaymentWebhookEvent event : batch) {
+                event.setStatus(WebhookEventStatus.PROCESSING);
+                event.setClaimedAt(now);
+            }
+            return webhookEventRepository.saveAll(batch);
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    private int processGroup(List<PaymentWebhookEvent> group) {
+        // A capture decides the final state of the payment, otherwise the latest event does
+        PaymentWebhookEvent decisive = group.get(group.size() - 1);
+        for (PaymentWebhookEvent event : group) {
+            if (PAYMENT_CAPTURED.equals(event.getEventType())) {
+                decisive = event;
+            }
+        }
+
+        WebhookEventStatus outcome = WebhookEventStatus.PROCESSED;
+        try {
+            JSONObject payload = new JSONObject(decisive.getRawBody());
+            JSONObject entity = paymentEntity(payload);
+            if (entity == null) {
+                // Stored before non-payment events were ignored on arrival
+                outcome = WebhookEventStatus.IGNORED;
+                ignoredCounter.increment();
+            } else {
+                // Gateway fetch and payment update happen here, outside any inbox transaction
+                paymentService.applyWebhookEvent(payload.optString("event", ""), entity);
+            }
+        } catch (Exception e) {
+            recordFailure(group, e);
+            return 0;
+        }
+
+        PaymentWebhookEvent applied = decisive;
+        WebhookEventStatus appliedStatus = outcome;
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (PaymentWebhookEvent event : group) {
+                event.setStatus(event == applied ? appliedStatus : WebhookEventStatus.COALESCED);
+                event.setAttempts(event.getAttempts() + 1);
+                event.setProcessedAt(now);
+                lagTimer.record(Duration.between(event.getReceivedAt(), now));
+            }
+            webhookEventRepository.saveAll(group);
+        });
+        coalescedCounter.increment(group.size() - 1);
+        return group.size();
+    }
+
+    private void recordFailure(List<PaymentWebhookEvent> group, Exception cause) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (PaymentWebhookEvent event : group) {
+                int attempts = event.getAttempts() + 1;
+                event.setAttempts(attempts);
+                event.setLastError(cause.getMessage());
+                if (attempts >= maxAttempts) {
+                    event.setStatus(WebhookEventStatus.FAILED);
+                    failedCounter.increment();
+                    System.err.println("⚠️ Webhook event " + event.getEventId() + " failed permanently: "
+                            + cause.getMessage());
+                } else {
+                    event.setStatus(WebhookEventStatus.RECEIVED);
+                }
+            }
+            webhookEventRepository.saveAll(group);
+        });
+    }
+
+    private void refreshGauges() {
+        depthGauge.set(webhookEventRepository.countByStatus(WebhookEventStatus.RECEIVED));
+        LocalDateTime oldest = webhookEventRepository.findOldestReceivedAt();
+        oldestAgeGauge.set(oldest != null ? Duration.between(oldest, LocalDateTime.now()).toSeconds() : 0);
+    }
+
+    private static JSONObject paymentEntity(JSONObject payload) {
+        JSONObject inner = payload.optJSONObject("payload");
+        JSONObject payment = inner != null ? inner.optJSONObject("payment") : null;
+        return payment != null ? payment.optJSONObject("entity") : null;
+    }
+
+    private static String sha256Hex(String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
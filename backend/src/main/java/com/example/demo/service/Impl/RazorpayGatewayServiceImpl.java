@@ -0,0 +1,194 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.PaymentGatewayService;
+import com.example.demo.service.RazorpayApi;
+import com.razorpay.RazorpayException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class RazorpayGatewayServiceImpl implements PaymentGatewayService {
+
+    private final RazorpayApi razorpayApi;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor executor;
+    private final CircuitBreaker circuitBreaker;
+    private final long timeoutMs;
+
+    private final Counter rejectedCounter;
+    private final Counter shortCircuitedCounter;
+
+    public RazorpayGatewayServiceImpl(RazorpayApi razorpayApi, MeterRegistry meterRegistry,
+            @Value("${razorpay.gateway.pool-size:16}") int poolSize,
+            @Value("${razorpay.gateway.queue-capacity:32}") int queueCapacity,
+            @Value("${razorpay.gateway.timeout-ms:5000}") long timeoutMs,
+            @Value("${razorpay.gateway.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${razorpay.gateway.circuit.open-ms:30000}") long openMs) {
+        this.razorpayApi = razorpayApi;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+
+        // Bulkhead: fixed pool plus a short queue, anything beyond is rejected
+        // instead of piling up request threads behind a slow gateway
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "razorpay-gateway-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.rejectedCounter = meterRegistry.counter("payment.gateway.rejected");
+        this.shortCircuitedCounter = meterRegistry.counter("payment.gateway.short_circuited");
+        meterRegistry.gauge("payment.gateway.active", executor, ThreadPoolExecutor::getActiveCount);
+        meterRegistry.gauge("payment.gateway.queued", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("payment.gateway.circuit.open", circuitBreaker, cb -> cb.isOpen() ? 1 : 0);
+    }
+
+    @Override
+    public JSONObject createOrder(JSONObject orderRequest) throws RazorpayException {
+        return call("orders.create", () -> razorpayApi.createOrder(orderRequest));
+    }
+
+    @Override
+    public JSONObject fetchPayment(String razorpayPaymentId) throws RazorpayException {
+        return call("payments.fetch", () -> razorpayApi.fetchPayment(razorpayPaymentId));
+    }
+
+    @Override
+    public JSONObject refundPayment(String razorpayPaymentId, JSONObject refundRequest) throws RazorpayException {
+        return call("payments.refund", () -> razorpayApi.refundPayment(razorpayPaymentId, refundRequest));
+    }
+
+    private JSONObject call(String operation, Callable<JSONObject> request) throws RazorpayException {
+        if (!circuitBreaker.allowRequest()) {
+            shortCircuitedCounter.increment();
+            throw new RazorpayException("Payment gateway unavailable (circuit open), please retry shortly");
+        }
+
+        long start = System.nanoTime();
+        String outcome = "success";
+        Future<JSONObject> future = null;
+        try {
+            future = executor.submit(request);
+            JSONObject result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuitBreaker.recordSuccess();
+            return result;
+        } catch (RejectedExecutionException e) {
+            // Bulkhead full, not a gateway fault so the circuit is left alone
+            outcome = "rejected";
+            rejectedCounter.increment();
+            circuitBreaker.releaseTrial();
+            throw new RazorpayException("Payment gateway busy, please retry shortly");
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            future.cancel(true);
+            circuitBreaker.recordFailure();
+            throw new RazorpayException("Payment gateway timed out after " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RazorpayApi.ClientErrorException) {
+                // The gateway answered, only this request was bad: users sending
+                // unknown payment ids must not open the circuit for everyone
+                outcome = "client_error";
+                circuitBreaker.recordSuccess();
+                throw (RazorpayException) cause;
+            }
+            outcome = "error";
+            circuitBreaker.recordFailure();
+            if (cause instanceof RazorpayException) {
+                throw (RazorpayException) cause;
+            }
+            throw new RazorpayException("Payment gateway call failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            outcome = "interrupted";
+            future.cancel(true);
+            circuitBreaker.releaseTrial();
+            Thread.currentThread().interrupt();
+            throw new RazorpayException("Interrupted while waiting for payment gateway", e);
+        } finally {
+            Timer.builder("payment.gateway.latency")
+                    .description("Latency of payment gateway calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Consecutive-failure circuit breaker.
+     * Opens after failureThreshold failures in a row, then lets a single trial
+     * call through once openMs has passed.
+     */
+    static class CircuitBreaker {
+        private final int failureThreshold;
+        private final long openMs;
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong openedAt = new AtomicLong(0);
+        private final AtomicBoolean trialInFlight = new AtomicBoolean(false);
+
+        CircuitBreaker(int failureThreshold, long openMs) {
+            this.failureThreshold = failureThreshold;
+            this.openMs = openMs;
+        }
+
+        boolean isOpen() {
+            return openedAt.get() != 0;
+        }
+
+        boolean allowRequest() {
+            long opened = openedAt.get();
+            if (opened == 0) {
+                return true;
+            }
+            if (System.currentTimeMillis() - opened < openMs) {
+                return false;
+            }
+            // Half-open: exactly one caller gets to probe the gateway
+            return trialInFlight.compareAndSet(false, true);
+        }
+
+        void recordSuccess() {
+            consecutiveFailures.set(0);
+            openedAt.set(0);
+            trialInFlight.set(false);
+        }
+
+        void recordFailure() {
+            if (trialInFlight.getAndSet(false) || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                openedAt.set(System.currentTimeMillis());
+            }
+        }
+
+        void releaseTrial() {
+            trialInFlight.set(false);
+        }
+    }
+}
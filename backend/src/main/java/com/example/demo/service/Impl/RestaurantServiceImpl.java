@@ -21,6 +21,9 @@ public class RestaurantServiceImpl implements RestaurantService {
     @Autowired
     private StationRepository stationRepository;
 
+    @Autowired
+    private FoodSearchIndex foodSearchIndex;
+
     @Override
     @Transactional
     public Restaurant createRestaurant(RestaurantRequest request, com.example.demo.entity.User owner) {
@@ -42,7 +45,9 @@ public class RestaurantServiceImpl implements RestaurantService {
         // restaurant.setIsApproved(false); // Removed Admin approval
         restaurant.setRating(0.0);
 
-        return restaurantRepository.save(restaurant);
+        Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+        foodSearchIndex.indexRestaurantAfterCommit(savedRestaurant);
+        return savedRestaurant;
     }
 
     @Override
@@ -91,7 +96,9 @@ public class RestaurantServiceImpl implements RestaurantService {
             restaurant.setActive(request.getActive());
         }
 
-        return restaurantRepository.save(restaurant);
+        Restaurant updatedRestaurant = restaurantRepository.save(restaurant);
+        foodSearchIndex.indexRestaurantAfterCommit(updatedRestaurant);
+        return updatedRestaurant;
     }
 
     @Override
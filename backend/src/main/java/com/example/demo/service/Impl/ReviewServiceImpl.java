@@ -3,19 +3,26 @@ package com.example.demo.service.Impl;
 import com.example.demo.dto.ReviewRequest;
 import com.example.demo.dto.ReviewResponse;
 import com.example.demo.entity.Order;
-import com.example.demo.entity.Restaurant;
 import com.example.demo.entity.Review;
 import com.example.demo.entity.User;
 import com.example.demo.repository.OrderRepository;
 import com.example.demo.repository.RestaurantRepository;
 import com.example.demo.repository.ReviewRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.OrderSummaryService;
 import com.example.demo.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -34,6 +41,17 @@ public class ReviewServiceImpl implements ReviewService {
     @Autowired
     private RestaurantRepository restaurantRepository;
 
+    @Autowired
+    private FoodSearchIndex foodSearchIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    private static final long[] NO_REVIEWS = new long[7];
+
     @Override
     @Transactional
     public ReviewResponse addReview(ReviewRequest request, Long userId) {
@@ -66,6 +84,9 @@ public class ReviewServiceImpl implements ReviewService {
             throw new RuntimeException("You have already reviewed this order");
         }
 
+        if (request.getRating() == null || request.getRating() < 1 || request.getRating() > 5)
+            throw new RuntimeException("Rating must be between 1 and 5");
+
         if (userId == null)
             throw new RuntimeException("User ID is required");
         User user = userRepository.findById(userId)
@@ -85,28 +106,81 @@ public class ReviewServiceImpl implements ReviewService {
                 + request.getComment());
         Review savedReview = reviewRepository.save(review);
         System.out.println("DEBUG: Review saved successfully. ID: " + savedReview.getId());
+        orderSummaryService.reviewAdded(savedReview);
 
-        // Update restaurant average rating
-        try {
-            updateRestaurantRating(order.getRestaurant());
-            System.out.println(
-                    "DEBUG: Restaurant (ID: " + order.getRestaurant().getId() + ") rating updated after review.");
-        } catch (Exception e) {
-            System.err.println("DEBUG: Error updating restaurant rating: " + e.getMessage());
-            // We don't fail the whole transaction if rating update fails
-        }
+        // Update restaurant rating aggregates in the same transaction as the review
+        updateRestaurantRating(order.getRestaurant().getId(), request.getRating());
+        System.out.println("DEBUG: Restaurant (ID: " + order.getRestaurant().getId() + ") rating updated after review.");
 
         return ReviewResponse.fromEntity(savedReview);
     }
 
-    private void updateRestaurantRating(Restaurant restaurant) {
-        List<Review> reviews = reviewRepository.findByRestaurantIdOrderByCreatedAtDesc(restaurant.getId());
-        if (reviews.isEmpty()) {
-            return;
+    // O(1) per review: adds to the running sums in SQL instead of re-reading every review
+    private void updateRestaurantRating(Long restaurantId, Integer rating) {
+        restaurantRepository.addRating(restaurantId, rating);
+        restaurantRepository.refreshAverageRating(restaurantId);
+        // Rating feeds search ranking
+        foodSearchIndex.updateRestaurantRatingAfterCommit(restaurantId, restaurantRepository.findRating(restaurantId));
+    }
+
+    // At startup and on a slow schedule. Void, since a listener's return value
+    // would be published as another event
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${review.rating.reconcile-ms:21600000}",
+            initialDelayString = "${review.rating.reconcile-ms:21600000}")
+    public void scheduledRatingReconcile() {
+        reconcileRestaurantRatings();
+    }
+
+    /**
+     * Recompute every restaurant's aggregates from reviews in one grouped
+     * query and repair the ones that drifted (rows edited by hand, columns
+     * added to an existing database). Each repair locks the restaurant row
+     * and recounts it, so reviews arriving meanwhile are not lost.
+     */
+    @Override
+    public int reconcileRestaurantRatings() {
+        Map<Long, long[]> actual = new HashMap<>();
+        for (Object[] row : reviewRepository.aggregateRatingsByRestaurant()) {
+            actual.put((Long) row[0], aggregates(row));
+        }
+
+        int repaired = 0;
+        for (Object[] row : restaurantRepository.findAllRatingAggregates()) {
+            Long restaurantId = (Long) row[0];
+            long[] stored = aggregates(row);
+            if (!Arrays.equals(stored, actual.getOrDefault(restaurantId, NO_REVIEWS))) {
+                Boolean fixed = transactionTemplate.execute(status -> repairRating(restaurantId));
+                if (Boolean.TRUE.equals(fixed)) {
+                    repaired++;
+                }
+            }
+        }
+        if (repaired > 0) {
+            System.out.println("⭐ Rating reconciliation repaired " + repaired + " restaurants");
+        }
+        return repaired;
+    }
+
+    private boolean repairRating(Long restaurantId) {
+        if (restaurantRepository.findByIdWithLock(restaurantId).isEmpty()) {
+            return false;
+        }
+        List<Object[]> rows = reviewRepository.aggregateRatings(restaurantId);
+        long[] a = rows.isEmpty() ? NO_REVIEWS : aggregates(rows.get(0));
+        restaurantRepository.setRatingAggregates(restaurantId, a[0], a[1], a[2], a[3], a[4], a[5], a[6]);
+        restaurantRepository.refreshAverageRating(restaurantId);
+        foodSearchIndex.updateRestaurantRatingAfterCommit(restaurantId, restaurantRepository.findRating(restaurantId));
+        return true;
+    }
+
+    // sum, count, then 1 to 5 star counts from a row that starts with the restaurant id
+    private static long[] aggregates(Object[] row) {
+        long[] values = new long[7];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = row[i + 1] != null ? ((Number) row[i + 1]).longValue() : 0L;
         }
-        double avg = reviews.stream().mapToInt(Review::getRating).average().orElse(0.0);
-        restaurant.setRating(avg);
-        restaurantRepository.save(restaurant);
+        return values;
     }
 
     @Override
@@ -0,0 +1,409 @@
+package com.example.demo.service.Impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-Sent Events fan-out over topics (an owner, an order, a train).
+ *
+ * Connections are async servlet requests, so an idle subscriber holds no
+ * thread. Publishing only appends to the topic's replay buffer and to each
+ * subscriber's bounded queue; a small pool drains the queues, one drain at
+ * a time per subscriber. A client whose queue overflows is disconnected and
+ * resumes from its last event id.
+ *
+ * A send to a client that stopped reading blocks its worker until the
+ * container's own write timeout. Once a send has taken longer than
+ * writeTimeoutMillis, the client is dropped and the pool gets a spare
+ * thread until that worker comes back, so stalled sockets can't take the
+ * whole pool and hold everyone else's events.
+ *
+ * Event ids are "epoch-sequence". A reconnect sending Last-Event-ID gets
+ * the events it missed from the replay buffer, or a "resync" event when
+ * they are gone (buffer overrun, or the server restarted).
+ */
+public class SseEventHub<K> {
+
+    public static final String RESYNC = "resync";
+
+    // Current state sent to a stream right after it opens, after any replayed events
+    public record Snapshot(String name, Object data) {
+    }
+
+    private record Event(String id, long sequence, String name, Object data) {
+    }
+
+    private final class Topic {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        final ArrayDeque<Event> recent = new ArrayDeque<>(); // Only touched inside topics.compute
+        long evictedUpTo; // Sequence of the newest event dropped from recent
+        volatile long lastActivity = System.currentTimeMillis();
+    }
+
+    private final class Subscriber {
+        final K key;
+        final SseEmitter emitter;
+        final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long sendingSince; // When the send in progress started
+        // Guarded by this, together with membership of sending
+        boolean completeAfterSend; // Closed during a send, the drain completes the emitter once it returns
+        boolean spareLent; // Dropped while stalled, the pool got a thread in its place
+
+        Subscriber(K key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+    }
+
+    private static final Event HEARTBEAT = new Event(null, 0, null, null);
+
+    // Threads lent at most in place of stalled workers, past that a stalled send holds its worker
+    private static final int MAX_SPARE_THREADS = 64;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<K, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ThreadPoolExecutor senders;
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    private int spareThreads; // Guarded by this
+
+    private final long timeoutMillis;
+    private final long writeTimeoutMillis;
+    private final int maxSubscribers;
+    private final int replaySize;
+    private final int queueCapacity;
+
+    private final Counter publishedCounter;
+    private final Counter droppedCounter;
+    private final Counter stalledCounter;
+
+    public SseEventHub(String name, int workers, long timeoutMillis, long writeTimeoutMillis, int maxSubscribers,
+            int replaySize, int queueCapacity, MeterRegistry meterRegistry) {
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.replaySize = replaySize;
+        this.queueCapacity = queueCapacity;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxSubscribers), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-sse-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.publishedCounter = meterRegistry.counter(name + ".stream.published");
+        this.droppedCounter = meterRegistry.counter(name + ".stream.dropped");
+        this.stalledCounter = meterRegistry.counter(name + ".stream.stalled");
+        meterRegistry.gauge(name + ".stream.subscribers", subscriberCount);
+    }
+
+    /**
+     * Open a stream on a topic. lastEventId is the Last-Event-ID the client
+     * reconnects with, null for a fresh subscription. Null when the hub is
+     * at its subscriber limit.
+     */
+    public SseEmitter subscribe(K key, String lastEventId) {
+        return subscribe(key, lastEventId, List.of());
+    }
+
+    public SseEmitter subscribe(K key, String lastEventId, List<Snapshot> snapshots) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(key, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Replay and registration happen inside compute, so nothing published meanwhile is missed or
+        // repeated and an idle topic can't be dropped under a new subscriber
+        topics.compute(key, (k, topic) -> {
+            Topic current = topic != null ? topic : new Topic();
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                long after = parseSequence(lastEventId);
+                if (after < 0 || after < current.evictedUpTo) {
+                    enqueue(subscriber, new Event(currentId(), sequence.get(), RESYNC, Map.of()));
+                } else {
+                    for (Event event : current.recent) {
+                        if (event.sequence() > after) {
+                            enqueue(subscriber, event);
+                        }
+                    }
+                }
+            }
+            for (Snapshot snapshot : snapshots) {
+                enqueue(subscriber, new Event(null, 0, snapshot.name(), snapshot.data()));
+            }
+            current.subscribers.add(subscriber);
+            current.lastActivity = System.currentTimeMillis();
+            return current;
+        });
+        return emitter;
+    }
+
+    // Queue an event for every subscriber of the topic and keep it for replay; never blocks on a client
+    public void publish(K key, String name, Object data) {
+        topics.compute(key, (k, topic) -> {
+            Topic current = topic != null ? topic : new Topic();
+            long seq = sequence.incrementAndGet();
+            Event event = new Event(epoch + "-" + seq, seq, name, data);
+            current.recent.addLast(event);
+            while (current.recent.size() > replaySize) {
+                current.evictedUpTo = current.recent.removeFirst().sequence();
+            }
+            current.lastActivity = System.currentTimeMillis();
+            for (Subscriber subscriber : current.subscribers) {
+                enqueue(subscriber, event);
+            }
+            return current;
+        });
+        publishedCounter.increment();
+        dropStalled();
+    }
+
+    /**
+     * Queue a state snapshot (a position, a gauge) for the topic's current
+     * subscribers only. It has no id and is not replayed, since the next
+     * one supersedes it, so it doesn't push real events out of the buffer.
+     */
+    public void broadcast(K key, String name, Object data) {
+        Topic topic = topics.get(key);
+        if (topic == null || topic.subscribers.isEmpty()) {
+            return;
+        }
+        Event event = new Event(null, 0, name, data);
+        for (Subscriber subscriber : topic.subscribers) {
+            enqueue(subscriber, event);
+        }
+        publishedCounter.increment();
+        dropStalled();
+    }
+
+    public boolean hasSubscribers(K key) {
+        Topic topic = topics.get(key);
+        return topic != null && !topic.subscribers.isEmpty();
+    }
+
+    /**
+     * Send a comment line to every subscriber so proxies keep the connection
+     * open and dead clients are noticed, drop stalled clients even when no
+     * event comes, and forget topics that had no subscriber and no event for
+     * longer than idleMillis.
+     */
+    public void heartbeat(long idleMillis) {
+        dropStalled();
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        List<K> idle = new ArrayList<>();
+        topics.forEach((key, topic) -> {
+            if (topic.subscribers.isEmpty()) {
+                if (topic.lastActivity < cutoff) {
+                    idle.add(key);
+                }
+                return;
+            }
+            for (Subscriber subscriber : topic.subscribers) {
+                enqueue(subscriber, HEARTBEAT);
+            }
+        });
+        for (K key : idle) {
+            topics.computeIfPresent(key,
+                    (k, topic) -> topic.subscribers.isEmpty() && topic.lastActivity < cutoff ? null : topic);
+        }
+    }
+
+    public void shutdown() {
+        senders.shutdownNow();
+        topics.values().forEach(topic -> topic.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void enqueue(Subscriber subscriber, Event event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (subscriber.queued.incrementAndGet() > queueCapacity) {
+            // Too far behind: drop it, the client reconnects and resumes from its last event
+            droppedCounter.increment();
+            close(subscriber);
+            return;
+        }
+        subscriber.queue.add(event);
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.draining.set(false);
+            close(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        boolean completeAfterSend = false;
+        boolean spareLent = false;
+        try {
+            Event event;
+            while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+                subscriber.queued.decrementAndGet();
+                subscriber.sendingSince = System.currentTimeMillis();
+                sending.add(subscriber);
+                try {
+                    send(subscriber, event);
+                } finally {
+                    synchronized (subscriber) {
+                        sending.remove(subscriber);
+                        completeAfterSend = subscriber.completeAfterSend;
+                        spareLent = subscriber.spareLent;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // Client went away
+            close(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (completeAfterSend) {
+            complete(subscriber.emitter);
+        }
+        if (spareLent) {
+            returnSpareThread();
+        }
+        // An event may have arrived between the last poll and the flag reset
+        if (!subscriber.closed.get() && !subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void send(Subscriber subscriber, Event event) throws Exception {
+        if (event == HEARTBEAT) {
+            subscriber.emitter.send(SseEmitter.event().comment("ping"));
+            return;
+        }
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.name());
+        if (event.id() != null) {
+            builder.id(event.id());
+        }
+        subscriber.emitter.send(builder.data(event.data(), MediaType.APPLICATION_JSON));
+    }
+
+    // Drops clients whose send has been blocked for longer than the write timeout
+    private void dropStalled() {
+        if (sending.isEmpty()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - writeTimeoutMillis;
+        for (Subscriber subscriber : sending) {
+            synchronized (subscriber) {
+                if (sending.contains(subscriber) && subscriber.sendingSince < cutoff && remove(subscriber)) {
+                    stalledCounter.increment();
+                    subscriber.completeAfterSend = true;
+                    subscriber.spareLent = lendSpareThread();
+                }
+            }
+        }
+    }
+
+    private synchronized boolean lendSpareThread() {
+        if (spareThreads >= MAX_SPARE_THREADS) {
+            return false;
+        }
+        spareThreads++;
+        senders.setMaximumPoolSize(senders.getMaximumPoolSize() + 1);
+        senders.setCorePoolSize(senders.getCorePoolSize() + 1);
+        return true;
+    }
+
+    private synchronized void returnSpareThread() {
+        spareThreads--;
+        senders.setCorePoolSize(senders.getCorePoolSize() - 1);
+        senders.setMaximumPoolSize(senders.getMaximumPoolSize() - 1);
+    }
+
+    /**
+     * Completing an emitter waits for a send in progress on it, so a client
+     * closed mid-send is left to its drain, which completes it once the send
+     * returns or fails.
+     */
+    private void close(Subscriber subscriber) {
+        if (!remove(subscriber)) {
+            return;
+        }
+        synchronized (subscriber) {
+            if (sending.contains(subscriber)) {
+                subscriber.completeAfterSend = true;
+                return;
+            }
+        }
+        complete(subscriber.emitter);
+    }
+
+    private static void complete(SseEmitter emitter) {
+        try {
+            emitter.complete();
+        } catch (Exception e) {
+            // Already completed by the container
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return false;
+        }
+        subscriberCount.decrementAndGet();
+        Topic topic = topics.get(subscriber.key);
+        if (topic != null) {
+            topic.subscribers.remove(subscriber);
+            topic.lastActivity = System.currentTimeMillis();
+        }
+        subscriber.queue.clear();
+        return true;
+    }
+
+    private String currentId() {
+        return epoch + "-" + sequence.get();
+    }
+
+    // Sequence in an event id from this run, -1 when it is from another run or malformed
+    private long parseSequence(String eventId) {
+        int dash = eventId.lastIndexOf('-');
+        if (dash < 0 || !eventId.substring(0, dash).equals(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(dash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.entity.OutboxEvent;
+import com.example.demo.repository.OrderTrackingRepository;
+import com.example.demo.service.OutboxEventHandler;
+import com.example.demo.service.OutboxService;
+import com.example.demo.service.TrackingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the OrderTracking row for a newly placed order.
+ */
+@Component
+public class TrackingOutboxHandler implements OutboxEventHandler {
+
+    @Autowired
+    private TrackingService trackingService;
+
+    @Autowired
+    private OrderTrackingRepository trackingRepository;
+
+    @Override
+    public String getEventType() {
+        return OutboxService.ORDER_CREATED;
+    }
+
+    @Override
+    public void handle(OutboxEvent event) {
+        // Retries must not fail on a tracking row created by an earlier attempt
+        if (trackingRepository.existsByOrderId(event.getAggregateId())) {
+            return;
+        }
+        trackingService.createTracking(event.getAggregateId());
+    }
+}
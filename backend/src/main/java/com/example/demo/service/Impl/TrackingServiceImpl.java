@@ -5,6 +5,7 @@ import com.example.demo.entity.*;
 import com.example.demo.repository.*;
 import com.example.demo.service.IRCTCMockService;
 import com.example.demo.service.TrackingService;
+import com.example.demo.service.TrackingStreamService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +25,9 @@ public class TrackingServiceImpl implements TrackingService {
     @Autowired
     private StationRepository stationRepository;
 
+    @Autowired
+    private TrackingStreamService trackingStreamService;
+
     @Override
     @Transactional
     public OrderTrackingResponse createTracking(Long orderId) {
@@ -41,7 +45,9 @@ public class TrackingServiceImpl implements TrackingService {
         tracking.updateStatus(DeliveryStatus.PLACED);
 
         OrderTracking saved = trackingRepository.save(tracking);
-        return OrderTrackingResponse.fromEntity(saved);
+        OrderTrackingResponse response = OrderTrackingResponse.fromEntity(saved);
+        trackingStreamService.publishAfterCommit(response);
+        return response;
     }
 
     @Override
@@ -67,7 +73,33 @@ public class TrackingServiceImpl implements TrackingService {
         tracking.updateStatus(newStatus);
         OrderTracking updated = trackingRepository.save(tracking);
 
-        return OrderTrackingResponse.fromEntity(updated);
+        OrderTrackingResponse response = OrderTrackingResponse.fromEntity(updated);
+        trackingStreamService.publishAfterCommit(response);
+        return response;
+    }
+
+    @Override
+    @Transactional
+    public void syncOrderStatus(Long orderId, Order.OrderStatus status) {
+        DeliveryStatus deliveryStatus = toDeliveryStatus(status);
+        trackingRepository.findByOrderId(orderId).ifPresent(tracking -> {
+            if (tracking.getCurrentStatus() != deliveryStatus) {
+                updateOrderStatus(orderId, deliveryStatus);
+            }
+        });
+    }
+
+    // A pending order shows as placed; the other order statuses have a delivery status of the same name
+    private static DeliveryStatus toDeliveryStatus(Order.OrderStatus status) {
+        return switch (status) {
+            case PENDING -> DeliveryStatus.PLACED;
+            case CONFIRMED -> DeliveryStatus.CONFIRMED;
+            case PREPARING -> DeliveryStatus.PREPARING;
+            case READY -> DeliveryStatus.READY;
+            case OUT_FOR_DELIVERY -> DeliveryStatus.OUT_FOR_DELIVERY;
+            case DELIVERED -> DeliveryStatus.DELIVERED;
+            case CANCELLED -> DeliveryStatus.CANCELLED;
+        };
     }
 
     @Override
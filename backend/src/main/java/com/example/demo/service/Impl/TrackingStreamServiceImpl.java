@@ -0,0 +1,145 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.OrderTrackingResponse;
+import com.example.demo.dto.TrainStatusResponse;
+import com.example.demo.exception.StreamLimitException;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.OrderTrackingRepository;
+import com.example.demo.service.IRCTCMockService;
+import com.example.demo.service.TrackingStreamService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Passenger tracking streams, one topic per order. Replaces polling of
+ * /api/tracking/order/{id} and /train-status: delivery status transitions
+ * are pushed as they commit, and train positions on a fixed tick. The
+ * position of a train is computed once per tick no matter how many orders
+ * on it are being watched, then broadcast to each of them.
+ */
+@Service
+public class TrackingStreamServiceImpl implements TrackingStreamService {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderTrackingRepository trackingRepository;
+
+    @Autowired
+    private IRCTCMockService irctcService;
+
+    @Value("${tracking.stream.idle-topic-ms:3600000}")
+    private long idleTopicMillis;
+
+    private final SseEventHub<Long> hub;
+    // Train of every order with an open stream, dropped once its last stream closes
+    private final Map<Long, String> watchedOrders = new ConcurrentHashMap<>();
+    // Last position per train, sent to new streams so they don't wait for the next tick
+    private final Map<String, TrainStatusResponse> latestTrainStatus = new ConcurrentHashMap<>();
+
+    private final Counter trainStatusCounter;
+
+    public TrackingStreamServiceImpl(@Value("${tracking.stream.workers:4}") int workers,
+            @Value("${tracking.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${tracking.stream.write-timeout-ms:10000}") long writeTimeoutMillis,
+            @Value("${tracking.stream.max-subscribers:20000}") int maxSubscribers,
+            @Value("${tracking.stream.replay-size:20}") int replaySize,
+            @Value("${tracking.stream.queue-capacity:64}") int queueCapacity,
+            MeterRegistry meterRegistry) {
+        this.hub = new SseEventHub<>("tracking", workers, timeoutMillis, writeTimeoutMillis, maxSubscribers,
+                replaySize, queueCapacity, meterRegistry);
+        this.trainStatusCounter = meterRegistry.counter("tracking.train_status.computed");
+        meterRegistry.gauge("tracking.stream.trains", latestTrainStatus, Map::size);
+    }
+
+    @Override
+    public SseEmitter subscribe(Long orderId, String lastEventId) {
+        String trainNumber = orderRepository.findTrainNumber(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+
+        List<SseEventHub.Snapshot> snapshots = new ArrayList<>();
+        trackingRepository.findByOrderId(orderId).ifPresent(tracking -> snapshots
+                .add(new SseEventHub.Snapshot(DELIVERY_STATUS, OrderTrackingResponse.fromEntity(tracking))));
+        TrainStatusResponse trainStatus = latestTrainStatus.get(trainNumber);
+        if (trainStatus != null) {
+            snapshots.add(new SseEventHub.Snapshot(TRAIN_STATUS, trainStatus));
+        }
+
+        SseEmitter emitter = hub.subscribe(orderId, lastEventId, snapshots);
+        if (emitter == null) {
+            throw new StreamLimitException("Too many live tracking streams, please fall back to refreshing");
+        }
+        // Watched only once the stream is open, so the tick below never prunes an order that is still subscribing
+        watchedOrders.put(orderId, trainNumber);
+        return emitter;
+    }
+
+    @Override
+    public void publishAfterCommit(OrderTrackingResponse tracking) {
+        Long orderId = tracking.getOrderId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            hub.publish(orderId, DELIVERY_STATUS, tracking);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                hub.publish(orderId, DELIVERY_STATUS, tracking);
+            }
+        });
+    }
+
+    // One status per watched train, fanned out to every watched order on it
+    @Scheduled(fixedDelayString = "${tracking.stream.train-tick-ms:15000}")
+    public void pushTrainStatus() {
+        // Pruned one order at a time against its live streams, atomically with a concurrent subscribe's put
+        for (Long orderId : watchedOrders.keySet()) {
+            watchedOrders.computeIfPresent(orderId, (id, trainNumber) -> hub.hasSubscribers(id) ? trainNumber : null);
+        }
+
+        Map<String, List<Long>> ordersByTrain = new HashMap<>();
+        watchedOrders.forEach((orderId, trainNumber) -> ordersByTrain
+                .computeIfAbsent(trainNumber, t -> new ArrayList<>()).add(orderId));
+        latestTrainStatus.keySet().retainAll(ordersByTrain.keySet());
+
+        ordersByTrain.forEach((trainNumber, orderIds) -> {
+            TrainStatusResponse status;
+            try {
+                status = irctcService.getTrainStatus(trainNumber);
+            } catch (Exception e) {
+                System.err.println("⚠️ Train status for " + trainNumber + " failed: " + e.getMessage());
+                return;
+            }
+            trainStatusCounter.increment();
+            latestTrainStatus.put(trainNumber, status);
+            for (Long orderId : orderIds) {
+                hub.broadcast(orderId, TRAIN_STATUS, status);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${tracking.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        hub.heartbeat(idleTopicMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hub.shutdown();
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.TrainRouteResponse;
+import com.example.demo.entity.Train;
+import com.example.demo.repository.TrainRepository;
+import com.example.demo.repository.TrainRouteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-only copy of every train's route, loaded in one query and swapped
+ * as a whole on refresh. Route lookups never touch the database. A
+ * TrainService write only reloads the route of the train it changed, the
+ * whole copy is rebuilt on a slow schedule for rows edited outside the
+ * application.
+ */
+@Component
+public class TrainRouteCache {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final Stop[] NO_STOPS = new Stop[0];
+    private static final TrainInfo[] NO_TRAINS = new TrainInfo[0];
+
+    @Autowired
+    private TrainRouteRepository trainRouteRepository;
+
+    @Autowired
+    private TrainRepository trainRepository;
+
+    private volatile RouteGraph graph;
+    private final AtomicLong generations = new AtomicLong();
+
+    public TrainRouteCache(MeterRegistry meterRegistry) {
+        meterRegistry.gauge("train.route_cache.trains", this,
+                cache -> cache.graph == null ? 0 : cache.graph.routes.size());
+    }
+
+    // One stop of a route, times are pre-formatted as HH:mm
+    public record Stop(Long routeId, Long stationId, String stationCode, String stationName, Double latitude,
+            Double longitude, Integer stopNumber, String scheduledArrival, String scheduledDeparture,
+            String platformNumber, Integer distanceFromSource, Integer dayNumber) {
+
+        public TrainRouteResponse toResponse() {
+            return new TrainRouteResponse(routeId, stationId, stationCode, stationName, stopNumber,
+                    scheduledArrival, scheduledDeparture, platformNumber, distanceFromSource, dayNumber);
+        }
+    }
+
+    // Train fields shown next to a route
+    public record TrainInfo(Long id, String trainNumber, String trainName, String source, String destination) {
+    }
+
+    // routableTrains: active trains with a complete route, in id order; generation is unique per load
+    private record RouteGraph(long generation, Set<Long> trainIds, Map<Long, Stop[]> routes,
+            TrainInfo[] routableTrains) {
+    }
+
+    public boolean hasTrain(Long trainId) {
+        return graph().trainIds.contains(trainId);
+    }
+
+    // Stops of the train in stop order, empty when it has no route
+    public List<Stop> getStops(Long trainId) {
+        return List.of(graph().routes.getOrDefault(trainId, NO_STOPS));
+    }
+
+    public List<TrainRouteResponse> getRouteResponses(Long trainId) {
+        Stop[] stops = graph().routes.getOrDefault(trainId, NO_STOPS);
+        List<TrainRouteResponse> responses = new ArrayList<>(stops.length);
+        for (Stop stop : stops) {
+            responses.add(stop.toResponse());
+        }
+        return responses;
+    }
+
+    public List<String> getStationNames(Long trainId) {
+        Stop[] stops = graph().routes.getOrDefault(trainId, NO_STOPS);
+        List<String> names = new ArrayList<>(stops.length);
+        for (Stop stop : stops) {
+            names.add(stop.stationName());
+        }
+        return names;
+    }
+
+    // Active trains that have a complete route, in a fixed (id) order so a
+    // PNR keeps mapping to the same train between rebuilds
+    public TrainInfo routableTrain(int selector) {
+        TrainInfo[] trains = graph().routableTrains;
+        return trains.length == 0 ? null : trains[Math.floorMod(selector, trains.length)];
+    }
+
+    // Snapshot of every routable train, in id order
+    public List<TrainInfo> routableTrains() {
+        return List.of(graph().routableTrains);
+    }
+
+    // Changes whenever the routes are reloaded, so derived data knows to rebuild
+    public long generation() {
+        return graph().generation;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${train.route-cache.refresh-ms:3600000}",
+            initialDelayString = "${train.route-cache.refresh-ms:3600000}")
+    public void refresh() {
+        RouteGraph loaded = load();
+        graph = loaded;
+        System.out.println("🚆 Route cache loaded: " + loaded.routes.size() + " routes for "
+                + loaded.trainIds.size() + " trains");
+    }
+
+    // Reload this train's entry once the caller's transaction has committed,
+    // readers keep the previous graph until the new one is complete
+    public void refreshTrainAfterCommit(Train train) {
+        Long trainId = train.getId();
+        boolean active = Boolean.TRUE.equals(train.getActive());
+        TrainInfo info = new TrainInfo(trainId, train.getTrainNumber(), train.getTrainName(), train.getSource(),
+                train.getDestination());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshTrain(trainId, active, info);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshTrain(trainId, active, info);
+            }
+        });
+    }
+
+    // Copy of the current graph with one train's route and info replaced
+    private synchronized void refreshTrain(Long trainId, boolean active, TrainInfo info) {
+        RouteGraph current = graph();
+        List<Stop> stops = new ArrayList<>();
+        boolean complete = true;
+        for (Object[] row : trainRouteRepository.findRouteStopsByTrainId(trainId)) {
+            if (row[2] == null || row[3] == null) {
+                complete = false;
+                continue;
+            }
+            stops.add(toStop(row));
+        }
+
+        Map<Long, Stop[]> routes = new HashMap<>(current.routes);
+        if (stops.isEmpty()) {
+            routes.remove(trainId);
+        } else {
+            routes.put(trainId, stops.toArray(NO_STOPS));
+        }
+        Set<Long> trainIds = new HashSet<>(current.trainIds);
+        trainIds.add(trainId);
+        List<TrainInfo> routable = new ArrayList<>();
+        for (TrainInfo train : current.routableTrains) {
+            if (!train.id().equals(trainId)) {
+                routable.add(train);
+            }
+        }
+        if (active && complete && !stops.isEmpty()) {
+            routable.add(info);
+        }
+        routable.sort(Comparator.comparing(TrainInfo::id));
+
+        graph = new RouteGraph(generations.incrementAndGet(), Set.copyOf(trainIds), Map.copyOf(routes),
+                routable.toArray(NO_TRAINS));
+    }
+
+    private RouteGraph graph() {
+        RouteGraph current = graph;
+        if (current == null) {
+            synchronized (this) {
+                current = graph;
+                if (current == null) {
+                    current = load();
+                    graph = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private RouteGraph load() {
+        Map<Long, List<Stop>> stopsByTrain = new HashMap<>();
+        Set<Long> incomplete = new HashSet<>();
+        for (Object[] row : trainRouteRepository.findAllRouteStops()) {
+            Long trainId = (Long) row[0];
+            if (row[2] == null || row[3] == null) {
+                // Route points at a station that no longer exists
+                incomplete.add(trainId);
+                continue;
+            }
+            stopsByTrain.computeIfAbsent(trainId, id -> new ArrayList<>()).add(toStop(row));
+        }
+
+        // Complete: at least one stop and every stop's station present
+        Map<Long, Stop[]> routes = new HashMap<>();
+        Set<Long> complete = new HashSet<>();
+        stopsByTrain.forEach((trainId, stops) -> {
+            routes.put(trainId, stops.toArray(NO_STOPS));
+            if (!incomplete.contains(trainId)) {
+                complete.add(trainId);
+            }
+        });
+
+        Set<Long> trainIds = new HashSet<>();
+        List<TrainInfo> routable = new ArrayList<>();
+        for (Train train : trainRepository.findAll()) {
+            trainIds.add(train.getId());
+            if (Boolean.TRUE.equals(train.getActive()) && complete.contains(train.getId())) {
+                routable.add(new TrainInfo(train.getId(), train.getTrainNumber(), train.getTrainName(),
+                        train.getSource(), train.getDestination()));
+            }
+        }
+        routable.sort(Comparator.comparing(TrainInfo::id));
+
+        return new RouteGraph(generations.incrementAndGet(), Set.copyOf(trainIds), Map.copyOf(routes),
+                routable.toArray(NO_TRAINS));
+    }
+
+    private static Stop toStop(Object[] row) {
+        return new Stop((Long) row[1], (Long) row[2], (String) row[3], (String) row[4], (Double) row[5],
+                (Double) row[6], (Integer) row[7], format((LocalTime) row[8]), format((LocalTime) row[9]),
+                (String) row[10], (Integer) row[11], (Integer) row[12]);
+    }
+
+    private static String format(LocalTime time) {
+        return time != null ? time.format(TIME_FORMAT) : null;
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.TrainSearchResponse;
+import com.example.demo.entity.Train;
+import com.example.demo.repository.TrainRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory search over active trains: a trie over train numbers for
+ * prefix matches and trigram postings over names and numbers for
+ * substring matches. Built at startup and kept current by TrainService
+ * writes; station lists come from TrainRouteCache, so a search makes no
+ * database queries.
+ */
+@Component
+public class TrainSearchIndex {
+
+    private static final int GRAM = 3;
+
+    @Autowired
+    private TrainRepository trainRepository;
+
+    @Autowired
+    private TrainRouteCache trainRouteCache;
+
+    @Value("${train.search.max-results:20}")
+    private int maxResults;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TrieNode numberTrie = new TrieNode();
+    private final Map<String, Set<Long>> nameGrams = new HashMap<>();
+    private final Map<String, Set<Long>> numberGrams = new HashMap<>();
+    private volatile boolean built;
+
+    private record Entry(Long id, String trainNumber, String trainName, String source, String destination,
+            String lowerName) {
+    }
+
+    private static final class TrieNode {
+        final Map<Character, TrieNode> children = new HashMap<>();
+        final Set<Long> ids = new HashSet<>(); // Every train whose number starts with this prefix
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        List<Train> trains = trainRepository.findByActiveTrue();
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            numberTrie.children.clear();
+            numberTrie.ids.clear();
+            nameGrams.clear();
+            numberGrams.clear();
+            trains.forEach(this::add);
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.println("🔎 Train search index built with " + trains.size() + " trains");
+    }
+
+    // Re-index the train once the caller's transaction commits
+    public void indexAfterCommit(Train train) {
+        Entry entry = toEntry(train);
+        boolean active = Boolean.TRUE.equals(train.getActive());
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(entry.id());
+                if (active) {
+                    add(entry);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Ranked by: exact name, name prefix, word prefix, then any substring;
+     * ties go to the shorter name.
+     */
+    public List<TrainSearchResponse> searchByName(String query, Integer limit) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        List<Entry> matches;
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            matches = candidates(q, nameGrams).stream()
+                    .filter(e -> e.lowerName().contains(q))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.<Entry>comparingInt(e -> nameRank(e.lowerName(), q))
+                .thenComparingInt(e -> e.lowerName().length())
+                .thenComparing(Entry::trainNumber));
+        return toResponses(matches, limit);
+    }
+
+    // Number prefix matches (from the trie) first, then other substring matches
+    public List<TrainSearchResponse> searchByNumber(String query, Integer limit) {
+        String q = query.trim();
+        List<Entry> matches;
+        ensureBuilt();
+        lock.readLock().lock();
+        try {
+            matches = candidates(q, numberGrams).stream()
+                    .filter(e -> e.trainNumber().contains(q))
+                    .collect(Collectors.toList());
+            Set<Long> prefixIds = prefixMatches(q);
+            matches.sort(Comparator.<Entry>comparingInt(e -> e.trainNumber().equals(q) ? 0
+                    : prefixIds.contains(e.id()) ? 1 : 2)
+                    .thenComparing(Entry::trainNumber));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toResponses(matches, limit);
+    }
+
+    // Searches before ApplicationReadyEvent (e.g. from a runner) build on demand
+    private void ensureBuilt() {
+        if (!built) {
+            synchronized (this) {
+                if (!built) {
+                    build();
+                }
+            }
+        }
+    }
+
+    // Entries holding every trigram of the query; shorter queries check all entries
+    private Collection<Entry> candidates(String q, Map<String, Set<Long>> postings) {
+        if (q.length() < GRAM) {
+            return entries.values();
+        }
+        Set<Long> ids = null;
+        for (String gram : grams(q)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return List.of();
+            }
+            if (ids == null) {
+                ids = new HashSet<>(posting);
+            } else {
+                ids.retainAll(posting);
+            }
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+        }
+        return ids.stream().map(entries::get).collect(Collectors.toList());
+    }
+
+    private Set<Long> prefixMatches(String q) {
+        TrieNode node = numberTrie;
+        for (int i = 0; i < q.length() && node != null; i++) {
+            node = node.children.get(q.charAt(i));
+        }
+        return node != null ? node.ids : Set.of();
+    }
+
+    private static int nameRank(String name, String q) {
+        if (name.equals(q))
+            return 0;
+        if (name.startsWith(q))
+            return 1;
+        if (name.contains(" " + q))
+            return 2;
+        return 3;
+    }
+
+    // Without a limit every match is returned, as before the index; a requested limit is capped
+    private List<TrainSearchResponse> toResponses(List<Entry> matches, Integer limit) {
+        int max = limit != null && limit > 0 ? Math.min(limit, maxResults) : matches.size();
+        List<TrainSearchResponse> responses = new ArrayList<>(Math.min(max, matches.size()));
+        for (Entry entry : matches.subList(0, Math.min(max, matches.size()))) {
+            TrainSearchResponse response = new TrainSearchResponse();
+            response.setId(entry.id());
+            response.setTrainNumber(entry.trainNumber());
+            response.setTrainName(entry.trainName());
+            response.setSource(entry.source());
+            response.setDestination(entry.destination());
+            response.setStations(trainRouteCache.getStationNames(entry.id()));
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private void add(Train train) {
+        add(toEntry(train));
+    }
+
+    private void add(Entry entry) {
+        entries.put(entry.id(), entry);
+
+        TrieNode node = numberTrie;
+        node.ids.add(entry.id());
+        for (char c : entry.trainNumber().toCharArray()) {
+            node = node.children.computeIfAbsent(c, k -> new TrieNode());
+            node.ids.add(entry.id());
+        }
+
+        for (String gram : grams(entry.lowerName())) {
+            nameGrams.computeIfAbsent(gram, k -> new HashSet<>()).add(entry.id());
+        }
+        for (String gram : grams(entry.trainNumber())) {
+            numberGrams.computeIfAbsent(gram, k -> new HashSet<>()).add(entry.id());
+        }
+    }
+
+    private void remove(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null)
+            return;
+
+        TrieNode node = numberTrie;
+        node.ids.remove(id);
+        for (char c : entry.trainNumber().toCharArray()) {
+            TrieNode child = node.children.get(c);
+            if (child == null)
+                break;
+            child.ids.remove(id);
+            if (child.ids.isEmpty()) {
+                node.children.remove(c);
+                break;
+            }
+            node = child;
+        }
+
+        removePostings(nameGrams, grams(entry.lowerName()), id);
+        removePostings(numberGrams, grams(entry.trainNumber()), id);
+    }
+
+    private static void removePostings(Map<String, Set<Long>> postings, Set<String> grams, Long id) {
+        for (String gram : grams) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null && posting.remove(id) && posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static Entry toEntry(Train train) {
+        return new Entry(train.getId(), train.getTrainNumber(), train.getTrainName(), train.getSource(),
+                train.getDestination(), train.getTrainName().toLowerCase(Locale.ROOT));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service.Impl;
 
 import com.example.demo.dto.TrainRequest;
+import com.example.demo.dto.TrainSearchResponse;
 import com.example.demo.entity.Train;
 import com.example.demo.repository.TrainRepository;
 import com.example.demo.service.TrainService;
@@ -16,6 +17,12 @@ public class TrainServiceImpl implements TrainService {
     @Autowired
     private TrainRepository trainRepository;
 
+    @Autowired
+    private TrainRouteCache trainRouteCache;
+
+    @Autowired
+    private TrainSearchIndex trainSearchIndex;
+
     @Override
     @Transactional
     public Train createTrain(TrainRequest request) {
@@ -32,7 +39,10 @@ public class TrainServiceImpl implements TrainService {
         train.setArrivalTime(request.getArrivalTime());
         train.setActive(true);
 
-        return trainRepository.save(train);
+        Train savedTrain = trainRepository.save(train);
+        trainRouteCache.refreshTrainAfterCommit(savedTrain);
+        trainSearchIndex.indexAfterCommit(savedTrain);
+        return savedTrain;
     }
 
     @Override
@@ -73,7 +83,10 @@ public class TrainServiceImpl implements TrainService {
         train.setDepartureTime(request.getDepartureTime());
         train.setArrivalTime(request.getArrivalTime());
 
-        return trainRepository.save(train);
+        Train updatedTrain = trainRepository.save(train);
+        trainRouteCache.refreshTrainAfterCommit(updatedTrain);
+        trainSearchIndex.indexAfterCommit(updatedTrain);
+        return updatedTrain;
     }
 
     @Override
@@ -85,5 +98,17 @@ public class TrainServiceImpl implements TrainService {
                 .orElseThrow(() -> new RuntimeException("Train not found"));
         train.setActive(false);
         trainRepository.save(train);
+        trainRouteCache.refreshTrainAfterCommit(train);
+        trainSearchIndex.indexAfterCommit(train);
+    }
+
+    @Override
+    public List<TrainSearchResponse> searchByName(String query, Integer limit) {
+        return trainSearchIndex.searchByName(query, limit);
+    }
+
+    @Override
+    public List<TrainSearchResponse> searchByNumber(String query, Integer limit) {
+        return trainSearchIndex.searchByNumber(query, limit);
     }
 }
\ No newline at end of file
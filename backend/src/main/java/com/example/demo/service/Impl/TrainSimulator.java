@@ -0,0 +1,291 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.TrainStatusResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves every routable train along its timetable on a fixed tick and keeps
+ * the latest position per train number in a concurrent map, so status
+ * reads are a map lookup and every caller sees the same position.
+ *
+ * Each train runs daily from the scheduled departure at its first stop.
+ * Between stops the position is interpolated: elapsed time over the
+ * scheduled leg time gives the distance covered, and that share of the
+ * leg's distanceFromSource gives the point between the two stations.
+ * Delays are a pure function of the train and the run date, so they stay
+ * the same for the whole run and across restarts.
+ */
+@Component
+public class TrainSimulator {
+
+    private static final int DAY_SECONDS = 24 * 60 * 60;
+    private static final int MAX_DELAY_MINUTES = 30;
+
+    @Autowired
+    private TrainRouteCache trainRouteCache;
+
+    private final ZoneId zone;
+    private final Map<String, TrainStatusResponse> positions = new ConcurrentHashMap<>();
+    private volatile Timetables timetables;
+
+    private final Timer tickTimer;
+
+    /**
+     * A route compiled to seconds after the departure from the first stop.
+     * arrive[i] <= depart[i] <= arrive[i + 1]; the first stop's arrival and
+     * the last stop's departure equal its other time.
+     */
+    record Timetable(String trainNumber, String trainName, TrainRouteCache.Stop[] stops, int[] arrive,
+            int[] depart, double[] distance, int startSecondOfDay) {
+
+        int end() {
+            return arrive[arrive.length - 1];
+        }
+    }
+
+    private record Timetables(long generation, Map<String, Timetable> byTrainNumber) {
+    }
+
+    public TrainSimulator(@Value("${train.simulator.zone:Asia/Kolkata}") String zone, MeterRegistry meterRegistry) {
+        this.zone = ZoneId.of(zone);
+        this.tickTimer = meterRegistry.timer("train.simulator.tick");
+        meterRegistry.gauge("train.simulator.trains", positions, Map::size);
+    }
+
+    // Latest position of the train, null when it has no usable timetable
+    public TrainStatusResponse getStatus(String trainNumber) {
+        TrainStatusResponse status = positions.get(trainNumber);
+        if (status != null) {
+            return status;
+        }
+        // Not placed by a tick yet (just started, or the route was just added)
+        Timetable timetable = timetables().byTrainNumber.get(trainNumber);
+        if (timetable == null) {
+            return null;
+        }
+        status = simulate(timetable, LocalDateTime.now(zone));
+        positions.put(trainNumber, status);
+        return status;
+    }
+
+    @Scheduled(fixedRateString = "${train.simulator.tick-ms:10000}")
+    public void tick() {
+        tickTimer.record(() -> {
+            Map<String, Timetable> current = timetables().byTrainNumber;
+            LocalDateTime now = LocalDateTime.now(zone);
+            for (Timetable timetable : current.values()) {
+                positions.put(timetable.trainNumber(), simulate(timetable, now));
+            }
+            positions.keySet().retainAll(current.keySet());
+        });
+    }
+
+    // Recompiled only when the route cache has loaded new routes
+    private Timetables timetables() {
+        Timetables current = timetables;
+        long generation = trainRouteCache.generation();
+        if (current == null || current.generation != generation) {
+            Map<String, Timetable> compiled = new HashMap<>();
+            for (TrainRouteCache.TrainInfo train : trainRouteCache.routableTrains()) {
+                Timetable timetable = compile(train.trainNumber(), train.trainName(),
+                        trainRouteCache.getStops(train.id()));
+                if (timetable != null) {
+                    compiled.put(train.trainNumber(), timetable);
+                }
+            }
+            current = new Timetables(generation, Map.copyOf(compiled));
+            timetables = current;
+        }
+        return current;
+    }
+
+    // Null when fewer than two stops have a scheduled time
+    static Timetable compile(String trainNumber, String trainName, List<TrainRouteCache.Stop> route) {
+        List<TrainRouteCache.Stop> stops = new ArrayList<>();
+        List<int[]> times = new ArrayList<>(); // Absolute {arrive, depart} seconds from day 1 midnight
+        int previous = Integer.MIN_VALUE;
+        for (TrainRouteCache.Stop stop : route) {
+            Integer arrival = secondOfDay(stop.scheduledArrival());
+            Integer departure = secondOfDay(stop.scheduledDeparture());
+            if (arrival == null && departure == null) {
+                continue;
+            }
+            int dayOffset = stop.dayNumber() != null ? (stop.dayNumber() - 1) * DAY_SECONDS : 0;
+            int arrive = dayOffset + (arrival != null ? arrival : departure);
+            int depart = dayOffset + (departure != null ? departure : arrival);
+            // Missing or inconsistent day numbers: a time that goes backwards is on the next day
+            while (arrive < previous) {
+                arrive += DAY_SECONDS;
+                depart += DAY_SECONDS;
+            }
+            while (depart < arrive) {
+                depart += DAY_SECONDS;
+            }
+            stops.add(stop);
+            times.add(new int[] { arrive, depart });
+            previous = depart;
+        }
+        if (stops.size() < 2) {
+            return null;
+        }
+
+        int count = stops.size();
+        int start = times.get(0)[1];
+        int[] arrive = new int[count];
+        int[] depart = new int[count];
+        double[] distance = new double[count];
+        double lastDistance = 0;
+        for (int i = 0; i < count; i++) {
+            arrive[i] = i == 0 ? 0 : times.get(i)[0] - start;
+            depart[i] = i == count - 1 ? arrive[i] : times.get(i)[1] - start;
+            Integer fromSource = stops.get(i).distanceFromSource();
+            // Keep distances non-decreasing when a stop has none
+            lastDistance = fromSource != null ? Math.max(lastDistance, fromSource) : lastDistance;
+            distance[i] = lastDistance;
+        }
+        return new Timetable(trainNumber, trainName, stops.toArray(new TrainRouteCache.Stop[0]), arrive, depart,
+                distance, Math.floorMod(start, DAY_SECONDS));
+    }
+
+    /**
+     * Position at a moment: the most recent daily run that has not reached
+     * its destination, or the next run waiting at the origin when none is
+     * under way.
+     */
+    static TrainStatusResponse simulate(Timetable timetable, LocalDateTime now) {
+        int sinceStart = Math.floorMod(now.toLocalTime().toSecondOfDay() - timetable.startSecondOfDay(),
+                DAY_SECONDS);
+        for (int run = 0; ; run++) {
+            int elapsed = sinceStart + run * DAY_SECONDS;
+            if (elapsed > timetable.end() + MAX_DELAY_MINUTES * 60) {
+                break;
+            }
+            LocalDate runDate = now.minusSeconds(elapsed).toLocalDate();
+            int delayMinutes = delayMinutes(timetable.trainNumber(), runDate);
+            int position = elapsed - delayMinutes * 60;
+            if (position <= timetable.end()) {
+                return position(timetable, position, delayMinutes);
+            }
+        }
+        return position(timetable, sinceStart - DAY_SECONDS, 0);
+    }
+
+    // position: seconds since the (delayed) departure, negative while still waiting at the origin
+    static TrainStatusResponse position(Timetable timetable, int position, int delayMinutes) {
+        TrainRouteCache.Stop[] stops = timetable.stops();
+        int[] arrive = timetable.arrive();
+        int[] depart = timetable.depart();
+        double[] distance = timetable.distance();
+        int last = stops.length - 1;
+
+        // Last stop reached, and whether the train is between it and the next one
+        int current;
+        double covered;
+        Double latitude;
+        Double longitude;
+        boolean moving = false;
+        if (position <= 0) {
+            current = 0;
+            covered = distance[0];
+            latitude = stops[0].latitude();
+            longitude = stops[0].longitude();
+        } else if (position >= arrive[last]) {
+            current = last;
+            covered = distance[last];
+            latitude = stops[last].latitude();
+            longitude = stops[last].longitude();
+        } else {
+            int found = Arrays.binarySearch(arrive, position);
+            current = found >= 0 ? found : -found - 2;
+            if (position < depart[current]) {
+                // Halted at the station
+                covered = distance[current];
+                latitude = stops[current].latitude();
+                longitude = stops[current].longitude();
+            } else {
+                moving = true;
+                int next = current + 1;
+                double legSeconds = Math.max(1, arrive[next] - depart[current]);
+                double timeShare = (position - depart[current]) / legSeconds;
+                covered = distance[current] + timeShare * (distance[next] - distance[current]);
+                double legDistance = distance[next] - distance[current];
+                double share = legDistance > 0 ? (covered - distance[current]) / legDistance : timeShare;
+                latitude = interpolate(stops[current].latitude(), stops[next].latitude(), share);
+                longitude = interpolate(stops[current].longitude(), stops[next].longitude(), share);
+            }
+        }
+
+        TrainStatusResponse response = new TrainStatusResponse();
+        response.setTrainNumber(timetable.trainNumber());
+        response.setTrainName(timetable.trainName());
+        response.setCurrentStatus(delayMinutes > 0 ? "DELAYED" : "ON_TIME");
+        response.setDelayMinutes(delayMinutes);
+        response.setCurrentStation(stops[current].stationName());
+        response.setCurrentStationCode(stops[current].stationCode());
+        response.setCurrentLatitude(latitude);
+        response.setCurrentLongitude(longitude);
+
+        if (current < last) {
+            int next = current + 1;
+            response.setNextStation(stops[next].stationName());
+            response.setNextStationCode(stops[next].stationCode());
+            response.setDistanceToNextStation((int) Math.round(distance[next] - covered));
+            response.setEstimatedTimeToNextStation((int) Math.ceil((arrive[next] - position) / 60.0));
+            double legHours = (arrive[next] - depart[current]) / 3600.0;
+            response.setAverageSpeed(moving && legHours > 0 ? (distance[next] - distance[current]) / legHours : 0.0);
+        } else {
+            response.setDistanceToNextStation(0);
+            response.setEstimatedTimeToNextStation(0);
+            response.setAverageSpeed(0.0);
+        }
+        return response;
+    }
+
+    // Same train on the same day always gets the same delay: on time three runs in four, else 1 to 30 minutes
+    static int delayMinutes(String trainNumber, LocalDate runDate) {
+        int hash = trainNumber.hashCode() * 31 + runDate.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        if (Math.floorMod(hash, 4) != 0) {
+            return 0;
+        }
+        return 1 + Math.floorMod(hash >>> 2, MAX_DELAY_MINUTES);
+    }
+
+    private static Double interpolate(Double from, Double to, double share) {
+        if (from == null || to == null) {
+            return from != null ? from : to;
+        }
+        return from + share * (to - from);
+    }
+
+    // Null when missing or malformed, the stop is then skipped like one without timings
+    private static Integer secondOfDay(String time) {
+        if (time == null || time.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalTime.parse(time.trim()).toSecondOfDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
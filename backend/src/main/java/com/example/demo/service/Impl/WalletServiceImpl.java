@@ -3,11 +3,15 @@ package com.example.demo.service.Impl;
 import com.example.demo.dto.*;
 import com.example.demo.entity.*;
 import com.example.demo.repository.*;
+import com.example.demo.service.OrderSummaryService;
+import com.example.demo.service.PantryReservationService;
 import com.example.demo.service.PaymentService;
+import com.example.demo.service.TrackingService;
 import com.example.demo.service.WalletService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -24,6 +28,14 @@ public class WalletServiceImpl implements WalletService {
     private OrderRepository orderRepository;
     @Autowired
     private PaymentService paymentService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PantryReservationService reservationService;
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+    @Autowired
+    private TrackingService trackingService;
 
     @Override
     // Removed @Transactional to allow handling DataIntegrityViolationException
@@ -101,30 +113,32 @@ public class WalletServiceImpl implements WalletService {
     }
 
     @Override
-    @Transactional
     public WalletResponse confirmAddMoney(String razorpayPaymentId, String razorpayOrderId, Long userId) {
-        // Get wallet with lock
-        Wallet wallet = walletRepository.findByUserIdWithLock(userId)
-                .orElseThrow(() -> new RuntimeException("Wallet not found for user ID: " + userId));
-        // Fetch payment details to get amount
+        // Fetch payment details to get amount (gateway call, kept outside the
+        // transaction so the wallet row lock is not held while waiting on it)
         PaymentResponse payment = paymentService.updatePaymentDetails(razorpayPaymentId, razorpayOrderId);
         if (!payment.getStatus().equals("SUCCESS")) {
             throw new RuntimeException("Payment not successful");
         }
         Double amount = payment.getAmount();
-        // Credit wallet
-        wallet.credit(amount);
-        Wallet updatedWallet = walletRepository.save(wallet);
-        // Create transaction record
-        WalletTransaction transaction = new WalletTransaction();
-        transaction.setWallet(wallet);
-        transaction.setType(TransactionType.CREDIT);
-        transaction.setAmount(amount);
-        transaction.setBalanceAfter(wallet.getBalance());
-        transaction.setDescription("Money added via Razorpay");
-        transaction.setTransactionRef(razorpayPaymentId);
-        transactionRepository.save(transaction);
-        return WalletResponse.fromEntity(updatedWallet);
+        return transactionTemplate.execute(status -> {
+            // Get wallet with lock
+            Wallet wallet = walletRepository.findByUserIdWithLock(userId)
+                    .orElseThrow(() -> new RuntimeException("Wallet not found for user ID: " + userId));
+            // Credit wallet
+            wallet.credit(amount);
+            Wallet updatedWallet = walletRepository.save(wallet);
+            // Create transaction record
+            WalletTransaction transaction = new WalletTransaction();
+            transaction.setWallet(wallet);
+            transaction.setType(TransactionType.CREDIT);
+            transaction.setAmount(amount);
+            transaction.setBalanceAfter(wallet.getBalance());
+            transaction.setDescription("Money added via Razorpay");
+            transaction.setTransactionRef(razorpayPaymentId);
+            transactionRepository.save(transaction);
+            return WalletResponse.fromEntity(updatedWallet);
+        });
     }
 
     @Override
@@ -165,6 +179,10 @@ public class WalletServiceImpl implements WalletService {
         if (order.getStatus() == Order.OrderStatus.PENDING) {
             order.setStatus(Order.OrderStatus.CONFIRMED);
             orderRepository.save(order);
+            orderSummaryService.statusChanged(order);
+            trackingService.syncOrderStatus(order.getId(), Order.OrderStatus.CONFIRMED);
+            // Only a pending order can still hold pantry stock
+            reservationService.confirmOrder(order.getId());
         }
         return WalletTransactionResponse.fromEntity(savedTransaction);
     }
@@ -1,21 +1,25 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.OrderPageResponse;
 import com.example.demo.dto.OrderRequest;
 import com.example.demo.dto.OrderResponse;
+import com.example.demo.dto.VendorOrderStatsResponse;
 import com.example.demo.entity.Order;
 
-import java.util.List;
-
 public interface OrderService {
     OrderResponse createOrder(OrderRequest request);
 
     OrderResponse getOrderById(Long id);
 
-    List<OrderResponse> getOrdersByUserId(Long userId);
+    // Newest first; cursor is the nextCursor of the previous page, null for the first
+    OrderPageResponse getOrdersByUserId(Long userId, String cursor, Integer limit);
 
     OrderResponse updateOrderStatus(Long id, Order.OrderStatus status);
 
-    List<OrderResponse> getAllOrders();
+    // status narrows the list to one status when not null
+    OrderPageResponse getAllOrders(Order.OrderStatus status, String cursor, Integer limit);
+
+    OrderPageResponse getOrdersByOwnerId(Long ownerId, String cursor, Integer limit);
 
-    List<OrderResponse> getOrdersByOwnerId(Long ownerId);
+    VendorOrderStatsResponse getVendorStats(Long ownerId);
 }
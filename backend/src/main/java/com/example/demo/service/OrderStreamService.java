@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface OrderStreamService {
+
+    String ORDER_CREATED = "order-created";
+    String ORDER_STATUS = "order-status";
+
+    // Live order events of one restaurant owner; lastEventId resumes a dropped stream, null starts fresh
+    SseEmitter subscribe(Long ownerId, String lastEventId);
+
+    // Pushed to the owner's streams once the caller's transaction commits
+    void publishAfterCommit(Long ownerId, String eventName, Object payload);
+}
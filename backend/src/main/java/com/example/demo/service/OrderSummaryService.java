@@ -0,0 +1,31 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderPageResponse;
+import com.example.demo.dto.VendorOrderStatsResponse;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.Review;
+
+public interface OrderSummaryService {
+
+    // Build the summary row of a new order in the caller's transaction and announce it to the owner's streams
+    void orderCreated(Long orderId);
+
+    // Status (and the delivery OTP that comes with it) changed, in the caller's transaction
+    void statusChanged(Order order);
+
+    void reviewAdded(Review review);
+
+    // Pages newest first; cursor is the nextCursor of the previous page, null for the first
+    OrderPageResponse getPageByUserId(Long userId, String cursor, Integer limit);
+
+    OrderPageResponse getPageByOwnerId(Long ownerId, String cursor, Integer limit);
+
+    // Totals over every order of the owner, from the summary index instead of a page of orders
+    VendorOrderStatsResponse getStatsByOwnerId(Long ownerId);
+
+    // All orders, or those in one status when status is not null
+    OrderPageResponse getPage(Order.OrderStatus status, String cursor, Integer limit);
+
+    // Create summaries for orders that have none, returns how many were written
+    int backfill();
+}
@@ -0,0 +1,15 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OutboxEvent;
+
+/**
+ * Side effect executed by the outbox dispatcher.
+ * Handlers run in their own transaction and may be retried, so they must be
+ * idempotent.
+ */
+public interface OutboxEventHandler {
+
+    String getEventType();
+
+    void handle(OutboxEvent event);
+}
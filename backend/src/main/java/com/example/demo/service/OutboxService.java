@@ -0,0 +1,12 @@
+package com.example.demo.service;
+
+public interface OutboxService {
+
+    String ORDER_CREATED = "ORDER_CREATED";
+
+    // Record an event in the caller's transaction
+    void publish(String eventType, Long aggregateId, String payload);
+
+    // Drain one batch of due events, returns how many were handled
+    int dispatchPending();
+}
@@ -0,0 +1,26 @@
+package com.example.demo.service;
+
+import java.util.Map;
+
+public interface PantryReservationService {
+
+    boolean isEnabled();
+
+    // Hold a cart (foodItemId -> quantity) for an unpaid order, all or nothing
+    void holdCart(Long orderId, Long trainId, Map<Long, Integer> quantities);
+
+    // Turn the order's hold into a deduction, written to the DB by the next flush
+    void confirmOrder(Long orderId);
+
+    // Give the order's held stock back
+    void releaseOrder(Long orderId);
+
+    // Stock of an inventory line was changed outside of reservations
+    void invalidate(Long pantryId, Long foodItemId);
+
+    // Release holds past their expiry, returns how many orders were released
+    int expireHolds();
+
+    // Write confirmed deductions to pantry_inventory, returns the units written
+    int flush();
+}
@@ -6,6 +6,7 @@ import com.example.demo.dto.PantryRequest;
 import com.example.demo.dto.PantryResponse;
 
 import java.util.List;
+import java.util.Map;
 
 public interface PantryService {
 
@@ -41,6 +42,9 @@ public interface PantryService {
 
     void deductStock(Long pantryId, Long foodItemId, Integer quantity);
 
+    // Deduct a whole cart (foodItemId -> quantity) from the train's pantries, all or nothing
+    void deductCartStock(Long trainId, Map<Long, Integer> quantities);
+
     // NEW: Public menu endpoints
     List<PantryInventoryResponse> getAllAvailableMenuItems();
 
@@ -0,0 +1,21 @@
+package com.example.demo.service;
+
+import com.razorpay.RazorpayException;
+import org.json.JSONObject;
+
+/**
+ * Outbound calls to the payment gateway.
+ * Calls run on a dedicated bounded pool with a timeout, a bulkhead and a
+ * circuit breaker, and must never be made while holding a DB transaction.
+ */
+public interface PaymentGatewayService {
+
+    // Create gateway order, returns the gateway order entity
+    JSONObject createOrder(JSONObject orderRequest) throws RazorpayException;
+
+    // Fetch gateway payment entity (status, method, card/upi details)
+    JSONObject fetchPayment(String razorpayPaymentId) throws RazorpayException;
+
+    // Refund a captured payment, returns the gateway refund entity
+    JSONObject refundPayment(String razorpayPaymentId, JSONObject refundRequest) throws RazorpayException;
+}
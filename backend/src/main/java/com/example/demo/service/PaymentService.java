@@ -1,9 +1,9 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.*;
+import org.json.JSONObject;
 
 import java.util.List;
-import java.util.Map;
 
 public interface PaymentService {
 
@@ -25,8 +25,11 @@ public interface PaymentService {
     // Process refund
     PaymentResponse processRefund(RefundRequest request);
 
-    // Handle Razorpay webhook
-    void handleWebhook(Map<String, Object> payload, String signature);
+    // Verify a Razorpay webhook signature against the raw request body
+    boolean verifyWebhookSignature(String rawBody, String signature);
+
+    // Apply a Razorpay webhook event to the matching payment
+    void applyWebhookEvent(String event, JSONObject paymentEntity);
 
     // Update payment details from Razorpay callback
     PaymentResponse updatePaymentDetails(String razorpayPaymentId, String razorpayOrderId);
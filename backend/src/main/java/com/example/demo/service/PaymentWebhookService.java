@@ -0,0 +1,10 @@
+package com.example.demo.service;
+
+public interface PaymentWebhookService {
+
+    // Verify and store a Razorpay webhook; returns false for a duplicate delivery
+    boolean enqueue(String rawBody, String signature, String eventId);
+
+    // Hand stored webhooks to the workers without waiting for them; returns the number of events claimed
+    int processPending();
+}
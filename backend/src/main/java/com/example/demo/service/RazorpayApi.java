@@ -0,0 +1,27 @@
+package com.example.demo.service;
+
+import com.razorpay.RazorpayException;
+import org.json.JSONObject;
+
+/**
+ * Raw Razorpay REST calls used by the payment gateway. Implementations do no
+ * retrying or isolation of their own, see {@link PaymentGatewayService}.
+ */
+public interface RazorpayApi {
+
+    // The gateway answered 4xx: it is up and refused this request (bad id, amount, ...)
+    class ClientErrorException extends RazorpayException {
+        public ClientErrorException(String message) {
+            super(message);
+        }
+    }
+
+    // POST /v1/orders
+    JSONObject createOrder(JSONObject orderRequest) throws RazorpayException;
+
+    // GET /v1/payments/{id}
+    JSONObject fetchPayment(String razorpayPaymentId) throws RazorpayException;
+
+    // POST /v1/payments/{id}/refund
+    JSONObject refundPayment(String razorpayPaymentId, JSONObject refundRequest) throws RazorpayException;
+}
@@ -13,4 +13,7 @@ public interface ReviewService {
     List<ReviewResponse> getUserReviews(Long userId);
 
     List<ReviewResponse> getReviewsByOwnerId(Long ownerId);
+
+    // Recompute restaurant rating aggregates from reviews, returns how many were repaired
+    int reconcileRestaurantRatings();
 }
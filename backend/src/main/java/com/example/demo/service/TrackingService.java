@@ -2,6 +2,7 @@ package com.example.demo.service;
 
 import com.example.demo.dto.*;
 import com.example.demo.entity.DeliveryStatus;
+import com.example.demo.entity.Order;
 
 public interface TrackingService {
 
@@ -12,6 +13,9 @@ public interface TrackingService {
 
     OrderTrackingResponse updateOrderStatus(Long orderId, DeliveryStatus newStatus);
 
+    // Mirror an order status change into its tracking, if tracking has been created yet
+    void syncOrderStatus(Long orderId, Order.OrderStatus status);
+
     // Delivery assignment
     // List<OrderTrackingResponse> getDeliveryPersonOrders(Long deliveryPersonId);
     // // Keep if used by driver app? Maybe remove if admin focused.
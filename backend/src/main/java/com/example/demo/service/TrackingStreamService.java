@@ -0,0 +1,16 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderTrackingResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface TrackingStreamService {
+
+    String DELIVERY_STATUS = "delivery-status";
+    String TRAIN_STATUS = "train-status";
+
+    // Live delivery status and train position of one order; lastEventId resumes a dropped stream
+    SseEmitter subscribe(Long orderId, String lastEventId);
+
+    // Pushed to the order's streams once the caller's transaction commits
+    void publishAfterCommit(OrderTrackingResponse tracking);
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.TrainRequest;
+import com.example.demo.dto.TrainSearchResponse;
 import com.example.demo.entity.Train;
 
 import java.util.List;
@@ -13,4 +14,8 @@ public interface TrainService {
     List<Train> getActiveTrains();
     Train updateTrain(Long id, TrainRequest request);
     void deleteTrain(Long id);
+
+    // Best matches first; every match when limit is null
+    List<TrainSearchResponse> searchByName(String query, Integer limit);
+    List<TrainSearchResponse> searchByNumber(String query, Integer limit);
 }
@@ -0,0 +1,26 @@
+package com.example.demo;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so a
+ * test can assert how many queries a call costs while scheduled jobs keep
+ * running on their own threads. Registered by the test profile.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    // Statements the current thread sends while running the call
+    public static int count(Runnable call) {
+        int before = COUNT.get()[0];
+        call.run();
+        return COUNT.get()[0] - before;
+    }
+}
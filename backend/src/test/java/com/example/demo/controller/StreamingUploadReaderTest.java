@@ -0,0 +1,181 @@
+package com.example.demo.controller;
+
+import com.example.demo.exception.UploadRejectedException;
+import com.example.demo.service.BlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * How StreamingUploadReader answers a multipart upload, against a stub blob
+ * store that drains what it is given: 413 from Content-Length before the
+ * body is read and from the parser's limit on a chunked body, 400 for a
+ * malformed request, 415 from the magic bytes, 429 past the concurrency
+ * limit.
+ */
+class StreamingUploadReaderTest {
+
+    private static final String BOUNDARY = "----upload-boundary";
+    private static final byte[] PNG = png(64);
+
+    private final BlobStore blobStore = mock(BlobStore.class);
+    private StreamingUploadReader reader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        reader = new StreamingUploadReader(1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reader, "blobStore", blobStore);
+        ReflectionTestUtils.setField(reader, "maxFileBytes", 16 * 1024L);
+        ReflectionTestUtils.setField(reader, "allowedTypes", Set.of("image/png", "image/jpeg"));
+        doAnswer(call -> drain(call.getArgument(0))).when(blobStore).store(any(ReadableByteChannel.class),
+                anyLong());
+    }
+
+    @Test
+    void oversizeContentLengthIsRefusedBeforeTheBodyIsRead() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/files/upload") {
+            @Override
+            public ServletInputStream getInputStream() {
+                throw new AssertionError("Body read for a request that announced 10 MB");
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.addHeader("Content-Length", 10L * 1024 * 1024);
+
+        assertStatus(HttpStatus.PAYLOAD_TOO_LARGE, request);
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void chunkedBodyOverTheLimitIsRefusedWhileParsing() {
+        // No Content-Length, and a 100 KB field ahead of the file runs past the 16 KB + 64 KB request limit
+        assertStatus(HttpStatus.PAYLOAD_TOO_LARGE, upload(body(PNG, 100 * 1024), -1));
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void malformedMultipartIsABadRequest() {
+        MockHttpServletRequest request = upload(body(PNG, 0), -1);
+        request.setContentType("multipart/form-data"); // No boundary
+
+        assertStatus(HttpStatus.BAD_REQUEST, request);
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void fileThatIsNotAnAllowedImageIsRefusedFromItsMagicBytes() {
+        byte[] pdf = "%PDF-1.4 not an image at all".getBytes(StandardCharsets.US_ASCII);
+
+        assertStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE, upload(body(pdf, 0), -1));
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    void uploadPastTheConcurrencyLimitIsTurnedAway() throws Exception {
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(call -> {
+            storing.countDown();
+            release.await();
+            return drain(call.getArgument(0));
+        }).when(blobStore).store(any(ReadableByteChannel.class), anyLong());
+
+        CompletableFuture<BlobStore.Blob> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return reader.receive(upload(body(PNG, 0), -1));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(storing.await(5, TimeUnit.SECONDS));
+
+        assertStatus(HttpStatus.TOO_MANY_REQUESTS, upload(body(PNG, 0), -1));
+
+        release.countDown();
+        assertEquals(PNG.length, first.get(5, TimeUnit.SECONDS).size());
+        // The permit is back
+        assertEquals(PNG.length, reader.receive(upload(body(PNG, 0), -1)).size());
+    }
+
+    private void assertStatus(HttpStatus status, MockHttpServletRequest request) {
+        UploadRejectedException e = assertThrows(UploadRejectedException.class, () -> reader.receive(request));
+        assertEquals(status, e.getStatus(), e.getMessage());
+    }
+
+    // contentLength -1 is a chunked body
+    private static MockHttpServletRequest upload(byte[] body, long contentLength) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/files/upload") {
+            @Override
+            public long getContentLengthLong() {
+                return contentLength;
+            }
+
+            @Override
+            public int getContentLength() {
+                return (int) Math.min(contentLength, Integer.MAX_VALUE);
+            }
+        };
+        request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+        request.setContent(body);
+        return request;
+    }
+
+    // A "note" form field of noteBytes (none when 0), then the "file" part
+    private static byte[] body(byte[] file, int noteBytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (noteBytes > 0) {
+            out.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"note\"\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            byte[] note = new byte[noteBytes];
+            Arrays.fill(note, (byte) 'x');
+            out.writeBytes(note);
+            out.writeBytes("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        out.writeBytes(("--" + BOUNDARY + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"a.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.writeBytes(file);
+        out.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    private static byte[] png(int size) {
+        byte[] png = new byte[size];
+        byte[] magic = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+        System.arraycopy(magic, 0, png, 0, magic.length);
+        return png;
+    }
+
+    private static BlobStore.Blob drain(ReadableByteChannel in) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long size = 0;
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            size += read;
+            buffer.clear();
+        }
+        return new BlobStore.Blob("hash", "image/png", size);
+    }
+}
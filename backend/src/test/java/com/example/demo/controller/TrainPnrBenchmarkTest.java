@@ -0,0 +1,131 @@
+package com.example.demo.controller;
+
+import com.example.demo.SqlStatementCounter;
+import com.example.demo.dto.PnrResponse;
+import com.example.demo.service.Impl.TrainRouteCache;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PNR lookups per second with 500 trains of 3 stops each on H2, for PNRs
+ * that are not in the database: the train comes from
+ * TrainRouteCache.routableTrain and its route from the same snapshot, so a
+ * lookup costs the one PNR query whatever the number of trains. Gets its own
+ * database, the 500 trains would show up in other tests. Tagged benchmark
+ * and only run with the benchmark profile:
+ * mvn -B test -Pbenchmark -Dtest=TrainPnrBenchmarkTest
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pnr;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1" })
+@ActiveProfiles("test")
+@Tag("benchmark")
+class TrainPnrBenchmarkTest {
+
+    private static final int TRAINS = 500;
+    private static final int STOPS = 3;
+
+    @Autowired
+    private TrainController trainController;
+
+    @Autowired
+    private TrainRouteCache trainRouteCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void benchmarkPnrLookupsPerSecond() throws Exception {
+        createTrains();
+        trainRouteCache.refresh();
+        assertEquals(TRAINS, trainRouteCache.routableTrains().size());
+
+        // Only the PNR query reaches the database, and every last digit picks its own train
+        Set<Long> trains = new HashSet<>();
+        for (int digit = 0; digit < 10; digit++) {
+            String pnr = "400000000" + digit;
+            assertEquals(1, SqlStatementCounter.count(() -> trains.add(lookup(pnr).getTrainId())));
+            assertEquals(STOPS, lookup(pnr).getRoute().size());
+        }
+        assertEquals(10, trains.size());
+
+        // Warm up the JIT before timing
+        runLookups(0, 5_000);
+
+        int total = 20_000;
+        long began = System.nanoTime();
+        runLookups(0, total);
+        double singleLps = total / ((System.nanoTime() - began) / 1e9);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            began = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int first = t * (total / threads);
+                runs.add(pool.submit(() -> runLookups(first, total / threads)));
+            }
+            for (Future<?> run : runs) {
+                run.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double parallelLps = total / ((System.nanoTime() - began) / 1e9);
+
+        System.out.printf("🎫 PNR lookups with %d trains: 1 thread %.0f lookups/s, %d threads %.0f lookups/s%n",
+                TRAINS, singleLps, threads, parallelLps);
+        // Generous floor, a lookup that loaded every active train managed about 12/s
+        assertTrue(singleLps > 500, "single-thread PNR lookups under 500/s");
+    }
+
+    // Distinct PNRs that are not in the database
+    private void runLookups(int first, int count) {
+        for (int i = 0; i < count; i++) {
+            String pnr = String.valueOf(5_000_000_000L + first + i);
+            assertEquals(pnr, lookup(pnr).getPnrNumber());
+        }
+    }
+
+    private PnrResponse lookup(String pnr) {
+        return trainController.getTrainByPnr(pnr).getBody();
+    }
+
+    // Train i stops at stations 3i+1 to 3i+3, the seeded station 1 is left alone
+    private void createTrains() {
+        List<Object[]> stations = new ArrayList<>();
+        List<Object[]> trains = new ArrayList<>();
+        List<Object[]> routes = new ArrayList<>();
+        for (long train = 1; train <= TRAINS; train++) {
+            trains.add(new Object[] { train, "P" + train, "PNR Express " + train });
+            for (int stop = 1; stop <= STOPS; stop++) {
+                long station = 1 + (train - 1) * STOPS + stop;
+                stations.add(new Object[] { station, "S" + station, "Station " + station });
+                routes.add(new Object[] { train * 10 + stop, train, station, stop, stop * 100 });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO stations (id, station_code, station_name, latitude, longitude, "
+                + "created_at) VALUES (?, ?, ?, 28.0, 77.0, CURRENT_TIMESTAMP)", stations);
+        jdbcTemplate.batchUpdate("INSERT INTO trains (id, train_number, train_name, source, destination, active, "
+                + "created_at) VALUES (?, ?, ?, 'NDLS', 'BPL', true, CURRENT_TIMESTAMP)", trains);
+        jdbcTemplate.batchUpdate("INSERT INTO train_routes (id, train_id, station_id, stop_number, "
+                + "distance_from_source, day_number, scheduled_arrival, scheduled_departure, created_at) "
+                + "VALUES (?, ?, ?, ?, ?, 1, TIME '10:00:00', TIME '10:05:00', CURRENT_TIMESTAMP)", routes);
+    }
+}
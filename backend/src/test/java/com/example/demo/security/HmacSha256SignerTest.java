@@ -0,0 +1,114 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Signature checks against the JDK Mac, plus a timing comparison with the
+ * per-call Mac and String.format hex encoding the signer replaced. The
+ * comparison is tagged benchmark and only runs with the benchmark profile:
+ * mvn -B test -Pbenchmark -Dtest=HmacSha256SignerTest
+ */
+class HmacSha256SignerTest {
+
+    private static final String SECRET = "test_secret_key";
+    private static final String ORDER_ID = "order_NJ7x9QkLm2pV3s";
+    private static final String PAYMENT_ID = "pay_NJ7xAbCdEfGh12";
+    private static final int ITERATIONS = 300_000;
+
+    private final HmacSha256Signer signer = new HmacSha256Signer(SECRET);
+
+    @Test
+    void signsLikeTheJdkMac() throws Exception {
+        String data = ORDER_ID + "|" + PAYMENT_ID;
+
+        assertEquals(referenceSign(data, SECRET), signer.sign(data));
+        assertEquals(referenceSign(data, SECRET), signer.sign(ORDER_ID, '|', PAYMENT_ID));
+        assertEquals(referenceSign("naïve café", SECRET), signer.sign("naïve café"));
+    }
+
+    @Test
+    void acceptsUpperCaseHex() {
+        String signature = signer.sign(ORDER_ID, '|', PAYMENT_ID);
+
+        assertTrue(signer.verify(ORDER_ID, '|', PAYMENT_ID, signature));
+        assertTrue(signer.verify(ORDER_ID, '|', PAYMENT_ID, signature.toUpperCase()));
+    }
+
+    @Test
+    void rejectsTamperedOrMalformedSignatures() {
+        String signature = signer.sign(ORDER_ID, '|', PAYMENT_ID);
+        char first = signature.charAt(0);
+        char flipped = first == '0' ? '1' : '0';
+
+        assertFalse(signer.verify(ORDER_ID, '|', PAYMENT_ID, flipped + signature.substring(1)));
+        assertFalse(signer.verify(ORDER_ID, '|', PAYMENT_ID, signature.substring(1)));
+        assertFalse(signer.verify(ORDER_ID, '|', PAYMENT_ID, null));
+        assertFalse(signer.verify(null, '|', PAYMENT_ID, signature));
+    }
+
+    @Test
+    void rejectsControlCharsThatFoldOntoDigits() {
+        // 0x10-0x19 | 0x20 gives '0'-'9', so only 'A'-'F' may be folded
+        String signature = signer.sign(ORDER_ID, '|', PAYMENT_ID);
+        StringBuilder control = new StringBuilder(signature);
+        for (int i = 0; i < control.length(); i++) {
+            char c = control.charAt(i);
+            if (c >= '0' && c <= '9') {
+                control.setCharAt(i, (char) (c - 0x20));
+            }
+        }
+
+        assertTrue(signature.chars().anyMatch(Character::isDigit));
+        assertFalse(signer.verify(ORDER_ID, '|', PAYMENT_ID, control.toString()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkVerify() throws Exception {
+        String signature = signer.sign(ORDER_ID, '|', PAYMENT_ID);
+        int matches = 0;
+        // Warm up the JIT before timing
+        for (int i = 0; i < ITERATIONS; i++) {
+            matches += referenceSign(ORDER_ID + "|" + PAYMENT_ID, SECRET).equals(signature) ? 1 : 0;
+            matches += signer.verify(ORDER_ID, '|', PAYMENT_ID, signature) ? 1 : 0;
+        }
+
+        long began = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            matches += referenceSign(ORDER_ID + "|" + PAYMENT_ID, SECRET).equals(signature) ? 1 : 0;
+        }
+        long reference = System.nanoTime() - began;
+
+        began = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            matches += signer.verify(ORDER_ID, '|', PAYMENT_ID, signature) ? 1 : 0;
+        }
+        long current = System.nanoTime() - began;
+
+        System.out.printf("🔐 HmacSha256Signer: per-call Mac %d ns/op, pre-keyed signer %d ns/op (%d matches)%n",
+                reference / ITERATIONS, current / ITERATIONS, matches);
+        assertEquals(4 * ITERATIONS, matches);
+        assertTrue(current < reference, "pre-keyed signer should beat a per-call Mac");
+    }
+
+    // The per-call implementation HmacSha256Signer replaced
+    private static String referenceSign(String data, String secret) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] rawHmac = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : rawHmac) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+}
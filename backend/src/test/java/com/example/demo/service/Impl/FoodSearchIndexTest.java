@@ -0,0 +1,191 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.FoodSearchResponse;
+import com.example.demo.repository.FoodItemRepository;
+import com.example.demo.repository.RestaurantRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Matching, filters and ranking of the food search index over stub
+ * repositories, plus a queries-per-second benchmark at 100k food items.
+ * The benchmark is tagged benchmark and only runs with the benchmark profile:
+ * mvn -B test -Pbenchmark -Dtest=FoodSearchIndexTest
+ */
+class FoodSearchIndexTest {
+
+    private static final String[] DISHES = { "Paneer", "Butter", "Masala", "Dosa", "Biryani", "Chicken", "Dal",
+            "Aloo", "Gobi", "Tikka", "Samosa", "Idli", "Vada", "Pulao", "Kofta", "Korma", "Makhani", "Palak",
+            "Chole", "Bhature", "Rajma", "Kadai", "Mutton", "Fish", "Egg", "Veg", "Thali", "Roti", "Naan",
+            "Paratha" };
+    private static final String[] CATEGORIES = { "MAIN_COURSE", "STARTERS", "BEVERAGES", "DESSERTS", "SNACKS",
+            "BREADS" };
+    private static final String[] CUISINES = { "North Indian", "South Indian", "Chinese", "Mughlai", "Street Food",
+            "Bengali" };
+    private static final String[] QUERIES = { "paneer", "panner tikka", "biryani", "biryni", "masala dosa",
+            "chiken", "dal makhani", "aloo", "thali", "kofta", "naan", "idli vada", "mughlai", "south indian",
+            "pa", "chole bhature" };
+
+    @Test
+    void matchesExactPrefixAndTypos() {
+        FoodSearchIndex index = index(
+                List.<Object[]>of(restaurant(1L, "Spice Route", "North Indian", 10L, 4.0)),
+                List.<Object[]>of(food(11L, "Paneer Butter Masala", "MAIN_COURSE", 250.0, true, 1L),
+                        food(12L, "Chicken Biryani", "MAIN_COURSE", 300.0, false, 1L)));
+
+        assertEquals(List.of(11L), foodIds(index.search(query("paneer", null, null))));
+        assertEquals(List.of(11L), foodIds(index.search(query("pane", null, null))));
+        assertEquals(List.of(11L), foodIds(index.search(query("panner butter", null, null))));
+        assertEquals(List.of(12L), foodIds(index.search(query("biryni", null, null))));
+        assertEquals(List.of(), foodIds(index.search(query("paneer chicken", null, null))));
+    }
+
+    @Test
+    void foodFiltersLeaveRestaurantsOut() {
+        FoodSearchIndex index = index(
+                List.<Object[]>of(restaurant(1L, "Biryani House", "Mughlai", 10L, 4.0),
+                        restaurant(2L, "Biryani Corner", "Mughlai", 20L, 4.0)),
+                List.<Object[]>of(food(11L, "Veg Biryani", "MAIN_COURSE", 200.0, true, 1L),
+                        food(12L, "Chicken Biryani", "MAIN_COURSE", 300.0, false, 1L),
+                        food(13L, "Egg Biryani", "MAIN_COURSE", 250.0, false, 2L)));
+
+        List<FoodSearchResponse> all = index.search(query("biryani", null, null));
+        assertEquals(5, all.size());
+        assertEquals(2, all.stream().filter(hit -> FoodSearchIndex.RESTAURANT.equals(hit.getType())).count());
+
+        assertEquals(List.of(11L), foodIds(index.search(query("biryani", null, true))));
+        assertEquals(2, index.search(query("biryani", 10L, null)).stream()
+                .filter(hit -> FoodSearchIndex.FOOD_ITEM.equals(hit.getType())).count());
+        assertTrue(index.search(new FoodSearchIndex.Query("biryani", null, null, 220.0, 280.0, null)).stream()
+                .allMatch(hit -> hit.getId() == 13L));
+    }
+
+    @Test
+    void higherRatedRestaurantRanksFirst() {
+        FoodSearchIndex index = index(
+                List.<Object[]>of(restaurant(1L, "Dhaba One", "North Indian", 10L, 1.0),
+                        restaurant(2L, "Dhaba Two", "North Indian", 10L, 5.0)),
+                List.<Object[]>of(food(11L, "Dal Makhani", "MAIN_COURSE", 180.0, true, 1L),
+                        food(12L, "Dal Makhani", "MAIN_COURSE", 180.0, true, 2L)));
+
+        assertEquals(List.of(12L, 11L), foodIds(index.search(query("dal makhani", null, null))));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkQueriesPerSecond() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> restaurants = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            restaurants.add(restaurant(id, pick(random, DISHES) + " " + pick(random, DISHES) + " Kitchen",
+                    pick(random, CUISINES), 1 + id % 50, random.nextInt(51) / 10.0));
+        }
+        List<Object[]> foods = new ArrayList<>();
+        for (long id = 1; id <= 100_000; id++) {
+            foods.add(food(id, pick(random, DISHES) + " " + pick(random, DISHES) + " " + pick(random, DISHES),
+                    pick(random, CATEGORIES), 50.0 + random.nextInt(400), random.nextBoolean(),
+                    1 + random.nextLong(2_000)));
+        }
+
+        long began = System.nanoTime();
+        FoodSearchIndex index = index(restaurants, foods);
+        long buildMs = (System.nanoTime() - began) / 1_000_000;
+
+        List<FoodSearchIndex.Query> queries = new ArrayList<>();
+        for (int i = 0; i < QUERIES.length; i++) {
+            queries.add(query(QUERIES[i], null, null));
+            queries.add(query(QUERIES[i], 1L + i % 50, null));
+            queries.add(new FoodSearchIndex.Query(QUERIES[i], null, true, 100.0, 300.0, null));
+        }
+        // Warm up the JIT before timing
+        runQueries(index, queries, 5_000);
+
+        int total = 20_000;
+        began = System.nanoTime();
+        runQueries(index, queries, total);
+        double singleQps = total / ((System.nanoTime() - began) / 1e9);
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            began = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                runs.add(pool.submit(() -> runQueries(index, queries, total / threads)));
+            }
+            for (Future<?> run : runs) {
+                run.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        double parallelQps = total / ((System.nanoTime() - began) / 1e9);
+
+        System.out.printf("🔎 FoodSearchIndex: 100k items built in %d ms, 1 thread %.0f queries/s, "
+                + "%d threads %.0f queries/s%n", buildMs, singleQps, threads, parallelQps);
+        // Generous floor, the index does about 1,000 queries/s on one core
+        assertTrue(singleQps > 100, "single-thread search under 100 queries/s");
+    }
+
+    private static void runQueries(FoodSearchIndex index, List<FoodSearchIndex.Query> queries, int count) {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            hits += index.search(queries.get(i % queries.size())).size();
+        }
+        assertTrue(hits > 0);
+    }
+
+    private static FoodSearchIndex index(List<Object[]> restaurantRows, List<Object[]> foodRows) {
+        RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+        FoodItemRepository foodItemRepository = mock(FoodItemRepository.class);
+        when(restaurantRepository.findAllForSearch()).thenReturn(restaurantRows);
+        when(foodItemRepository.findAllForSearch()).thenReturn(foodRows);
+
+        FoodSearchIndex index = new FoodSearchIndex();
+        ReflectionTestUtils.setField(index, "restaurantRepository", restaurantRepository);
+        ReflectionTestUtils.setField(index, "foodItemRepository", foodItemRepository);
+        ReflectionTestUtils.setField(index, "maxResults", 20);
+        index.build();
+        return index;
+    }
+
+    private static FoodSearchIndex.Query query(String text, Long stationId, Boolean vegetarian) {
+        return new FoodSearchIndex.Query(text, stationId, vegetarian, null, null, null);
+    }
+
+    private static List<Long> foodIds(List<FoodSearchResponse> hits) {
+        return hits.stream()
+                .filter(hit -> FoodSearchIndex.FOOD_ITEM.equals(hit.getType()))
+                .map(FoodSearchResponse::getId)
+                .toList();
+    }
+
+    // Row of RestaurantRepository.findAllForSearch
+    private static Object[] restaurant(Long id, String name, String cuisine, Long stationId, Double rating) {
+        return new Object[] { id, name, cuisine, stationId, rating, true };
+    }
+
+    // Row of FoodItemRepository.findAllForSearch
+    private static Object[] food(Long id, String name, String category, Double price, Boolean vegetarian,
+            Long restaurantId) {
+        return new Object[] { id, name, null, category, price, vegetarian, true, null, restaurantId };
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.service.Impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ImageByteCache against files in a temp directory: entries split into
+ * pages, least recently used entries evicted for new ones, pages of an
+ * evicted or invalidated entry kept intact while a handle still reads them,
+ * and 600 concurrent reads through a cache too small for the working set
+ * all returning the file's bytes.
+ */
+class ImageByteCacheTest {
+
+    private static final int PAGE = 1024;
+
+    @TempDir
+    Path dir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void entryIsSplitIntoPagesTrimmedToItsLength() throws Exception {
+        ImageByteCache cache = cache(8 * PAGE, 4 * PAGE);
+        byte[] bytes = bytes(2 * PAGE + 512, 1);
+
+        try (ImageByteCache.Handle handle = cache.load("a", file("a", bytes))) {
+            assertEquals(bytes.length, handle.length());
+            assertEquals(3, handle.pageCount());
+            assertEquals(PAGE, handle.page(0).remaining());
+            assertEquals(512, handle.page(2).remaining());
+            assertArrayEquals(bytes, read(handle));
+        }
+        assertEquals((double) bytes.length, meterRegistry.get("image.cache.resident.bytes").gauge().value());
+
+        try (ImageByteCache.Handle hit = cache.get("a")) {
+            assertArrayEquals(bytes, read(hit));
+        }
+        assertEquals(1.0, meterRegistry.counter("image.cache.hits").count());
+    }
+
+    @Test
+    void entryOverTheLimitIsNotCached() throws Exception {
+        ImageByteCache cache = cache(8 * PAGE, 4 * PAGE);
+
+        assertNull(cache.load("big", file("big", bytes(4 * PAGE + 1, 1))));
+        assertNull(cache.get("big"));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() throws Exception {
+        ImageByteCache cache = cache(4 * PAGE, 4 * PAGE);
+        byte[] a = bytes(2 * PAGE, 1);
+        cache.load("a", file("a", a)).close();
+        cache.load("b", file("b", bytes(2 * PAGE, 2))).close();
+        cache.get("a").close(); // b is now the eldest
+
+        cache.load("c", file("c", bytes(2 * PAGE, 3))).close();
+
+        assertNull(cache.get("b"));
+        try (ImageByteCache.Handle handle = cache.get("a")) {
+            assertArrayEquals(a, read(handle));
+        }
+        try (ImageByteCache.Handle handle = cache.get("c")) {
+            assertNotNull(handle);
+        }
+        assertEquals(1.0, meterRegistry.counter("image.cache.evictions").count());
+    }
+
+    @Test
+    void pagesOfAnEvictedEntryAreReusedOnlyOnceItsHandleIsClosed() throws Exception {
+        ImageByteCache cache = cache(4 * PAGE, 4 * PAGE);
+        byte[] a = bytes(4 * PAGE, 1);
+        byte[] b = bytes(4 * PAGE, 2);
+        Path bFile = file("b", b);
+
+        ImageByteCache.Handle open = cache.load("a", file("a", a));
+        // a is evicted, but its pages are still being written out
+        assertNull(cache.load("b", bFile));
+        assertNull(cache.get("a"));
+        assertArrayEquals(a, read(open));
+
+        open.close();
+        open.close(); // A second close releases nothing more
+        try (ImageByteCache.Handle handle = cache.load("b", bFile)) {
+            assertArrayEquals(b, read(handle));
+        }
+        assertEquals(1.0, meterRegistry.counter("image.cache.evictions").count());
+    }
+
+    @Test
+    void invalidateDropsTheEntryAndFreesItsPagesAfterTheLastHandle() throws Exception {
+        ImageByteCache cache = cache(4 * PAGE, 4 * PAGE);
+        byte[] a = bytes(4 * PAGE, 1);
+        Path aFile = file("a", a);
+
+        ImageByteCache.Handle open = cache.load("a", aFile);
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertEquals(0.0, meterRegistry.get("image.cache.resident.bytes").gauge().value());
+        assertEquals(0.0, meterRegistry.get("image.cache.entries").gauge().value());
+        assertArrayEquals(a, read(open));
+
+        // The image is replaced, but the old bytes still hold every page
+        byte[] replaced = bytes(4 * PAGE, 2);
+        Files.write(aFile, replaced);
+        assertNull(cache.load("a", aFile));
+        open.close();
+        try (ImageByteCache.Handle handle = cache.load("a", aFile)) {
+            assertArrayEquals(replaced, read(handle));
+        }
+        cache.invalidate("missing"); // No-op
+    }
+
+    /**
+     * Three 70 KB variants through a 180 KB cache, which holds two of them:
+     * 600 requests on 16 threads keep evicting and reloading, and every
+     * response must still be the file's bytes.
+     */
+    @Test
+    void concurrentReadsUnderEvictionNeverSeeAnotherEntrysBytes() throws Exception {
+        // 22 pages of 8 KB, a variant takes 9
+        ImageByteCache cache = new ImageByteCache(180 * 1024, 8192, 1024 * 1024, meterRegistry);
+        List<byte[]> variants = new ArrayList<>();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            variants.add(bytes(70 * 1024, i + 1));
+            files.add(file("variant-" + i, variants.get(i)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Boolean>> responses = new ArrayList<>();
+            for (int i = 0; i < 600; i++) {
+                int variant = i % 3;
+                responses.add(pool.submit(() -> Arrays.equals(variants.get(variant),
+                        serve(cache, "variant-" + variant, files.get(variant)))));
+            }
+            for (Future<Boolean> response : responses) {
+                assertTrue(response.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(meterRegistry.counter("image.cache.evictions").count() > 0);
+    }
+
+    // What CachedImageResolver does: cached bytes, else load, else the file itself
+    private static byte[] serve(ImageByteCache cache, String key, Path path) throws IOException {
+        ImageByteCache.Handle cached = cache.get(key);
+        ImageByteCache.Handle handle = cached != null ? cached : cache.load(key, path);
+        if (handle == null) {
+            return Files.readAllBytes(path);
+        }
+        try (handle) {
+            byte[] bytes = read(handle);
+            Thread.yield(); // Give eviction a chance to run while the handle is open
+            return bytes;
+        }
+    }
+
+    private ImageByteCache cache(int maxBytes, long maxEntryBytes) {
+        return new ImageByteCache(maxBytes, PAGE, maxEntryBytes, meterRegistry);
+    }
+
+    private Path file(String name, byte[] bytes) throws IOException {
+        return Files.write(dir.resolve(name), bytes);
+    }
+
+    private static byte[] bytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] read(ImageByteCache.Handle handle) throws IOException {
+        InputStream in = handle.inputStream();
+        return in.readAllBytes();
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.SqlStatementCounter;
+import com.example.demo.dto.OrderRequest;
+import com.example.demo.dto.OrderResponse;
+import com.example.demo.entity.OrderItem;
+import com.example.demo.repository.FoodItemRepository;
+import com.example.demo.repository.OrderItemRepository;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.service.OrderService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statements per placed order on H2, counted on the request thread by
+ * SqlStatementCounter: createOrder costs the same whatever the cart size,
+ * since the order's parties and food items are each read in one query and
+ * the items are written by OrderItemRepository.batchInsert. That batch goes
+ * through JdbcTemplate, out of Hibernate's sight, so it adds no counted
+ * statement; its rows are checked instead. Tagged benchmark and only run
+ * with the benchmark profile:
+ * mvn -B test -Pbenchmark -Dtest=OrderPlacementBenchmarkTest
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class OrderPlacementBenchmarkTest {
+
+    // Hibernate statements of one order, down from 12 plus one insert per line before batchInsert
+    private static final int STATEMENTS_PER_ORDER = 9;
+
+    private static final AtomicLong NEXT_ID = new AtomicLong(9500);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private FoodItemRepository foodItemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void statementsPerOrderDoNotGrowWithTheCart() {
+        long[] kitchen = createKitchen(10);
+        // Warm up the caches and JIT before counting
+        for (int i = 0; i < 20; i++) {
+            orderService.createOrder(request(kitchen, 2));
+        }
+
+        int orders = 200;
+        int[] statements = new int[orders];
+        long[] nanos = new long[orders];
+        for (int i = 0; i < orders; i++) {
+            // Alternate a two-line and a ten-line cart
+            OrderRequest request = request(kitchen, i % 2 == 0 ? 2 : 10);
+            AtomicReference<OrderResponse> created = new AtomicReference<>();
+            long began = System.nanoTime();
+            statements[i] = SqlStatementCounter.count(() -> created.set(orderService.createOrder(request)));
+            nanos[i] = System.nanoTime() - began;
+            assertEquals(request.getItems().size(), created.get().getItems().size());
+        }
+        Arrays.sort(nanos);
+
+        System.out.printf("🧾 createOrder: %d orders, statements per order min %d max %d, p50 %.1f ms, "
+                + "p99 %.1f ms%n", orders, Arrays.stream(statements).min().getAsInt(),
+                Arrays.stream(statements).max().getAsInt(), nanos[orders / 2] / 1e6, nanos[orders * 99 / 100] / 1e6);
+        for (int i = 0; i < orders; i++) {
+            assertEquals(STATEMENTS_PER_ORDER, statements[i], "statements of order " + i);
+        }
+    }
+
+    @Test
+    void batchInsertWritesEveryItemWithoutHibernateStatements() {
+        long[] kitchen = createKitchen(10);
+        long orderId = orderService.createOrder(request(kitchen, 1)).getId();
+
+        List<OrderItem> items = new ArrayList<>();
+        int written = new TransactionTemplate(transactionManager).execute(status -> {
+            for (int i = 0; i < 10; i++) {
+                OrderItem item = new OrderItem();
+                item.setOrder(orderRepository.getReferenceById(orderId));
+                item.setFoodItem(foodItemRepository.getReferenceById(kitchen[2] + i));
+                item.setQuantity(1);
+                item.setPrice(100.0);
+                item.setSubtotal(100.0);
+                items.add(item);
+            }
+            return SqlStatementCounter.count(() -> orderItemRepository.batchInsert(items));
+        });
+
+        assertEquals(0, written);
+        assertEquals(11, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items WHERE order_id = ?",
+                Integer.class, orderId));
+        assertEquals(10, items.stream().map(OrderItem::getId).distinct().count());
+    }
+
+    // Returns {restaurantId, trainId, first foodItemId} of a kitchen with consecutive food item ids
+    private long[] createKitchen(int foodItems) {
+        long userId = NEXT_ID.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, full_name, active, created_at) "
+                + "VALUES (?, ?, ?, 'x', 'Vendor', true, CURRENT_TIMESTAMP)", userId, "vendor" + userId,
+                "vendor" + userId + "@example.com");
+        long restaurantId = NEXT_ID.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO restaurants (id, name, cuisine, station_id, owner_id, active, rating, "
+                + "created_at) VALUES (?, 'Order Kitchen', 'Indian', 1, ?, true, 0.0, CURRENT_TIMESTAMP)",
+                restaurantId, userId);
+        long trainId = NEXT_ID.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO trains (id, train_number, train_name, source, destination, active, "
+                + "created_at) VALUES (?, ?, 'Order Express', 'NDLS', 'BPL', true, CURRENT_TIMESTAMP)",
+                trainId, "O" + trainId);
+        long firstFoodItemId = NEXT_ID.get() + 1;
+        for (int i = 0; i < foodItems; i++) {
+            long foodItemId = NEXT_ID.incrementAndGet();
+            jdbcTemplate.update("INSERT INTO food_items (id, name, price, category, restaurant_id, available, "
+                    + "vegetarian, created_at) VALUES (?, ?, 100.0, 'MAIN_COURSE', ?, true, true, CURRENT_TIMESTAMP)",
+                    foodItemId, "Dish " + foodItemId, restaurantId);
+        }
+        return new long[] { restaurantId, trainId, firstFoodItemId };
+    }
+
+    private static OrderRequest request(long[] kitchen, int lines) {
+        List<OrderRequest.OrderItemRequest> items = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            items.add(new OrderRequest.OrderItemRequest(kitchen[2] + i, 1 + i % 3));
+        }
+        return new OrderRequest(1L, kitchen[1], kitchen[0], "1234567890", "12", "B1", items, null);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.OrderPageResponse;
+import com.example.demo.dto.OrderResponse;
+import com.example.demo.dto.VendorOrderStatsResponse;
+import com.example.demo.entity.Order;
+import com.example.demo.entity.OrderSummary;
+import com.example.demo.repository.OrderSummaryRepository;
+import com.example.demo.service.OrderSummaryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Vendor order lists and totals over order_summary on H2: a request without
+ * cursor or limit still gets a bounded page with a cursor to the rest, and
+ * the dashboard totals cover every order, not the first page.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class OrderSummaryPageTest {
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Test
+    void listWithoutCursorOrLimitIsPaged() {
+        long ownerId = 8100;
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        List<OrderSummary> summaries = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            summaries.add(summary(8101 + i, ownerId, Order.OrderStatus.DELIVERED, 10.0, start.plusMinutes(i)));
+        }
+        orderSummaryRepository.saveAll(summaries);
+
+        OrderPageResponse first = orderSummaryService.getPageByOwnerId(ownerId, null, null);
+        assertEquals(50, first.getOrders().size());
+        assertEquals(8160L, first.getOrders().get(0).getId());
+        assertNotNull(first.getNextCursor());
+
+        OrderPageResponse rest = orderSummaryService.getPageByOwnerId(ownerId, first.getNextCursor(), null);
+        assertEquals(10, rest.getOrders().size());
+        assertNull(rest.getNextCursor());
+
+        Set<Long> ids = new HashSet<>();
+        for (OrderResponse order : first.getOrders()) {
+            ids.add(order.getId());
+        }
+        for (OrderResponse order : rest.getOrders()) {
+            ids.add(order.getId());
+        }
+        assertEquals(60, ids.size());
+    }
+
+    @Test
+    void statsCoverEveryOrderOfTheOwner() {
+        long ownerId = 8200;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime today = now.toLocalDate().atStartOfDay().plusMinutes(1);
+        List<OrderSummary> summaries = new ArrayList<>();
+        // 70 delivered orders 10 days ago, more than a default page
+        for (int i = 0; i < 70; i++) {
+            summaries.add(summary(8201 + i, ownerId, Order.OrderStatus.DELIVERED, 10.0, now.minusDays(10)));
+        }
+        summaries.add(summary(8301, ownerId, Order.OrderStatus.PENDING, 100.0, today));
+        summaries.add(summary(8302, ownerId, Order.OrderStatus.PREPARING, 50.0, today));
+        summaries.add(summary(8303, ownerId, Order.OrderStatus.CANCELLED, 500.0, today));
+        summaries.add(summary(8304, ownerId, Order.OrderStatus.DELIVERED, 1000.0, now.minusDays(60)));
+        // Someone else's order
+        summaries.add(summary(8305, ownerId + 1, Order.OrderStatus.DELIVERED, 9999.0, today));
+        orderSummaryRepository.saveAll(summaries);
+
+        VendorOrderStatsResponse stats = orderSummaryService.getStatsByOwnerId(ownerId);
+
+        assertEquals(74, stats.getTotalOrders());
+        assertEquals(3, stats.getTodayOrders());
+        assertEquals(71L, stats.getOrdersByStatus().get("DELIVERED"));
+        assertEquals(1L, stats.getOrdersByStatus().get("PENDING"));
+        assertEquals(1L, stats.getOrdersByStatus().get("PREPARING"));
+        assertEquals(1L, stats.getOrdersByStatus().get("CANCELLED"));
+        assertEquals(0L, stats.getOrdersByStatus().get("READY"));
+        assertEquals(1700.0, stats.getTotalRevenue(), 0.001);
+        assertEquals(150.0, stats.getTodayRevenue(), 0.001);
+        assertEquals(850.0, stats.getMonthRevenue(), 0.001);
+    }
+
+    private static OrderSummary summary(long orderId, long ownerId, Order.OrderStatus status, double total,
+            LocalDateTime createdAt) {
+        OrderSummary summary = new OrderSummary();
+        summary.setOrderId(orderId);
+        summary.setUserId(1L);
+        summary.setRestaurantId(ownerId);
+        summary.setOwnerId(ownerId);
+        summary.setTotalAmount(total);
+        summary.setStatus(status);
+        summary.setItemsJson("[]");
+        summary.setCreatedAt(createdAt);
+        return summary;
+    }
+}
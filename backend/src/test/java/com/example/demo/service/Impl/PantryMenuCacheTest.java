@@ -0,0 +1,107 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.SqlStatementCounter;
+import com.example.demo.dto.PantryInventoryResponse;
+import com.example.demo.service.PantryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statement counts of pantry menu reads on H2: a menu costs the same number
+ * of queries whatever its size, a repeated read costs none, and a stock
+ * deduction only reloads the stock of the pantry it touched.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PantryMenuCacheTest {
+
+    // Ids per test, so tests sharing the context never share a cached menu
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1000);
+
+    @Autowired
+    private PantryService pantryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long restaurantId;
+
+    @BeforeEach
+    void createRestaurant() {
+        long userId = NEXT_ID.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, full_name, active, created_at) "
+                + "VALUES (?, ?, ?, 'x', 'Vendor', true, CURRENT_TIMESTAMP)", userId, "vendor" + userId,
+                "vendor" + userId + "@example.com");
+        restaurantId = NEXT_ID.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO restaurants (id, name, cuisine, station_id, owner_id, active, rating, "
+                + "created_at) VALUES (?, 'Pantry Kitchen', 'Indian', 1, ?, true, 0.0, CURRENT_TIMESTAMP)",
+                restaurantId, userId);
+    }
+
+    @Test
+    void menuCostsTheSameQueriesWhateverItsSize() {
+        long smallTrain = createTrainWithMenu(3)[0];
+        long largeTrain = createTrainWithMenu(60)[0];
+
+        // Menu rows plus their stock
+        assertEquals(2, SqlStatementCounter.count(() -> pantryService.getMenuItemsByTrainId(smallTrain)));
+        assertEquals(2, SqlStatementCounter.count(() -> pantryService.getMenuItemsByTrainId(largeTrain)));
+
+        assertEquals(0, SqlStatementCounter.count(() -> pantryService.getMenuItemsByTrainId(smallTrain)));
+        assertEquals(0, SqlStatementCounter.count(() -> pantryService.getMenuItemsByTrainId(largeTrain)));
+    }
+
+    @Test
+    void deductionReloadsOnlyTheStockOfItsPantry() {
+        long[] deducted = createTrainWithMenu(20);
+        long[] untouched = createTrainWithMenu(20);
+        pantryService.getMenuItemsByTrainId(deducted[0]);
+        pantryService.getMenuItemsByTrainId(untouched[0]);
+
+        pantryService.deductStock(deducted[1], deducted[2], 7);
+
+        AtomicReference<List<PantryInventoryResponse>> menu = new AtomicReference<>();
+        assertEquals(1, SqlStatementCounter.count(() -> menu.set(pantryService.getMenuItemsByTrainId(deducted[0]))));
+        assertEquals(0, SqlStatementCounter.count(() -> pantryService.getMenuItemsByTrainId(untouched[0])));
+
+        PantryInventoryResponse item = menu.get().stream()
+                .filter(row -> row.getFoodItemId() == deducted[2])
+                .findFirst()
+                .orElseThrow();
+        assertEquals(43, item.getCurrentStock());
+    }
+
+    // Returns {trainId, pantryId, first foodItemId}, every item starts with 50 in stock
+    private long[] createTrainWithMenu(int items) {
+        long trainId = NEXT_ID.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO trains (id, train_number, train_name, source, destination, active, "
+                + "created_at) VALUES (?, ?, 'Menu Express', 'NDLS', 'BPL', true, CURRENT_TIMESTAMP)",
+                trainId, "T" + trainId);
+        long pantryId = NEXT_ID.incrementAndGet();
+        jdbcTemplate.update("INSERT INTO pantries (id, train_id, pantry_code, coach_number, active, created_at) "
+                + "VALUES (?, ?, ?, 'PC', true, CURRENT_TIMESTAMP)", pantryId, trainId, "P" + pantryId);
+
+        long firstFoodItemId = 0;
+        for (int i = 0; i < items; i++) {
+            long foodItemId = NEXT_ID.incrementAndGet();
+            firstFoodItemId = i == 0 ? foodItemId : firstFoodItemId;
+            jdbcTemplate.update("INSERT INTO food_items (id, name, price, category, restaurant_id, available, "
+                    + "vegetarian, created_at) VALUES (?, ?, 100.0, 'MAIN_COURSE', ?, true, true, CURRENT_TIMESTAMP)",
+                    foodItemId, "Item " + foodItemId, restaurantId);
+            jdbcTemplate.update("INSERT INTO pantry_inventory (id, pantry_id, food_item_id, current_stock, "
+                    + "min_stock_level, max_stock_level) VALUES (?, ?, ?, 50, 10, 100)",
+                    NEXT_ID.incrementAndGet(), pantryId, foodItemId);
+        }
+        return new long[] { trainId, pantryId, firstFoodItemId };
+    }
+}
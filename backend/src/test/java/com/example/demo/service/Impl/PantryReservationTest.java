@@ -0,0 +1,215 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.entity.PantryReservationLog;
+import com.example.demo.entity.ReservationLogType;
+import com.example.demo.repository.PantryInventoryRepository;
+import com.example.demo.repository.PantryRepository;
+import com.example.demo.repository.PantryReservationLogRepository;
+import com.example.demo.service.PantryReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The in-memory pantry reservation engine on H2: holds never oversell,
+ * release and expiry give stock back, confirmed deductions reach
+ * pantry_inventory only on flush, in one write per line, and a fresh engine
+ * rebuilds holds and unflushed deductions from the log. Expiry and flush are
+ * driven by the tests, not the scheduler, and the engine gets its own
+ * database since it is off in the shared test context.
+ */
+@SpringBootTest(properties = { "pantry.reservation.enabled=true", "pantry.reservation.flush-interval-ms=3600000",
+        "pantry.reservation.expiry-check-ms=3600000",
+        "spring.datasource.url=jdbc:h2:mem:reservation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1" })
+@ActiveProfiles("test")
+class PantryReservationTest {
+
+    // Ids per test, so every test has lines and orders of its own
+    private static final AtomicLong NEXT_ID = new AtomicLong(7000);
+
+    @Autowired
+    private PantryReservationService reservationService;
+
+    @Autowired
+    private PantryRepository pantryRepository;
+
+    @Autowired
+    private PantryInventoryRepository pantryInventoryRepository;
+
+    @Autowired
+    private PantryReservationLogRepository reservationLogRepository;
+
+    @Autowired
+    private PantryMenuCache pantryMenuCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void holdsNeverOversell() {
+        long[] line = createLine(5);
+
+        reservationService.holdCart(nextId(), line[0], Map.of(line[2], 3));
+        RuntimeException rejected = assertThrows(RuntimeException.class,
+                () -> reservationService.holdCart(nextId(), line[0], Map.of(line[2], 3)));
+        assertTrue(rejected.getMessage().startsWith("Insufficient stock"), rejected.getMessage());
+        reservationService.holdCart(nextId(), line[0], Map.of(line[2], 2));
+
+        // Holds live in memory and the log, the inventory row is untouched
+        assertEquals(5, stock(line));
+    }
+
+    @Test
+    void releaseGivesTheStockBack() {
+        long[] line = createLine(4);
+        long orderId = nextId();
+
+        reservationService.holdCart(orderId, line[0], Map.of(line[2], 4));
+        assertThrows(RuntimeException.class,
+                () -> reservationService.holdCart(nextId(), line[0], Map.of(line[2], 1)));
+        reservationService.releaseOrder(orderId);
+        reservationService.holdCart(nextId(), line[0], Map.of(line[2], 4));
+
+        assertEquals(1, logRows(orderId, ReservationLogType.RELEASE));
+        assertEquals(4, stock(line));
+    }
+
+    @Test
+    void expiredHoldIsReleasedAndCanStillBeConfirmed() {
+        long[] line = createLine(5);
+        long expiring = nextId();
+        PantryReservationServiceImpl engine = AopTestUtils.getTargetObject(reservationService);
+
+        ReflectionTestUtils.setField(engine, "holdTtlSeconds", 0L);
+        try {
+            reservationService.holdCart(expiring, line[0], Map.of(line[2], 3));
+        } finally {
+            ReflectionTestUtils.setField(engine, "holdTtlSeconds", 900L);
+        }
+        assertTrue(reservationService.expireHolds() >= 1);
+        assertEquals(1, logRows(expiring, ReservationLogType.EXPIRE));
+        reservationService.holdCart(nextId(), line[0], Map.of(line[2], 2));
+
+        // Paid after its hold expired: the stock is taken back from what is left
+        reservationService.confirmOrder(expiring);
+        assertThrows(RuntimeException.class,
+                () -> reservationService.holdCart(nextId(), line[0], Map.of(line[2], 1)));
+        reservationService.flush();
+        assertEquals(2, stock(line));
+    }
+
+    @Test
+    void confirmedDeductionsAreFlushedInOneWritePerLine() {
+        long[] line = createLine(10);
+        long first = nextId();
+        long second = nextId();
+
+        reservationService.holdCart(first, line[0], Map.of(line[2], 2));
+        reservationService.holdCart(second, line[0], Map.of(line[2], 3));
+        reservationService.confirmOrder(first);
+        reservationService.confirmOrder(second);
+        assertEquals(10, stock(line));
+
+        reservationService.flush();
+        assertEquals(5, stock(line));
+        assertEquals(List.of(5), jdbcTemplate.queryForList("SELECT quantity FROM pantry_reservation_log "
+                + "WHERE type = 'FLUSH' AND pantry_id = ? AND food_item_id = ?", Integer.class, line[1], line[2]));
+
+        // Nothing left to write for this line
+        reservationService.flush();
+        assertEquals(5, stock(line));
+    }
+
+    @Test
+    void freshEngineRecoversHoldsAndUnflushedDeductionsFromTheLog() {
+        long[] line = createLine(10);
+        long open = nextId();
+        long paid = nextId();
+        // What a previous run left behind: one open hold, one confirmed order not yet flushed
+        reservationLogRepository.saveAll(List.of(
+                new PantryReservationLog(ReservationLogType.HOLD, open, line[1], line[2], 4,
+                        LocalDateTime.now().plusMinutes(15)),
+                new PantryReservationLog(ReservationLogType.HOLD, paid, line[1], line[2], 3,
+                        LocalDateTime.now().plusMinutes(15)),
+                new PantryReservationLog(ReservationLogType.CONFIRM, paid, line[1], line[2], 3, null)));
+
+        PantryReservationServiceImpl restarted = new PantryReservationServiceImpl(transactionManager,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(restarted, "pantryRepository", pantryRepository);
+        ReflectionTestUtils.setField(restarted, "pantryInventoryRepository", pantryInventoryRepository);
+        ReflectionTestUtils.setField(restarted, "reservationLogRepository", reservationLogRepository);
+        ReflectionTestUtils.setField(restarted, "pantryMenuCache", pantryMenuCache);
+        ReflectionTestUtils.setField(restarted, "enabled", true);
+        ReflectionTestUtils.setField(restarted, "holdTtlSeconds", 900L);
+        restarted.recover();
+
+        // 10 in stock - 4 held - 3 confirmed leaves 3
+        restarted.holdCart(nextId(), line[0], Map.of(line[2], 3));
+        assertThrows(RuntimeException.class, () -> restarted.holdCart(nextId(), line[0], Map.of(line[2], 1)));
+
+        assertEquals(3, restarted.flush());
+        assertEquals(7, stock(line));
+        restarted.confirmOrder(open);
+        assertEquals(4, restarted.flush());
+        assertEquals(3, stock(line));
+    }
+
+    // Returns {trainId, pantryId, foodItemId} of a one-item pantry with this stock
+    private long[] createLine(int stock) {
+        long userId = nextId();
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, full_name, active, created_at) "
+                + "VALUES (?, ?, ?, 'x', 'Vendor', true, CURRENT_TIMESTAMP)", userId, "vendor" + userId,
+                "vendor" + userId + "@example.com");
+        long restaurantId = nextId();
+        jdbcTemplate.update("INSERT INTO restaurants (id, name, cuisine, station_id, owner_id, active, rating, "
+                + "created_at) VALUES (?, 'Pantry Kitchen', 'Indian', 1, ?, true, 0.0, CURRENT_TIMESTAMP)",
+                restaurantId, userId);
+        long trainId = nextId();
+        jdbcTemplate.update("INSERT INTO trains (id, train_number, train_name, source, destination, active, "
+                + "created_at) VALUES (?, ?, 'Reserve Express', 'NDLS', 'BPL', true, CURRENT_TIMESTAMP)",
+                trainId, "R" + trainId);
+        long pantryId = nextId();
+        jdbcTemplate.update("INSERT INTO pantries (id, train_id, pantry_code, coach_number, active, created_at) "
+                + "VALUES (?, ?, ?, 'PC', true, CURRENT_TIMESTAMP)", pantryId, trainId, "P" + pantryId);
+        long foodItemId = nextId();
+        jdbcTemplate.update("INSERT INTO food_items (id, name, price, category, restaurant_id, available, "
+                + "vegetarian, created_at) VALUES (?, ?, 150.0, 'MAIN_COURSE', ?, true, true, CURRENT_TIMESTAMP)",
+                foodItemId, "Thali " + foodItemId, restaurantId);
+        jdbcTemplate.update("INSERT INTO pantry_inventory (id, pantry_id, food_item_id, current_stock, "
+                + "min_stock_level, max_stock_level) VALUES (?, ?, ?, ?, 1, 100)", nextId(), pantryId,
+                foodItemId, stock);
+        return new long[] { trainId, pantryId, foodItemId };
+    }
+
+    private int stock(long[] line) {
+        return jdbcTemplate.queryForObject("SELECT current_stock FROM pantry_inventory WHERE pantry_id = ? "
+                + "AND food_item_id = ?", Integer.class, line[1], line[2]);
+    }
+
+    private int logRows(long orderId, ReservationLogType type) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pantry_reservation_log WHERE order_id = ? "
+                + "AND type = ?", Integer.class, orderId, type.name());
+    }
+
+    private static long nextId() {
+        return NEXT_ID.incrementAndGet();
+    }
+}
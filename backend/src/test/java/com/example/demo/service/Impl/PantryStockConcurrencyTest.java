@@ -0,0 +1,99 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.PantryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hundreds of carts deducting from the same pantry rows at once, on H2: the
+ * conditional decrements must never take stock below zero, and a cart either
+ * takes all of its lines or none.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PantryStockConcurrencyTest {
+
+    private static final int CARTS = 400;
+    private static final int THREADS = 32;
+    private static final int THALI_STOCK = 300;
+    private static final int CHAI_STOCK = 250;
+
+    @Autowired
+    private PantryService pantryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentCartsNeverOversell() throws Exception {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, full_name, active, created_at) "
+                + "VALUES (5001, 'stockvendor', 'stockvendor@example.com', 'x', 'Vendor', true, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO restaurants (id, name, cuisine, station_id, owner_id, active, rating, "
+                + "created_at) VALUES (5002, 'Stock Kitchen', 'Indian', 1, 5001, true, 0.0, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO trains (id, train_number, train_name, source, destination, active, "
+                + "created_at) VALUES (5003, 'S5003', 'Stock Express', 'NDLS', 'BPL', true, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO pantries (id, train_id, pantry_code, coach_number, active, created_at) "
+                + "VALUES (5004, 5003, 'PS5004', 'PC', true, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO food_items (id, name, price, category, restaurant_id, available, vegetarian, "
+                + "created_at) VALUES (5005, 'Veg Thali', 150.0, 'MAIN_COURSE', 5002, true, true, CURRENT_TIMESTAMP), "
+                + "(5006, 'Chai', 20.0, 'BEVERAGES', 5002, true, true, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO pantry_inventory (id, pantry_id, food_item_id, current_stock, "
+                + "min_stock_level, max_stock_level) VALUES (5007, 5004, 5005, ?, 10, 500), "
+                + "(5008, 5004, 5006, ?, 10, 500)", THALI_STOCK, CHAI_STOCK);
+
+        // One thali and two chais per cart: chai runs out first, after 125 carts
+        Map<Long, Integer> cart = Map.of(5005L, 1, 5006L, 2);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> carts = new ArrayList<>();
+            for (int i = 0; i < CARTS; i++) {
+                carts.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        pantryService.deductCartStock(5003L, cart);
+                        accepted.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertTrue(e.getMessage().startsWith("Insufficient stock"), e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : carts) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int thali = jdbcTemplate.queryForObject("SELECT current_stock FROM pantry_inventory WHERE id = 5007",
+                Integer.class);
+        int chai = jdbcTemplate.queryForObject("SELECT current_stock FROM pantry_inventory WHERE id = 5008",
+                Integer.class);
+        assertEquals(CARTS, accepted.get() + rejected.get());
+        assertEquals(CHAI_STOCK / 2, accepted.get());
+        assertEquals(0, chai);
+        // A rejected cart must not keep the thali it took before chai ran out
+        assertEquals(THALI_STOCK - accepted.get(), thali);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.PantryReservationService;
+import com.example.demo.service.PaymentGatewayService;
+import com.example.demo.service.PaymentService;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A payment.captured webhook applied the way the inbox workers apply it, on
+ * a thread with no transaction open, against an order payment on H2.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentWebhookApplyTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PaymentGatewayService paymentGateway;
+
+    @MockBean
+    private PantryReservationService reservationService;
+
+    @Test
+    void capturedEventConfirmsPendingOrder() throws Exception {
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, full_name, active, created_at) "
+                + "VALUES (6001, 'webhookvendor', 'webhookvendor@example.com', 'x', 'Vendor', true, "
+                + "CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO restaurants (id, name, cuisine, station_id, owner_id, active, rating, "
+                + "created_at) VALUES (6002, 'Webhook Kitchen', 'Indian', 1, 6001, true, 0.0, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO trains (id, train_number, train_name, source, destination, active, "
+                + "created_at) VALUES (6003, 'W6003', 'Webhook Express', 'NDLS', 'BPL', true, CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, train_id, restaurant_id, pnr_number, seat_number, "
+                + "coach_number, subtotal, tax_amount, total_amount, status, created_at) VALUES (6004, 1, 6003, "
+                + "6002, '1234567890', '1', 'B2', 100.0, 5.0, 105.0, 'PENDING', CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO payments (id, order_id, user_id, amount, currency, status, "
+                + "razorpay_order_id, refunded_amount, created_at) VALUES (6005, 6004, 1, 105.0, 'INR', 'CREATED', "
+                + "'order_W6005', 0.0, CURRENT_TIMESTAMP)");
+        when(paymentGateway.fetchPayment("pay_W6005"))
+                .thenReturn(new JSONObject().put("id", "pay_W6005").put("method", "upi").put("vpa", "test@upi"));
+
+        paymentService.applyWebhookEvent("payment.captured",
+                new JSONObject().put("id", "pay_W6005").put("order_id", "order_W6005"));
+
+        assertEquals("SUCCESS", jdbcTemplate.queryForObject("SELECT status FROM payments WHERE id = 6005",
+                String.class));
+        assertEquals("pay_W6005", jdbcTemplate.queryForObject(
+                "SELECT razorpay_payment_id FROM payments WHERE id = 6005", String.class));
+        assertEquals("UPI", jdbcTemplate.queryForObject("SELECT payment_method FROM payments WHERE id = 6005",
+                String.class));
+        verify(reservationService).confirmOrder(6004L);
+    }
+}
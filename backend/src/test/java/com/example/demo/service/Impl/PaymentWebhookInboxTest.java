@@ -0,0 +1,200 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.PaymentService;
+import com.example.demo.service.PaymentWebhookService;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Webhook inbox on H2 with a stub PaymentService: deduplication, claiming,
+ * coalescing per Razorpay order, retries up to max attempts, lane ordering
+ * and events that carry no payment. The scheduled drain is pushed out of the
+ * way so every batch is claimed by the test itself, and the inbox lives in
+ * its own database: cached contexts of other test classes keep draining the
+ * shared one.
+ */
+@SpringBootTest(properties = { "payment.webhook.interval-ms=3600000", "payment.webhook.max-attempts=3",
+        "payment.webhook.workers=4",
+        "spring.datasource.url=jdbc:h2:mem:webhook;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1" })
+@ActiveProfiles("test")
+class PaymentWebhookInboxTest {
+
+    @Autowired
+    private PaymentWebhookService webhookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PaymentService paymentService;
+
+    @BeforeEach
+    void emptyInbox() {
+        jdbcTemplate.update("DELETE FROM payment_webhook_inbox");
+        when(paymentService.verifyWebhookSignature(anyString(), anyString())).thenReturn(true);
+    }
+
+    @Test
+    void redeliveredEventIsStoredOnce() throws Exception {
+        String body = paymentEvent("payment.authorized", "pay_D1", "order_D1");
+
+        assertTrue(webhookService.enqueue(body, "sig", "evt_D1"));
+        assertFalse(webhookService.enqueue(body, "sig", "evt_D1"));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment_webhook_inbox "
+                + "WHERE event_id = 'evt_D1'", Integer.class));
+    }
+
+    @Test
+    void eventsOfOneOrderCoalesceOnTheCapture() throws Exception {
+        List<String> applied = new CopyOnWriteArrayList<>();
+        doAnswer(call -> applied.add(call.getArgument(0) + " " + ((JSONObject) call.getArgument(1))
+                .getString("order_id"))).when(paymentService).applyWebhookEvent(anyString(), any());
+
+        webhookService.enqueue(paymentEvent("payment.authorized", "pay_C1", "order_C1"), "sig", "evt_C1");
+        webhookService.enqueue(paymentEvent("payment.captured", "pay_C1", "order_C1"), "sig", "evt_C2");
+        webhookService.enqueue(paymentEvent("payment.failed", "pay_C1", "order_C1"), "sig", "evt_C3");
+        webhookService.enqueue(paymentEvent("payment.failed", "pay_C4", "order_C4"), "sig", "evt_C4");
+
+        assertEquals(4, webhookService.processPending());
+        awaitIdle();
+
+        assertEquals(2, applied.size());
+        assertTrue(applied.containsAll(List.of("payment.captured order_C1", "payment.failed order_C4")));
+        assertEquals("COALESCED", status("evt_C1"));
+        assertEquals("PROCESSED", status("evt_C2"));
+        assertEquals("COALESCED", status("evt_C3"));
+        assertEquals("PROCESSED", status("evt_C4"));
+        assertEquals(0, webhookService.processPending());
+    }
+
+    @Test
+    void failingGroupIsRetriedUntilMaxAttempts() throws Exception {
+        doThrow(new RuntimeException("gateway down")).when(paymentService)
+                .applyWebhookEvent(eq("payment.captured"), any());
+        webhookService.enqueue(paymentEvent("payment.captured", "pay_R1", "order_R1"), "sig", "evt_R1");
+
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            assertEquals(1, webhookService.processPending());
+            awaitIdle();
+            assertEquals(attempt, attempts("evt_R1"));
+            assertEquals(attempt < 3 ? "RECEIVED" : "FAILED", status("evt_R1"));
+        }
+        assertEquals(0, webhookService.processPending());
+        assertEquals("gateway down", jdbcTemplate.queryForObject(
+                "SELECT last_error FROM payment_webhook_inbox WHERE event_id = 'evt_R1'", String.class));
+    }
+
+    @Test
+    void staleClaimIsPickedUpAgain() throws Exception {
+        webhookService.enqueue(paymentEvent("payment.captured", "pay_S1", "order_S1"), "sig", "evt_S1");
+        // Claimed by a worker that died an hour ago
+        jdbcTemplate.update("UPDATE payment_webhook_inbox SET status = 'PROCESSING', "
+                + "claimed_at = DATEADD('HOUR', -1, CURRENT_TIMESTAMP) WHERE event_id = 'evt_S1'");
+
+        assertEquals(1, webhookService.processPending());
+        awaitIdle();
+        assertEquals("PROCESSED", status("evt_S1"));
+    }
+
+    @Test
+    void laterBatchWaitsForItsOrderOnTheSameLane() throws Exception {
+        List<String> applied = new CopyOnWriteArrayList<>();
+        doAnswer(call -> {
+            if ("payment.authorized".equals(call.getArgument(0))) {
+                // First event of the order is still being applied when the next batch is claimed
+                Thread.sleep(500);
+            }
+            applied.add(call.getArgument(0) + " " + Thread.currentThread().getName());
+            return null;
+        }).when(paymentService).applyWebhookEvent(anyString(), any());
+
+        webhookService.enqueue(paymentEvent("payment.authorized", "pay_L1", "order_L1"), "sig", "evt_L1");
+        assertEquals(1, webhookService.processPending());
+        webhookService.enqueue(paymentEvent("payment.captured", "pay_L1", "order_L1"), "sig", "evt_L2");
+        assertEquals(1, webhookService.processPending());
+        awaitIdle();
+
+        assertEquals(2, applied.size());
+        String lane = applied.get(0).split(" ")[1];
+        assertEquals(List.of("payment.authorized " + lane, "payment.captured " + lane), applied);
+        assertEquals("PROCESSED", status("evt_L1"));
+        assertEquals("PROCESSED", status("evt_L2"));
+    }
+
+    @Test
+    void eventWithoutPaymentIsIgnored() throws Exception {
+        String refund = new JSONObject()
+                .put("event", "refund.processed")
+                .put("payload", new JSONObject().put("refund", new JSONObject()
+                        .put("entity", new JSONObject().put("id", "rfnd_I1").put("payment_id", "pay_I1"))))
+                .toString();
+        assertTrue(webhookService.enqueue(refund, "sig", "evt_I1"));
+        assertEquals("IGNORED", status("evt_I1"));
+
+        // Rows stored before events were ignored on arrival are ignored by the workers
+        String orderPaid = new JSONObject().put("event", "order.paid").put("payload", new JSONObject()).toString();
+        webhookService.enqueue(orderPaid, "sig", "evt_I2");
+        jdbcTemplate.update("UPDATE payment_webhook_inbox SET status = 'RECEIVED' WHERE event_id = 'evt_I2'");
+
+        assertEquals(1, webhookService.processPending());
+        awaitIdle();
+        assertEquals("IGNORED", status("evt_I2"));
+        assertEquals(1, attempts("evt_I2"));
+        verify(paymentService, never()).applyWebhookEvent(anyString(), any());
+    }
+
+    private static String paymentEvent(String event, String paymentId, String orderId) throws Exception {
+        return new JSONObject()
+                .put("event", event)
+                .put("payload", new JSONObject().put("payment", new JSONObject()
+                        .put("entity", new JSONObject().put("id", paymentId).put("order_id", orderId))))
+                .toString();
+    }
+
+    // Waits for the lanes to finish every claimed event
+    private void awaitIdle() throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payment_webhook_inbox WHERE status = 'PROCESSING'",
+                    Integer.class) == 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Webhook lanes still busy after 10 s");
+    }
+
+    private String status(String eventId) {
+        return row(eventId).get("status").toString();
+    }
+
+    private int attempts(String eventId) {
+        return ((Number) row(eventId).get("attempts")).intValue();
+    }
+
+    private Map<String, Object> row(String eventId) {
+        return jdbcTemplate.queryForMap("SELECT status, attempts FROM payment_webhook_inbox WHERE event_id = ?",
+                eventId);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.ReviewService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rating reconciliation on H2: aggregates that drifted from the reviews are
+ * recounted, and a restaurant left without reviews goes back to a 0 rating
+ * instead of keeping its last average.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RatingReconcileTest {
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void restaurantWithoutReviewsIsResetToZero() {
+        long userId = 9900;
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password, full_name, active, created_at) "
+                + "VALUES (?, 'vendor9900', 'vendor9900@example.com', 'x', 'Vendor', true, CURRENT_TIMESTAMP)",
+                userId);
+        long restaurantId = 9901;
+        // Three reviews counted, none left
+        jdbcTemplate.update("INSERT INTO restaurants (id, name, cuisine, station_id, owner_id, active, rating, "
+                + "rating_sum, rating_count, rating_4_count, created_at) VALUES (?, 'Drifted Kitchen', 'Indian', 1, "
+                + "?, true, 4.0, 12, 3, 3, CURRENT_TIMESTAMP)", restaurantId, userId);
+
+        assertTrue(reviewService.reconcileRestaurantRatings() >= 1);
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT rating, rating_sum, rating_count, rating_4_count "
+                + "FROM restaurants WHERE id = ?", restaurantId);
+        assertEquals(0.0, ((Number) row.get("rating")).doubleValue());
+        assertEquals(0L, ((Number) row.get("rating_sum")).longValue());
+        assertEquals(0L, ((Number) row.get("rating_count")).longValue());
+        assertEquals(0L, ((Number) row.get("rating_4_count")).longValue());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.service.RazorpayApi;
+import com.razorpay.RazorpayException;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Which gateway answers open the circuit: HttpRazorpayApi against a local
+ * HTTP server answering with a fixed status, behind the gateway's breaker
+ * (threshold 5). Bad requests leave it closed, gateway faults open it.
+ */
+class RazorpayGatewayCircuitTest {
+
+    private HttpServer server;
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicInteger requests = new AtomicInteger();
+    private RazorpayGatewayServiceImpl gateway;
+
+    @BeforeEach
+    void start() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = (status.get() == 200 ? "{\"id\":\"pay_1\",\"status\":\"captured\"}"
+                    : "{\"error\":{\"description\":\"answered " + status.get() + "\"}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.get(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        RazorpayApi api = new HttpRazorpayApi("http://127.0.0.1:" + server.getAddress().getPort(), "key",
+                "secret", Duration.ofSeconds(2));
+        gateway = new RazorpayGatewayServiceImpl(api, new SimpleMeterRegistry(), 2, 4, 2000, 5, 60_000);
+    }
+
+    @AfterEach
+    void stop() {
+        gateway.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void clientErrorsLeaveTheCircuitClosed() throws Exception {
+        status.set(400);
+        for (int i = 0; i < 20; i++) {
+            RazorpayException e = assertThrows(RazorpayException.class, () -> gateway.fetchPayment("pay_bad"));
+            assertInstanceOf(RazorpayApi.ClientErrorException.class, e);
+        }
+
+        status.set(200);
+        assertEquals("pay_1", gateway.fetchPayment("pay_1").getString("id"));
+        assertEquals(21, requests.get());
+    }
+
+    @Test
+    void serverErrorsOpenTheCircuit() {
+        status.set(503);
+        for (int i = 0; i < 5; i++) {
+            RazorpayException e = assertThrows(RazorpayException.class, () -> gateway.fetchPayment("pay_1"));
+            assertTrue(e.getMessage().contains("503"), e.getMessage());
+        }
+
+        // Open: the next call fails fast without reaching the gateway
+        status.set(200);
+        RazorpayException e = assertThrows(RazorpayException.class, () -> gateway.fetchPayment("pay_1"));
+        assertTrue(e.getMessage().contains("circuit open"), e.getMessage());
+        assertEquals(5, requests.get());
+    }
+
+    @Test
+    void rateLimitingCountsAgainstTheGateway() {
+        status.set(429);
+        for (int i = 0; i < 5; i++) {
+            RazorpayException e = assertThrows(RazorpayException.class, () -> gateway.fetchPayment("pay_1"));
+            assertFalse(e instanceof RazorpayApi.ClientErrorException, e.getMessage());
+        }
+        RazorpayException e = assertThrows(RazorpayException.class, () -> gateway.fetchPayment("pay_1"));
+        assertTrue(e.getMessage().contains("circuit open"), e.getMessage());
+    }
+}
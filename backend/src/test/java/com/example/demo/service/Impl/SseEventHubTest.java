@@ -0,0 +1,256 @@
+package com.example.demo.service.Impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * SseEventHub behind MockMvc: replay and resync by Last-Event-ID, queue
+ * overflow, stalled clients handing their worker's place to a spare thread,
+ * and idle topic pruning. A stalled client is one whose event blocks while
+ * it is written, the way a socket nobody reads blocks the send.
+ */
+class SseEventHubTest {
+
+    private final StreamController controller = new StreamController();
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private SimpleMeterRegistry meterRegistry;
+    private SseEventHub<String> hub;
+
+    @RestController
+    static class StreamController {
+        SseEventHub<String> hub;
+
+        @GetMapping("/streams/{key}")
+        SseEmitter stream(@PathVariable String key,
+                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+            return hub.subscribe(key, lastEventId);
+        }
+    }
+
+    // Serialized by the sender, which waits on the gate like a send to a full socket buffer
+    public class Blocking {
+        public String getValue() throws InterruptedException {
+            gate.await();
+            return "released";
+        }
+    }
+
+    @BeforeEach
+    void registry() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void stop() {
+        gate.countDown();
+        hub.shutdown();
+    }
+
+    @Test
+    void reconnectReplaysWhatItMissed() throws Exception {
+        start(2, 10_000, 20, 64);
+        MvcResult first = open("owner", null);
+        for (int i = 1; i <= 3; i++) {
+            hub.publish("owner", "order-status", Map.of("n", i));
+        }
+        await(() -> ids(first).size(), 3);
+        List<String> ids = ids(first);
+
+        MvcResult resumed = open("owner", ids.get(0));
+        await(() -> ids(resumed).size(), 2);
+        assertEquals(ids.subList(1, 3), ids(resumed));
+        assertEquals(List.of("{\"n\":2}", "{\"n\":3}"), data(resumed));
+    }
+
+    @Test
+    void reconnectPastTheBufferOrFromAnotherRunIsToldToResync() throws Exception {
+        start(2, 10_000, 2, 64);
+        MvcResult first = open("owner", null);
+        for (int i = 1; i <= 5; i++) {
+            hub.publish("owner", "order-status", Map.of("n", i));
+        }
+        await(() -> ids(first).size(), 5);
+        List<String> ids = ids(first);
+
+        // Event 2 left the buffer, so 3 onwards can't be replayed
+        MvcResult overrun = open("owner", ids.get(0));
+        await(() -> names(overrun).size(), 1);
+        assertEquals(List.of(SseEventHub.RESYNC), names(overrun));
+
+        MvcResult restarted = open("owner", "otherepoch-3");
+        await(() -> names(restarted).size(), 1);
+        assertEquals(List.of(SseEventHub.RESYNC), names(restarted));
+
+        // The last two are still there
+        MvcResult recent = open("owner", ids.get(2));
+        await(() -> ids(recent).size(), 2);
+        assertEquals(ids.subList(3, 5), ids(recent));
+    }
+
+    @Test
+    void clientThatFallsTooFarBehindIsDropped() throws Exception {
+        start(1, 60_000, 20, 4);
+        MvcResult slow = open("slow", null);
+        hub.publish("slow", "order-status", new Blocking());
+        await(() -> sending().size(), 1);
+
+        for (int i = 1; i <= 5; i++) {
+            hub.publish("slow", "order-status", Map.of("n", i));
+        }
+        assertEquals(1.0, meterRegistry.counter("test.stream.dropped").count());
+        assertFalse(hub.hasSubscribers("slow"));
+
+        // The send in progress finishes, nothing queued behind it is sent
+        gate.countDown();
+        await(() -> data(slow).size(), 1);
+        await(() -> sending().size(), 0);
+        hub.publish("slow", "order-status", Map.of("n", 6));
+        Thread.sleep(100);
+        assertEquals(List.of("{\"value\":\"released\"}"), data(slow));
+    }
+
+    /**
+     * Three clients that never read and one that does, on a single worker,
+     * with 600 events for the reader: each stalled client is dropped after
+     * the write timeout and lends the pool a thread, so the reader still
+     * gets every event while the stalled sends are blocked.
+     */
+    @Test
+    void stalledClientsGiveWayToTheHealthyOne() throws Exception {
+        start(1, 100, 20, 1024);
+        MvcResult healthy = open("owner", null);
+        for (String key : List.of("stalled-1", "stalled-2", "stalled-3")) {
+            open(key, null);
+            hub.publish(key, "order-status", new Blocking());
+        }
+
+        for (int i = 1; i <= 600; i++) {
+            hub.publish("owner", "order-status", Map.of("n", i));
+            Thread.sleep(1);
+        }
+        await(() -> data(healthy).size(), 600);
+
+        List<String> data = data(healthy);
+        for (int i = 1; i <= 600; i++) {
+            assertEquals("{\"n\":" + i + "}", data.get(i - 1));
+        }
+        assertEquals(3.0, meterRegistry.counter("test.stream.stalled").count());
+        assertFalse(hub.hasSubscribers("stalled-1"));
+        assertEquals(4, senders().getMaximumPoolSize());
+
+        // Spare threads are given back once the stalled sends return
+        gate.countDown();
+        await(() -> senders().getMaximumPoolSize(), 1);
+        assertEquals(1, senders().getCorePoolSize());
+    }
+
+    @Test
+    void idleTopicsArePrunedOnHeartbeat() throws Exception {
+        start(1, 10_000, 20, 64);
+        hub.publish("idle", "order-status", Map.of("n", 1));
+        MvcResult watched = open("watched", null);
+        Thread.sleep(300);
+        hub.publish("recent", "order-status", Map.of("n", 2));
+
+        hub.heartbeat(200);
+
+        assertEquals(Set.of("watched", "recent"), topics().keySet());
+        // Subscribers get a ping comment instead
+        await(() -> content(watched).contains(":ping") ? 1 : 0, 1);
+        assertTrue(hub.hasSubscribers("watched"));
+    }
+
+    private void start(int workers, long writeTimeoutMillis, int replaySize, int queueCapacity) {
+        hub = new SseEventHub<>("test", workers, 60_000, writeTimeoutMillis, 100, replaySize, queueCapacity,
+                meterRegistry);
+        controller.hub = hub;
+    }
+
+    private MvcResult open(String key, String lastEventId) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/streams/" + key);
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        return mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private static List<String> ids(MvcResult stream) {
+        return fields(stream, "id:");
+    }
+
+    private static List<String> names(MvcResult stream) {
+        return fields(stream, "event:");
+    }
+
+    private static List<String> data(MvcResult stream) {
+        return fields(stream, "data:");
+    }
+
+    private static List<String> fields(MvcResult stream, String prefix) {
+        List<String> values = new ArrayList<>();
+        for (String line : content(stream).split("\n")) {
+            if (line.startsWith(prefix)) {
+                values.add(line.substring(prefix.length()));
+            }
+        }
+        return values;
+    }
+
+    private static String content(MvcResult stream) {
+        try {
+            return stream.getResponse().getContentAsString();
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Set<?> sending() {
+        return (Set<?>) ReflectionTestUtils.getField(hub, "sending");
+    }
+
+    private ThreadPoolExecutor senders() {
+        return (ThreadPoolExecutor) ReflectionTestUtils.getField(hub, "senders");
+    }
+
+    private Map<?, ?> topics() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(hub, "topics");
+    }
+
+    private static void await(IntSupplier actual, int expected) throws Exception {
+        for (int i = 0; i < 200; i++) {
+            if (actual.getAsInt() == expected) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(expected, actual.getAsInt(), "still different after 10 s");
+    }
+}
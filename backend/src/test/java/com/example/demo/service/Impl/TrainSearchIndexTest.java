@@ -0,0 +1,157 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.TrainSearchResponse;
+import com.example.demo.entity.Train;
+import com.example.demo.repository.TrainRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Number trie, name trigrams and ranking of the train search index over a
+ * stub repository, and how TrainService writes move trains in and out of it.
+ * Writes outside a transaction are applied at once, as after a commit.
+ */
+class TrainSearchIndexTest {
+
+    @Test
+    void numberPrefixesRankBeforeOtherSubstrings() {
+        TrainSearchIndex index = index(train(1L, "12951", "Mumbai Rajdhani"), train(2L, "12952", "Delhi Rajdhani"),
+                train(3L, "31295", "Local Passenger"), train(4L, "22691", "Bengaluru Rajdhani"));
+
+        assertEquals(List.of("12951", "12952", "31295"), numbers(index.searchByNumber("1295", null)));
+        assertEquals(List.of("12951"), numbers(index.searchByNumber("12951", null)));
+        // Surrounding spaces are trimmed
+        assertEquals(List.of("12952"), numbers(index.searchByNumber(" 12952 ", null)));
+        assertEquals(List.of(), numbers(index.searchByNumber("99999", null)));
+    }
+
+    @Test
+    void shortNumberQueryChecksEveryTrain() {
+        TrainSearchIndex index = index(train(1L, "12951", "Mumbai Rajdhani"), train(2L, "31295", "Local Passenger"),
+                train(3L, "22691", "Bengaluru Rajdhani"));
+
+        // Under three characters there is no trigram to look up
+        assertEquals(List.of("12951", "31295"), numbers(index.searchByNumber("12", null)));
+        assertEquals(List.of("22691"), numbers(index.searchByNumber("6", null)));
+    }
+
+    @Test
+    void nameTrigramsFindSubstringsInAnyCase() {
+        TrainSearchIndex index = index(train(1L, "12951", "Mumbai Rajdhani"), train(2L, "12002", "Bhopal Shatabdi"),
+                train(3L, "12301", "Howrah Rajdhani Express"));
+
+        assertEquals(List.of("12951", "12301"), numbers(index.searchByName("RAJDHANI", null)));
+        assertEquals(List.of("12951", "12301"), numbers(index.searchByName("jdhan", null)));
+        assertEquals(List.of("12002"), numbers(index.searchByName("pal sha", null)));
+        // Every trigram is there, but not as one substring
+        assertEquals(List.of(), numbers(index.searchByName("rajdhani mumbai", null)));
+        assertEquals(List.of(), numbers(index.searchByName("rajdhnai", null)));
+    }
+
+    @Test
+    void namesRankExactThenPrefixThenWordThenSubstring() {
+        TrainSearchIndex index = index(train(1L, "10001", "Superduronto Mail"),
+                train(2L, "10002", "Mumbai Duronto"), train(3L, "10003", "Duronto Express"),
+                train(4L, "10004", "Duronto"), train(5L, "10005", "Pune Duronto"));
+
+        assertEquals(List.of("10004", "10003", "10005", "10002", "10001"),
+                numbers(index.searchByName("duronto", null)));
+        // A requested limit is capped by train.search.max-results (3 here), no limit returns everything
+        assertEquals(List.of("10004", "10003"), numbers(index.searchByName("duronto", 2)));
+        assertEquals(3, index.searchByName("duronto", 50).size());
+        assertEquals(5, index.searchByName("duronto", 0).size());
+    }
+
+    @Test
+    void resultsCarryStationsFromTheRouteCache() {
+        TrainRouteCache routeCache = mock(TrainRouteCache.class);
+        when(routeCache.getStationNames(any())).thenReturn(List.of());
+        when(routeCache.getStationNames(1L)).thenReturn(List.of("New Delhi", "Bhopal"));
+        TrainSearchIndex index = index(routeCache, train(1L, "12002", "Bhopal Shatabdi"));
+
+        TrainSearchResponse hit = index.searchByNumber("12002", null).get(0);
+        assertEquals(List.of("New Delhi", "Bhopal"), hit.getStations());
+        assertEquals("NDLS", hit.getSource());
+    }
+
+    @Test
+    void updatedTrainIsFoundOnlyByItsNewNameAndNumber() {
+        TrainSearchIndex index = index(train(1L, "12951", "Mumbai Rajdhani"), train(2L, "12952", "Delhi Rajdhani"));
+
+        index.indexAfterCommit(train(1L, "22221", "Mumbai Tejas"));
+
+        assertEquals(List.of("12952"), numbers(index.searchByNumber("1295", null)));
+        assertEquals(List.of("12952"), numbers(index.searchByName("rajdhani", null)));
+        assertEquals(List.of("22221"), numbers(index.searchByNumber("222", null)));
+        assertEquals(List.of("22221"), numbers(index.searchByName("tejas", null)));
+        assertEquals("Mumbai Tejas", index.searchByName("mumbai", null).get(0).getTrainName());
+    }
+
+    @Test
+    void deletedTrainLeavesTheTrieAndPostings() {
+        TrainSearchIndex index = index(train(1L, "12951", "Mumbai Rajdhani"), train(2L, "12952", "Delhi Rajdhani"));
+
+        Train deleted = train(1L, "12951", "Mumbai Rajdhani");
+        deleted.setActive(false); // TrainService.deleteTrain deactivates
+        index.indexAfterCommit(deleted);
+
+        assertEquals(List.of("12952"), numbers(index.searchByNumber("1295", null)));
+        assertEquals(List.of(), numbers(index.searchByNumber("12951", null)));
+        assertEquals(List.of(), numbers(index.searchByName("mumbai", null)));
+        assertEquals(List.of("12952"), numbers(index.searchByName("rajdhani", null)));
+
+        // Reactivated, it is back
+        index.indexAfterCommit(train(1L, "12951", "Mumbai Rajdhani"));
+        assertEquals(List.of("12951", "12952"), numbers(index.searchByNumber("1295", null)));
+    }
+
+    @Test
+    void newTrainIsIndexed() {
+        TrainSearchIndex index = index(train(1L, "12951", "Mumbai Rajdhani"));
+
+        index.indexAfterCommit(train(2L, "12953", "August Kranti Rajdhani"));
+
+        assertEquals(List.of("12951", "12953"), numbers(index.searchByNumber("1295", null)));
+        assertEquals(List.of("12953"), numbers(index.searchByName("kranti", null)));
+    }
+
+    private static TrainSearchIndex index(Train... trains) {
+        TrainRouteCache routeCache = mock(TrainRouteCache.class);
+        when(routeCache.getStationNames(any())).thenReturn(List.of());
+        return index(routeCache, trains);
+    }
+
+    private static TrainSearchIndex index(TrainRouteCache routeCache, Train... trains) {
+        TrainRepository trainRepository = mock(TrainRepository.class);
+        when(trainRepository.findByActiveTrue()).thenReturn(List.of(trains));
+
+        TrainSearchIndex index = new TrainSearchIndex();
+        ReflectionTestUtils.setField(index, "trainRepository", trainRepository);
+        ReflectionTestUtils.setField(index, "trainRouteCache", routeCache);
+        ReflectionTestUtils.setField(index, "maxResults", 3);
+        index.build();
+        return index;
+    }
+
+    private static Train train(Long id, String number, String name) {
+        Train train = new Train();
+        train.setId(id);
+        train.setTrainNumber(number);
+        train.setTrainName(name);
+        train.setSource("NDLS");
+        train.setDestination("BCT");
+        train.setActive(true);
+        return train;
+    }
+
+    private static List<String> numbers(List<TrainSearchResponse> hits) {
+        return hits.stream().map(TrainSearchResponse::getTrainNumber).toList();
+    }
+}
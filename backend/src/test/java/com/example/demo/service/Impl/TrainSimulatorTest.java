@@ -0,0 +1,144 @@
+package com.example.demo.service.Impl;
+
+import com.example.demo.dto.TrainStatusResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Position interpolation checks, plus a rough timing of one simulator tick
+ * over thousands of synthetic trains. No Spring context or database needed.
+ * The benchmark is tagged benchmark and only runs with the benchmark profile:
+ * mvn -B test -Pbenchmark -Dtest=TrainSimulatorTest
+ */
+class TrainSimulatorTest {
+
+    private static final int TRAINS = 5000;
+    private static final int STOPS_PER_TRAIN = 20;
+    private static final int TICKS = 20;
+
+    // A (0 km) dep 08:00 -> B (100 km) 09:00-09:10 -> C (250 km) arr 11:10
+    private static TrainSimulator.Timetable sampleTimetable() {
+        return TrainSimulator.compile("12001", "Sample Express", List.of(
+                stop("A", 10.0, 70.0, null, "08:00", 0, 1),
+                stop("B", 11.0, 71.0, "09:00", "09:10", 100, 1),
+                stop("C", 13.0, 73.0, "11:10", null, 250, 1)));
+    }
+
+    private static TrainRouteCache.Stop stop(String code, Double latitude, Double longitude, String arrival,
+            String departure, Integer distance, Integer day) {
+        return new TrainRouteCache.Stop(null, null, code, "Station " + code, latitude, longitude, null, arrival,
+                departure, null, distance, day);
+    }
+
+    @Test
+    void interpolatesHalfwayAlongALeg() {
+        TrainStatusResponse status = TrainSimulator.position(sampleTimetable(), 30 * 60, 0);
+
+        assertEquals("A", status.getCurrentStationCode());
+        assertEquals("B", status.getNextStationCode());
+        assertEquals(10.5, status.getCurrentLatitude(), 1e-9);
+        assertEquals(70.5, status.getCurrentLongitude(), 1e-9);
+        assertEquals(50, status.getDistanceToNextStation());
+        assertEquals(30, status.getEstimatedTimeToNextStation());
+        assertEquals(100.0, status.getAverageSpeed(), 1e-9);
+    }
+
+    @Test
+    void staysAtTheStationDuringAHalt() {
+        TrainStatusResponse status = TrainSimulator.position(sampleTimetable(), 65 * 60, 5);
+
+        assertEquals("B", status.getCurrentStationCode());
+        assertEquals(11.0, status.getCurrentLatitude(), 1e-9);
+        assertEquals(150, status.getDistanceToNextStation());
+        assertEquals(0.0, status.getAverageSpeed(), 1e-9);
+        assertEquals("DELAYED", status.getCurrentStatus());
+    }
+
+    @Test
+    void waitsAtOriginAndEndsAtDestination() {
+        TrainSimulator.Timetable timetable = sampleTimetable();
+
+        assertEquals("A", TrainSimulator.position(timetable, -600, 0).getCurrentStationCode());
+        TrainStatusResponse arrived = TrainSimulator.position(timetable, timetable.end(), 0);
+        assertEquals("C", arrived.getCurrentStationCode());
+        assertEquals(13.0, arrived.getCurrentLatitude(), 1e-9);
+    }
+
+    @Test
+    void handlesJourneysPastMidnight() {
+        TrainSimulator.Timetable timetable = TrainSimulator.compile("12951", "Overnight Express", List.of(
+                stop("A", 10.0, 70.0, null, "22:00", 0, 1),
+                stop("B", 12.0, 72.0, "02:00", "02:10", 400, 2),
+                stop("C", 14.0, 74.0, "06:10", null, 800, 2)));
+
+        assertNotNull(timetable);
+        assertEquals(4 * 3600, timetable.arrive()[1]);
+        assertEquals(8 * 3600 + 10 * 60, timetable.end());
+        assertEquals("B", TrainSimulator.position(timetable, 4 * 3600 + 300, 0).getCurrentStationCode());
+    }
+
+    @Test
+    void sameMomentGivesSamePosition() {
+        TrainSimulator.Timetable timetable = sampleTimetable();
+        LocalDateTime now = LocalDateTime.of(2024, 3, 15, 9, 45);
+
+        assertEquals(TrainSimulator.simulate(timetable, now), TrainSimulator.simulate(timetable, now));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmarkTick() {
+        List<TrainSimulator.Timetable> timetables = new ArrayList<>(TRAINS);
+        for (int t = 0; t < TRAINS; t++) {
+            List<TrainRouteCache.Stop> stops = new ArrayList<>(STOPS_PER_TRAIN);
+            int minute = (t * 7) % (24 * 60);
+            for (int s = 0; s < STOPS_PER_TRAIN; s++) {
+                String arrival = s == 0 ? null : time(minute);
+                minute += s == 0 ? 0 : 5;
+                String departure = s == STOPS_PER_TRAIN - 1 ? null : time(minute);
+                minute += 40;
+                stops.add(stop("S" + s, 20.0 + s * 0.3, 75.0 + s * 0.3, arrival, departure, s * 55, null));
+            }
+            timetables.add(TrainSimulator.compile(String.valueOf(10000 + t), "Train " + t, stops));
+        }
+
+        LocalDateTime start = LocalDateTime.of(2024, 3, 15, 0, 0);
+        long checksum = 0;
+        // Warm up the JIT before timing
+        for (int i = 0; i < TICKS; i++) {
+            checksum += tick(timetables, start.plusMinutes(i * 13L));
+        }
+        long began = System.nanoTime();
+        for (int i = 0; i < TICKS; i++) {
+            checksum += tick(timetables, start.plusMinutes(i * 17L));
+        }
+        long elapsed = System.nanoTime() - began;
+
+        System.out.printf("🚆 TrainSimulator: %d trains x %d stops, %.2f ms per tick, %d ns per train (checksum %d)%n",
+                TRAINS, STOPS_PER_TRAIN, elapsed / 1e6 / TICKS, elapsed / ((long) TICKS * TRAINS), checksum);
+        assertTrue(checksum > 0);
+        // Generous ceiling, a tick over 5,000 trains takes a few milliseconds on one core
+        assertTrue(elapsed / 1e6 / TICKS < 250, "simulator tick over 250 ms");
+    }
+
+    private static long tick(List<TrainSimulator.Timetable> timetables, LocalDateTime now) {
+        long checksum = 0;
+        for (TrainSimulator.Timetable timetable : timetables) {
+            checksum += TrainSimulator.simulate(timetable, now).getDistanceToNextStation();
+        }
+        return checksum;
+    }
+
+    private static String time(int minuteOfJourney) {
+        int minute = minuteOfJourney % (24 * 60);
+        return String.format("%02d:%02d", minute / 60, minute % 60);
+    }
+}
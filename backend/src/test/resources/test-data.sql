@@ -0,0 +1,6 @@
+INSERT INTO roles (id, name) VALUES (1, 'ROLE_USER'), (2, 'ROLE_VENDOR'), (3, 'ROLE_ADMIN');
+INSERT INTO users (id, username, email, password, full_name, active, created_at)
+    VALUES (1, 'customer', 'customer@example.com', 'x', 'Test Customer', true, CURRENT_TIMESTAMP);
+INSERT INTO user_roles (user_id, role_id) VALUES (1, 1);
+INSERT INTO stations (id, station_code, station_name, latitude, longitude, created_at)
+    VALUES (1, 'NDLS', 'New Delhi', 28.64, 77.22, CURRENT_TIMESTAMP);
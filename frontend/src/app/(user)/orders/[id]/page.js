@@ -4,7 +4,7 @@ import React, { useEffect, useState } from 'react';
 import Navbar from '@/components/layout/Navbar';
 import { useParams, useRouter } from 'next/navigation';
 import { useOrder } from '@/context/OrderContext';
-import { reviewAPI } from '@/services/api';
+import { orderAPI, reviewAPI, trackingAPI } from '@/services/api';
 import { CheckCircle, Clock, MapPin, Package, ArrowLeft, Loader2, Phone, Star, X } from 'lucide-react';
 import { toast } from 'react-hot-toast';
 
@@ -23,35 +23,61 @@ export default function OrderDetailsPage() {
     const [submittingReview, setSubmittingReview] = useState(false);
 
     useEffect(() => {
-        let interval;
-        const fetchOrder = async () => {
-            if (id) {
-                try {
-                    const data = await getOrderById(id);
-                    setOrder(data);
-
-                    // Zomato-Style Auto-Popup Logic
-                    // If Delivered, No Review, and haven't shown modal yet -> Show it!
-                    if (data.status === 'DELIVERED' && !data.review && !hasShownReviewModal) {
-                        setShowReviewModal(true);
-                        setHasShownReviewModal(true);
-                    }
+        if (!id) return;
 
-                } catch (err) {
-                    console.error("Failed to update order status:", err);
-                } finally {
-                    setLoading(false);
-                }
+        const fetchOrder = async () => {
+            try {
+                const data = await getOrderById(id);
+                setOrder(data);
+            } catch (err) {
+                console.error("Failed to update order status:", err);
+            } finally {
+                setLoading(false);
+            }
+        };
+        // Skips the cached copy in OrderContext, used on resync and when polling
+        const refreshOrder = async () => {
+            try {
+                setOrder(await orderAPI.getById(id));
+            } catch (err) {
+                console.error("Failed to update order status:", err);
             }
         };
 
         fetchOrder();
-        // Poll every 5 seconds for status updates
-        interval = setInterval(fetchOrder, 5000);
+        // Live status updates; poll every 5 seconds only if the stream is refused
+        let interval = null;
+        const stream = trackingAPI.streamOrder(id, {
+            onDeliveryStatus: (tracking) => {
+                const status = trackingAPI.orderStatusOf(tracking.currentStatus);
+                setOrder(prev => prev ? { ...prev, status } : prev);
+            },
+            onResync: refreshOrder,
+            onError: (source) => {
+                // Dropped streams are retried by the browser, a refused one stays closed
+                if (source.readyState === EventSource.CLOSED && !interval) {
+                    interval = setInterval(refreshOrder, 5000);
+                }
+            },
+        });
 
-        return () => clearInterval(interval);
+        return () => {
+            stream.close();
+            if (interval) {
+                clearInterval(interval);
+            }
+        };
     }, [id]);
 
+    // Zomato-Style Auto-Popup Logic
+    // If Delivered, No Review, and haven't shown modal yet -> Show it!
+    useEffect(() => {
+        if (order?.status === 'DELIVERED' && !order.review && !hasShownReviewModal) {
+            setShowReviewModal(true);
+            setHasShownReviewModal(true);
+        }
+    }, [order, hasShownReviewModal]);
+
     const handleSubmitReview = async (e) => {
         e.preventDefault();
         if (rating === 0) {
@@ -2,7 +2,7 @@
 
 import React, { useState, useEffect } from 'react';
 import Navbar from '@/components/layout/Navbar';
-import { orderAPI } from '@/services/api';
+import { orderAPI, trackingAPI } from '@/services/api';
 import { useRouter } from 'next/navigation';
 import { CheckCircle, Truck, ChefHat, Package, ArrowLeft, Loader2 } from 'lucide-react';
 
@@ -28,11 +28,33 @@ export default function TrackOrderPage({ params }) {
             }
         };
 
-        if (id) {
-            fetchOrder();
-            const interval = setInterval(fetchOrder, 10000);
-            return () => clearInterval(interval);
-        }
+        if (!id) return;
+
+        fetchOrder();
+        // Live updates; poll every 10 seconds only if the stream is refused
+        let interval = null;
+        const stream = trackingAPI.streamOrder(id, {
+            onDeliveryStatus: (tracking) => {
+                const status = trackingAPI.orderStatusOf(tracking.currentStatus);
+                setOrder(prev => prev ? { ...prev, status } : prev);
+                // The delivery OTP and agent are only on the order
+                if (status === 'OUT_FOR_DELIVERY') fetchOrder();
+            },
+            onResync: fetchOrder,
+            onError: (source) => {
+                // Dropped streams are retried by the browser, a refused one stays closed
+                if (source.readyState === EventSource.CLOSED && !interval) {
+                    interval = setInterval(fetchOrder, 10000);
+                }
+            },
+        });
+
+        return () => {
+            stream.close();
+            if (interval) {
+                clearInterval(interval);
+            }
+        };
     }, [id]);
 
     if (loading) {
@@ -63,9 +63,9 @@ export const removeUserData = () => {
 };
 
 /**
- * Make an authenticated API request
+ * Make an authenticated API request, resolving to the response and its parsed body
  */
-const apiRequest = async (endpoint, options = {}) => {
+const sendRequest = async (endpoint, options = {}) => {
     const token = getToken();
 
     const headers = {
@@ -83,7 +83,7 @@ const apiRequest = async (endpoint, options = {}) => {
     });
 
     if (response.status === 204) {
-        return null;
+        return { response, data: null };
     }
 
     const text = await response.text();
@@ -107,9 +107,84 @@ const apiRequest = async (endpoint, options = {}) => {
         throw new Error(data.message || data.error || 'Something went wrong');
     }
 
+    return { response, data };
+};
+
+/**
+ * Make an authenticated API request
+ */
+const apiRequest = async (endpoint, options = {}) => {
+    const { data } = await sendRequest(endpoint, options);
     return data;
 };
 
+/**
+ * Fetch one page of a keyset-paged list
+ * @returns {Promise<{items: Array, nextCursor: string|null}>} nextCursor is null on the last page
+ */
+const apiPageRequest = async (endpoint, { cursor, limit } = {}) => {
+    const params = new URLSearchParams();
+    if (cursor) params.set('cursor', cursor);
+    if (limit) params.set('limit', limit);
+    const query = params.toString();
+    const { response, data } = await sendRequest(query ? `${endpoint}?${query}` : endpoint, { method: 'GET' });
+    return { items: data || [], nextCursor: response.headers.get('X-Next-Cursor') };
+};
+
+/**
+ * Open a Server-Sent Events stream
+ * EventSource can't send headers, so the stream authenticates with a short-lived
+ * ticket in the query string rather than the login token. The browser reconnects
+ * by itself and resumes with Last-Event-ID while the ticket is valid; once a
+ * reconnect is turned away (the ticket expired), a new ticket opens a new stream
+ * and onResync() is called, since that stream doesn't replay what was missed.
+ * @param {string} path - Stream endpoint
+ * @param {Object} listeners - Handler per event name, called with the parsed data
+ * @param {Object} handlers - onResync(), onError(source); source.readyState is CLOSED once the stream is given up
+ * @returns {{ close: Function }} Call close() to stop
+ */
+const openEventStream = (path, listeners, { onResync, onError } = {}) => {
+    let source = null;
+    let closed = false;
+
+    const open = async (reopening) => {
+        let ticket;
+        try {
+            ({ ticket } = await apiRequest('/api/auth/stream-ticket', { method: 'POST' }));
+        } catch (err) {
+            onError?.({ readyState: EventSource.CLOSED });
+            return;
+        }
+        if (closed) return;
+
+        let opened = false;
+        source = new EventSource(`${API_BASE_URL}${path}?ticket=${encodeURIComponent(ticket)}`);
+        Object.entries(listeners).forEach(([name, handler]) =>
+            source.addEventListener(name, (e) => handler?.(JSON.parse(e.data))));
+        // Missed events are gone (server restart or a long disconnect): reload
+        source.addEventListener('resync', () => onResync?.());
+        source.onopen = () => {
+            opened = true;
+            if (reopening) onResync?.();
+        };
+        source.onerror = () => {
+            if (source.readyState === EventSource.CLOSED && opened && !closed) {
+                open(true);
+                return;
+            }
+            onError?.(source);
+        };
+    };
+
+    open(false);
+    return {
+        close: () => {
+            closed = true;
+            source?.close();
+        },
+    };
+};
+
 /**
  * Auth API Methods
  */
@@ -582,11 +657,31 @@ export const orderAPI = {
     },
 
     /**
-     * Get all orders for the logged-in vendor
-     * @returns {Promise<Array>}
+     * Get one page of the logged-in vendor's orders, newest first
+     * @param {Object} page - { cursor, limit }; cursor is the nextCursor of the previous page
+     * @returns {Promise<{items: Array, nextCursor: string|null}>}
+     */
+    getVendorOrders: async (page = {}) => {
+        return apiPageRequest('/api/orders/vendor/my-orders', page);
+    },
+
+    /**
+     * Get the logged-in vendor's order totals over all of their orders
+     * @returns {Promise<Object>} { totalOrders, todayOrders, ordersByStatus, totalRevenue, todayRevenue, monthRevenue }
+     */
+    getVendorStats: async () => {
+        return apiRequest('/api/orders/vendor/stats', { method: 'GET' });
+    },
+
+    /**
+     * Open the live order stream of the logged-in vendor (Server-Sent Events)
+     * @param {Object} handlers - onCreated(order), onStatus({ orderId, status, updatedAt }), onResync(), onError(source)
+     * @returns {{ close: Function }} Call close() to stop
      */
-    getVendorOrders: async () => {
-        return apiRequest('/api/orders/vendor/my-orders', { method: 'GET' });
+    streamVendorOrders: ({ onCreated, onStatus, onResync, onError } = {}) => {
+        return openEventStream('/api/orders/vendor/stream',
+            { 'order-created': onCreated, 'order-status': onStatus },
+            { onResync, onError });
     },
 };
 
@@ -832,6 +927,30 @@ export const trackingAPI = {
     getOrderTrainStatus: async (orderId) => {
         return apiRequest(`/api/tracking/order/${orderId}/train-status`, { method: 'GET' });
     },
+
+    /**
+     * Open the live tracking stream of an order (Server-Sent Events)
+     * The current delivery status and train position arrive right after connecting,
+     * then on every change.
+     * @param {number} orderId
+     * @param {Object} handlers - onDeliveryStatus(tracking), onTrainStatus(trainStatus), onResync(), onError(source)
+     * @returns {{ close: Function }} Call close() to stop
+     */
+    streamOrder: (orderId, { onDeliveryStatus, onTrainStatus, onResync, onError } = {}) => {
+        return openEventStream(`/api/tracking/order/${orderId}/stream`,
+            { 'delivery-status': onDeliveryStatus, 'train-status': onTrainStatus },
+            { onResync, onError });
+    },
+
+    /**
+     * Order status matching a delivery status from the stream
+     * @param {string} deliveryStatus
+     * @returns {string}
+     */
+    orderStatusOf: (deliveryStatus) => {
+        // A pending order is tracked as placed; reaching the station is still out for delivery
+        return { PLACED: 'PENDING', REACHED_STATION: 'OUT_FOR_DELIVERY' }[deliveryStatus] || deliveryStatus;
+    },
 };
 
 export default apiRequest;